@@ -1,11 +1,35 @@
 package com.evomind.api;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.reflect.Method;
 
 @SpringBootApplication
+@EnableScheduling
 public class EvoMindApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(EvoMindApiApplication.class, args);
     }
+
+    /**
+     * 开启延迟初始化（fast-start）时，带 {@link Scheduled} 或 {@link PostConstruct} 方法的 Bean 仍在启动时创建：
+     * 它们负责定时清理、后台线程或探针端口，延迟到首次使用就等于没有启动。
+     */
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeansEager() {
+        return (beanName, definition, beanType) -> {
+            for (Method method : beanType.getMethods()) {
+                if (method.isAnnotationPresent(Scheduled.class) || method.isAnnotationPresent(PostConstruct.class)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
 }
@@ -0,0 +1,88 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.OcrJobService;
+import com.evomind.api.service.TokenService;
+import com.evomind.api.store.DiscussionAccessException;
+import com.evomind.api.store.RefundStateException;
+import com.evomind.api.store.SmsCodeException;
+import com.evomind.api.store.UserDeletedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(UserDeletedException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ApiResponse<Void> userDeleted(UserDeletedException e) {
+        return ApiResponse.error(41001, "账号已注销");
+    }
+
+    @ExceptionHandler(UserMismatchException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public ApiResponse<Void> userMismatch(UserMismatchException e) {
+        return ApiResponse.error(40301, "无权访问该用户的数据");
+    }
+
+    @ExceptionHandler(DiscussionAccessException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiResponse<Void> discussionAccess(DiscussionAccessException e) {
+        return ApiResponse.error(40401, "讨论不存在");
+    }
+
+    @ExceptionHandler(JobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiResponse<Void> jobNotFound(JobNotFoundException e) {
+        return ApiResponse.error(40401, e.getMessage());
+    }
+
+    @ExceptionHandler(ClusterKeyException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public ApiResponse<Void> clusterKey(ClusterKeyException e) {
+        return ApiResponse.error(40302, e.getMessage());
+    }
+
+    @ExceptionHandler(ReviewerRequiredException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public ApiResponse<Void> reviewerRequired(ReviewerRequiredException e) {
+        return ApiResponse.error(40303, e.getMessage());
+    }
+
+    @ExceptionHandler(LoginUnavailableException.class)
+    @ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+    public ApiResponse<Void> loginUnavailable(LoginUnavailableException e) {
+        return ApiResponse.error(50101, e.getMessage());
+    }
+
+    @ExceptionHandler(BatchLimitException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiResponse<Void> batchLimit(BatchLimitException e) {
+        return ApiResponse.error(40001, e.getMessage());
+    }
+
+    @ExceptionHandler(OcrJobService.BusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResponse<Void> ocrBusy(OcrJobService.BusyException e) {
+        return ApiResponse.error(50303, e.getMessage());
+    }
+
+    @ExceptionHandler(TokenService.InvalidTokenException.class)
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    public ApiResponse<Void> invalidToken(TokenService.InvalidTokenException e) {
+        return ApiResponse.error(40102, e.getMessage());
+    }
+
+    @ExceptionHandler(SmsCodeException.class)
+    public ResponseEntity<ApiResponse<Void>> smsCode(SmsCodeException e) {
+        return ResponseEntity.status(e.code() / 100).body(ApiResponse.error(e.code(), e.getMessage()));
+    }
+
+    @ExceptionHandler(RefundStateException.class)
+    public ResponseEntity<ApiResponse<Void>> refundState(RefundStateException e) {
+        return ResponseEntity.status(e.code() / 100).body(ApiResponse.error(e.code(), e.getMessage()));
+    }
+}
@@ -1,52 +1,99 @@
 package com.evomind.api.controller;
 
+import com.evomind.api.integration.SmsSdkClient;
 import com.evomind.api.model.*;
+import com.evomind.api.service.TokenService;
+import com.evomind.api.store.SmsCodeException;
+import com.evomind.api.store.SmsCodeStore;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/auth")
 public class AuthController {
 
+    private final TokenService tokenService;
+    private final SmsCodeStore smsCodes;
+    private final SmsSdkClient smsSdkClient;
+
+    public AuthController(TokenService tokenService, SmsCodeStore smsCodes, SmsSdkClient smsSdkClient) {
+        this.tokenService = tokenService;
+        this.smsCodes = smsCodes;
+        this.smsSdkClient = smsSdkClient;
+    }
+
     @PostMapping("/sms/send")
-    public ApiResponse<SmsSendResponse> sendSms(@Valid @RequestBody SmsSendRequest req) {
-        return ApiResponse.ok(new SmsSendResponse(req.phone(), "BIZ" + System.currentTimeMillis(), "验证码已发送（演示环境固定123456）"));
+    public ApiResponse<SmsSendResponse> sendSms(@Valid @RequestBody SmsSendRequest req, HttpServletRequest request) {
+        SmsCodeStore.Issued issued = smsCodes.issue(req.phone(), request.getRemoteAddr());
+        switch (issued.result()) {
+            case COOLDOWN -> throw new SmsCodeException(42901, "发送过于频繁，请稍后再试");
+            case PHONE_LIMITED -> throw new SmsCodeException(42902, "该手机号发送次数过多，请1小时后再试");
+            case IP_LIMITED -> throw new SmsCodeException(42903, "当前网络发送次数过多，请稍后再试");
+            default -> {
+            }
+        }
+        String bizId = smsSdkClient.sendCode(req.phone(), issued.code());
+        return ApiResponse.ok(new SmsSendResponse(req.phone(), bizId, "验证码已发送"));
     }
 
     @PostMapping("/sms/login")
     public ApiResponse<LoginResponse> smsLogin(@Valid @RequestBody LoginRequest req) {
+        checkCode(req.phone(), req.otp());
         String userId = "u_" + req.phone().substring(Math.max(0, req.phone().length() - 4));
-        LoginResponse data = new LoginResponse(
-                userId,
-                UUID.randomUUID().toString(),
-                UUID.randomUUID().toString(),
-                "欢迎来到EvoMind（进化意志）"
-        );
-        return ApiResponse.ok(data);
+        return ApiResponse.ok(login(userId, "欢迎来到EvoMind（进化意志）"));
     }
 
+    /**
+     * 账号密码尚未落库，无从校验密码哈希；在此之前不签发令牌，避免凭手机号即可冒用任意账号。
+     */
     @PostMapping("/password/login")
     public ApiResponse<LoginResponse> passwordLogin(@Valid @RequestBody PasswordLoginRequest req) {
-        String userId = "u_" + req.phone().substring(Math.max(0, req.phone().length() - 4));
-        return ApiResponse.ok(new LoginResponse(userId, UUID.randomUUID().toString(), UUID.randomUUID().toString(), "密码登录成功"));
+        throw new LoginUnavailableException("密码登录暂未开放，请使用短信验证码登录");
     }
 
+    /**
+     * openid 必须由服务端用授权 code 向微信换取，客户端自报的 openid 不可信；接入微信 SDK 之前不签发令牌。
+     */
     @PostMapping("/wechat/login")
     public ApiResponse<LoginResponse> wechatLogin(@Valid @RequestBody WechatLoginRequest req) {
-        String userId = "wx_" + Math.abs(req.openid().hashCode());
-        return ApiResponse.ok(new LoginResponse(userId, UUID.randomUUID().toString(), UUID.randomUUID().toString(), "微信登录成功，欢迎" + req.nickname()));
+        throw new LoginUnavailableException("微信登录暂未开放，请使用短信验证码登录");
     }
 
     @PostMapping("/password/reset")
     public ApiResponse<Map<String, String>> resetPassword(@Valid @RequestBody PasswordResetRequest req) {
+        checkCode(req.phone(), req.otp());
         return ApiResponse.ok(Map.of("status", "ok", "message", "密码重置成功"));
     }
 
+    @PostMapping("/token/refresh")
+    public ApiResponse<LoginResponse> refresh(@Valid @RequestBody TokenRefreshRequest req) {
+        TokenService.TokenPair pair = tokenService.refresh(req.refreshToken());
+        return ApiResponse.ok(new LoginResponse(pair.userId(), pair.accessToken(), pair.refreshToken(), "令牌已刷新"));
+    }
+
     @PostMapping("/logout")
     public ApiResponse<Map<String, String>> logout(@Valid @RequestBody LogoutRequest req) {
+        if (req.refreshToken() != null) {
+            tokenService.revoke(req.refreshToken());
+        }
         return ApiResponse.ok(Map.of("status", "ok", "message", "已退出登录"));
     }
+
+    private void checkCode(String phone, String otp) {
+        switch (smsCodes.verify(phone, otp)) {
+            case WRONG -> throw new SmsCodeException(40002, "验证码错误");
+            case EXPIRED -> throw new SmsCodeException(40003, "验证码已失效，请重新获取");
+            case LOCKED -> throw new SmsCodeException(42904, "验证码错误次数过多，请重新获取");
+            default -> {
+            }
+        }
+    }
+
+    private LoginResponse login(String userId, String welcome) {
+        TokenService.TokenPair pair = tokenService.issue(userId);
+        return new LoginResponse(userId, pair.accessToken(), pair.refreshToken(), welcome);
+    }
 }
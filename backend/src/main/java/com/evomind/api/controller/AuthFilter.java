@@ -0,0 +1,82 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.TokenService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 校验 Authorization: Bearer 访问令牌，通过后把用户 ID 放进请求属性，
+ * 由 {@link UserTombstoneGuard} 核对请求里的 userId 与令牌一致。
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class AuthFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_ATTRIBUTE = "evomind.auth.userId";
+
+    private static final String BEARER = "Bearer ";
+    // 无需登录：认证接口、支付渠道回调（各自验签）、健康检查与系统信息、套餐列表、集群内部接口（校验集群密钥）
+    private static final String[] PUBLIC_PREFIXES = {
+            "/api/v1/auth/", "/api/v1/pay/", "/api/v1/system/", "/api/v1/health", "/api/v1/subscription/plans",
+            "/api/v1/cluster/"
+    };
+
+    private final TokenService tokenService;
+    private final boolean enforce;
+    private final byte[] unauthorized;
+
+    public AuthFilter(TokenService tokenService, ObjectMapper objectMapper,
+                      @Value("${evomind.auth.enforce:true}") boolean enforce) throws JsonProcessingException {
+        this.tokenService = tokenService;
+        this.enforce = enforce;
+        this.unauthorized = objectMapper.writeValueAsBytes(ApiResponse.error(40101, "未登录或登录已过期"));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (!uri.startsWith("/api/v1/")) {
+            return true;
+        }
+        for (String prefix : PUBLIC_PREFIXES) {
+            if (uri.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        TokenService.Claims claims = header != null && header.startsWith(BEARER)
+                ? tokenService.verify(header.substring(BEARER.length()), TokenService.Type.ACCESS)
+                : null;
+        if (claims != null) {
+            request.setAttribute(USER_ID_ATTRIBUTE, claims.userId());
+        } else if (enforce) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(unauthorized.length);
+            response.getOutputStream().write(unauthorized);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,197 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.model.BatchRequest;
+import com.evomind.api.model.BatchResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量接口：一次往返提交多个子请求，子请求经本机回环交给同一实例处理（认证、注销拦截、分片转发照常生效），
+ * 按提交顺序返回各自的状态码与响应体。
+ * 子请求在有界线程池上并发执行，每个都从整批开始计时、到各自的超时仍未完成即记 504 并取消；
+ * 线程池与排队都已满时记 503。外层请求最多等待超时上限，不会被慢子请求拖住。
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class BatchController {
+
+    // HttpClient 不允许调用方设置的连接类头，以及会让响应体变成二进制的 Accept / Accept-Encoding：
+    // 子响应要解析成 JSON 节点嵌进外层响应，外层再按调用方的 Accept 整体编码成 JSON、CBOR 或 Smile
+    private static final Set<String> DROPPED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade",
+            "accept", "accept-encoding");
+    private static final List<String> INHERITED_HEADERS = List.of("Authorization", "Accept-Language");
+    // 子请求来自回环地址，按客户端地址限频的短信接口不允许批量提交
+    private static final List<String> EXCLUDED_PREFIXES = List.of("/api/v1/batch", "/api/v1/auth/sms/");
+
+    private record Result(int status, String etag, long elapsedMs, byte[] body) {}
+
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+    private final long maxTimeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final HttpClient http;
+
+    public BatchController(ObjectMapper objectMapper,
+                           @Value("${evomind.batch.max-requests:20}") int maxRequests,
+                           @Value("${evomind.batch.timeout-ms:3000}") long maxTimeoutMillis,
+                           @Value("${evomind.batch.workers:32}") int workers,
+                           @Value("${evomind.batch.queue-capacity:256}") int queueCapacity) {
+        this.objectMapper = objectMapper;
+        this.maxRequests = maxRequests;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "batch-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(maxTimeoutMillis)).build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @PostMapping("/batch")
+    public ApiResponse<BatchResponse> batch(@Valid @RequestBody BatchRequest req, HttpServletRequest request) {
+        if (req.requests().size() > maxRequests) {
+            throw new BatchLimitException("单次批量最多 " + maxRequests + " 个子请求");
+        }
+        long started = System.nanoTime();
+        // 先全部校验，任一子请求不合法时整批拒绝，不产生部分执行
+        String base = "http://127.0.0.1:" + request.getLocalPort() + request.getContextPath();
+        List<HttpRequest> built = new ArrayList<>(req.requests().size());
+        long[] deadlines = new long[req.requests().size()];
+        for (int i = 0; i < deadlines.length; i++) {
+            BatchRequest.Item item = req.requests().get(i);
+            long timeout = item.timeoutMs() == null || item.timeoutMs() <= 0
+                    ? maxTimeoutMillis : Math.min(item.timeoutMs(), maxTimeoutMillis);
+            deadlines[i] = started + TimeUnit.MILLISECONDS.toNanos(timeout);
+            built.add(build(item, base, request, timeout));
+        }
+        List<Future<Result>> futures = new ArrayList<>(built.size());
+        for (HttpRequest sub : built) {
+            try {
+                futures.add(executor.submit(() -> send(sub)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+        List<BatchResponse.Item> responses = new ArrayList<>(built.size());
+        for (int i = 0; i < futures.size(); i++) {
+            BatchRequest.Item item = req.requests().get(i);
+            String id = item.id() == null ? Integer.toString(i) : item.id();
+            responses.add(join(id, futures.get(i), deadlines[i]));
+        }
+        return ApiResponse.ok(new BatchResponse(responses));
+    }
+
+    private HttpRequest build(BatchRequest.Item item, String base, HttpServletRequest outer, long timeoutMillis) {
+        String path = item.path();
+        int q = path.indexOf('?');
+        try {
+            String decoded = UriUtils.decode(q < 0 ? path : path.substring(0, q), StandardCharsets.UTF_8);
+            // 容器会规范化点段、剥掉 ;参数，放行它们就能绕过下面的前缀限制
+            if (!decoded.startsWith("/api/v1/") || decoded.contains("/.") || decoded.contains(";") || decoded.contains("\\")
+                    || EXCLUDED_PREFIXES.stream().anyMatch(decoded::startsWith)) {
+                throw new BatchLimitException("不支持的子请求路径：" + path);
+            }
+            byte[] body = item.body() == null || item.body().isNull() ? new byte[0] : objectMapper.writeValueAsBytes(item.body());
+            HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(base + path))
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .method(item.method().toUpperCase(), body.length == 0
+                            ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body))
+                    .header("Accept", "application/json");
+            if (body.length > 0) {
+                b.header("Content-Type", "application/json");
+            }
+            for (String name : INHERITED_HEADERS) {
+                String value = outer.getHeader(name);
+                if (value != null) {
+                    b.setHeader(name, value);
+                }
+            }
+            if (item.headers() != null) {
+                item.headers().forEach((name, value) -> {
+                    if (!DROPPED_HEADERS.contains(name.toLowerCase())) {
+                        b.setHeader(name, value);
+                    }
+                });
+            }
+            return b.build();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new BatchLimitException("子请求不合法：" + item.method() + " " + path);
+        }
+    }
+
+    private Result send(HttpRequest sub) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response = http.send(sub, HttpResponse.BodyHandlers.ofByteArray());
+        return new Result(response.statusCode(), response.headers().firstValue("ETag").orElse(null),
+                (System.nanoTime() - started) / 1_000_000, response.body());
+    }
+
+    private BatchResponse.Item join(String id, Future<Result> future, long deadline) {
+        if (future == null) {
+            return new BatchResponse.Item(id, 503, null, 0, null);
+        }
+        try {
+            Result r = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return new BatchResponse.Item(id, r.status(), r.etag(), r.elapsedMs(), parse(r.body()));
+        } catch (TimeoutException e) {
+            // 还在排队的不再执行，已发出的中断等待；子请求可能已在服务端生效，客户端按 504 的一般语义处理
+            future.cancel(true);
+            return new BatchResponse.Item(id, 504, null, 0, null);
+        } catch (ExecutionException e) {
+            return new BatchResponse.Item(id, e.getCause() instanceof HttpTimeoutException ? 504 : 500,
+                    null, 0, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return new BatchResponse.Item(id, 503, null, 0, null);
+        }
+    }
+
+    private JsonNode parse(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+}
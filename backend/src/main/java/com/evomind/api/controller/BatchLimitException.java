@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class BatchLimitException extends RuntimeException {
+    BatchLimitException(String message) {
+        super(message);
+    }
+}
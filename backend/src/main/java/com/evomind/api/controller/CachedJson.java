@@ -0,0 +1,96 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 预序列化的只读响应：JSON 只序列化一次，同时保留 gzip 版本，按内容摘要生成强 ETag，
+ * 命中 If-None-Match 时直接返回 304。
+ */
+final class CachedJson {
+
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+
+    private CachedJson(byte[] body) {
+        this.body = body;
+        byte[] gz = gzip(body);
+        // 压缩后不更小就不提供 gzip 版本
+        this.gzipped = gz.length < body.length ? gz : null;
+        String digest = digest(body);
+        this.etag = '"' + digest + '"';
+        this.gzipEtag = '"' + digest + "-gz" + '"';
+    }
+
+    /**
+     * requestId 固定为 name，保证同样的内容得到同样的字节和 ETag。
+     */
+    static CachedJson of(ObjectMapper mapper, String name, Object data) {
+        try {
+            // Map 的迭代顺序每个 JVM 不同，按键排序保证各实例、重启前后 ETag 一致
+            return new CachedJson(mapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(new ApiResponse<>(0, "ok", name, data)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("预序列化响应失败：" + name, e);
+        }
+    }
+
+    ResponseEntity<byte[]> toResponse(HttpServletRequest request) {
+        boolean gzip = gzipped != null && acceptsGzip(request);
+        String tag = gzip ? gzipEtag : etag;
+        if (ConditionalGet.notModified(request, etag, gzipEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache()).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(tag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? gzipped : body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return accept != null && accept.contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] raw) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
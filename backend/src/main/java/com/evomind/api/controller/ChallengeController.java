@@ -4,8 +4,11 @@ import com.evomind.api.model.ApiResponse;
 import com.evomind.api.model.ArtifactRequest;
 import com.evomind.api.model.ChallengeTask;
 import com.evomind.api.model.TaskStatusRequest;
+import com.evomind.api.service.ChallengeDeadlineScheduler;
 import com.evomind.api.store.InMemoryStore;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -15,19 +18,26 @@ import java.util.Map;
 public class ChallengeController {
 
     private final InMemoryStore store;
+    private final ChallengeDeadlineScheduler deadlines;
 
-    public ChallengeController(InMemoryStore store) {
+    public ChallengeController(InMemoryStore store, ChallengeDeadlineScheduler deadlines) {
         this.store = store;
+        this.deadlines = deadlines;
     }
 
     @GetMapping("/current")
-    public ApiResponse<ChallengeTask> current(@RequestParam String userId) {
-        return ApiResponse.ok(store.getOrInitTask(userId));
+    public ResponseEntity<ApiResponse<ChallengeTask>> current(@RequestParam String userId, HttpServletRequest request) {
+        if (store.version(InMemoryStore.UserCollection.TASK, userId) == 0) {
+            // 尚未初始化任务，先创建再取 ETag
+            store.getOrInitTask(userId);
+        }
+        String etag = store.etag(InMemoryStore.UserCollection.TASK, userId);
+        return ConditionalGet.respond(request, etag, () -> deadlines.track(userId, store.getOrInitTask(userId)));
     }
 
     @PostMapping("/{id}/status")
     public ApiResponse<ChallengeTask> updateStatus(@PathVariable String id, @Valid @RequestBody TaskStatusRequest req) {
-        return ApiResponse.ok(store.updateTaskStatus(req.userId(), req.status()));
+        return ApiResponse.ok(deadlines.track(req.userId(), store.updateTaskStatus(req.userId(), req.status())));
     }
 
     @PostMapping("/{id}/artifact")
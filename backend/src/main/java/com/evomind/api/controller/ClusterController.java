@@ -0,0 +1,57 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.model.ClusterMembersRequest;
+import com.evomind.api.model.UserSnapshot;
+import com.evomind.api.service.ClusterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群内部接口，只接受带正确集群密钥的调用。
+ * 快照按原始字节接收，避免请求体里的 userId 被当作普通用户请求校验。
+ */
+@RestController
+@RequestMapping("/api/v1/cluster")
+public class ClusterController {
+
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+
+    public ClusterController(ClusterService cluster, ObjectMapper objectMapper) {
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/handoff")
+    public ApiResponse<Boolean> handoff(@RequestHeader(value = ClusterService.KEY_HEADER, required = false) String key,
+                                        @RequestBody byte[] body) throws IOException {
+        checkKey(key);
+        return ApiResponse.ok(cluster.accept(objectMapper.readValue(body, UserSnapshot.class)));
+    }
+
+    @GetMapping("/members")
+    public ApiResponse<Map<String, Object>> members(@RequestHeader(value = ClusterService.KEY_HEADER, required = false) String key) {
+        checkKey(key);
+        return ApiResponse.ok(Map.of("self", cluster.self(), "nodes", cluster.members()));
+    }
+
+    @PostMapping("/members")
+    public ApiResponse<ClusterService.Rebalance> updateMembers(
+            @RequestHeader(value = ClusterService.KEY_HEADER, required = false) String key,
+            @Valid @RequestBody ClusterMembersRequest req) {
+        checkKey(key);
+        return ApiResponse.ok(cluster.updateMembers(List.copyOf(req.nodes())));
+    }
+
+    private void checkKey(String key) {
+        if (!cluster.authorized(key)) {
+            throw new ClusterKeyException();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class ClusterKeyException extends RuntimeException {
+    ClusterKeyException() {
+        super("集群密钥不正确");
+    }
+}
@@ -1,7 +1,8 @@
 package com.evomind.api.controller;
 
-import com.evomind.api.integration.AiSdkClient;
+import com.evomind.api.integration.AiGateway;
 import com.evomind.api.model.*;
+import com.evomind.api.service.DrilldownService;
 import com.evomind.api.store.InMemoryStore;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,26 +13,30 @@ import java.util.List;
 public class CognitionController {
 
     private final InMemoryStore store;
-    private final AiSdkClient aiSdkClient;
+    private final AiGateway aiGateway;
+    private final DrilldownService drilldownService;
 
-    public CognitionController(InMemoryStore store, AiSdkClient aiSdkClient) {
+    public CognitionController(InMemoryStore store, AiGateway aiGateway, DrilldownService drilldownService) {
         this.store = store;
-        this.aiSdkClient = aiSdkClient;
+        this.aiGateway = aiGateway;
+        this.drilldownService = drilldownService;
     }
 
     @GetMapping("/feed")
     public ApiResponse<List<CardItem>> feed(@RequestParam String userId) {
         // 演示层：优先用AI客户端产出，再可融合store缓存
-        return ApiResponse.ok(aiSdkClient.buildCards(userId));
+        return ApiResponse.ok(aiGateway.buildCards(userId));
     }
 
     @GetMapping("/{id}/mindmap")
     public ApiResponse<MindmapResponse> mindmap(@PathVariable String id) {
-        return ApiResponse.ok(aiSdkClient.buildMindmap(id));
+        MindmapResponse mindmap = aiGateway.buildMindmap(id);
+        drilldownService.registerMindmap(mindmap);
+        return ApiResponse.ok(mindmap);
     }
 
     @GetMapping("/{id}/drilldown")
     public ApiResponse<DrilldownResponse> drilldown(@PathVariable String id, @RequestParam String nodeId) {
-        return ApiResponse.ok(store.drilldown(id, nodeId));
+        return ApiResponse.ok(drilldownService.drilldown(id, nodeId));
     }
 }
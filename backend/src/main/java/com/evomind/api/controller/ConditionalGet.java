@@ -0,0 +1,94 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 条件 GET：ETag 命中时直接 304，不读取也不序列化数据。
+ * 同一版本的 JSON 与 CBOR/Smile 编码是不同的表示，ETag 按协商出的格式加后缀，并带 Vary: Accept。
+ */
+final class ConditionalGet {
+
+    static final MediaType CBOR = MediaType.valueOf("application/cbor");
+    static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<ApiResponse<T>> respond(HttpServletRequest request, String version, Supplier<T> body) {
+        String etag = representation(request, version);
+        if (notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(ApiResponse.ok(body.get()));
+    }
+
+    /**
+     * 按 Accept 判断响应会编码成哪种格式（与消息转换器的选择一致：按 q 值排序，JSON 与通配优先于二进制），
+     * 二进制格式时给 ETag 加后缀。
+     */
+    static String representation(HttpServletRequest request, String etag) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return etag;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+            // 与消息转换器相同的排序：MediaType 的具体度比较先比 q 值，同 q 时具体类型优先
+            MimeTypeUtils.sortBySpecificity(types);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return etag;
+        }
+        for (MediaType type : types) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return etag;
+            }
+            if (type.isCompatibleWith(CBOR)) {
+                return etag.substring(0, etag.length() - 1) + "-cbor\"";
+            }
+            if (type.isCompatibleWith(SMILE)) {
+                return etag.substring(0, etag.length() - 1) + "-smile\"";
+            }
+        }
+        return etag;
+    }
+
+    /**
+     * If-None-Match 按弱比较匹配任一给定 ETag。
+     */
+    static boolean notModified(HttpServletRequest request, String... etags) {
+        String header = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) {
+                return true;
+            }
+            if (c.startsWith("W/")) {
+                c = c.substring(2);
+            }
+            for (String etag : etags) {
+                if (c.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.model.ConflictDetectRequest;
+import com.evomind.api.model.ConflictDetectResponse;
+import com.evomind.api.model.CorpusAddRequest;
+import com.evomind.api.service.ConflictDetectionService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/conflicts")
+public class ConflictController {
+
+    private final ConflictDetectionService conflictService;
+
+    public ConflictController(ConflictDetectionService conflictService) {
+        this.conflictService = conflictService;
+    }
+
+    @PostMapping("/corpus")
+    public ApiResponse<Map<String, Integer>> addCorpus(@Valid @RequestBody CorpusAddRequest req) {
+        int added = conflictService.addToCorpus(req.userId(), req.sourceId(), req.title(), req.text());
+        return ApiResponse.ok(Map.of("added", added, "corpusSize", conflictService.corpusSize(req.userId())));
+    }
+
+    @PostMapping("/detect")
+    public ApiResponse<ConflictDetectResponse> detect(@Valid @RequestBody ConflictDetectRequest req) {
+        return ApiResponse.ok(conflictService.detect(req.userId(), req.content()));
+    }
+}
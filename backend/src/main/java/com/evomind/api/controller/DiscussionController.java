@@ -1,35 +1,37 @@
 package com.evomind.api.controller;
 
-import com.evomind.api.integration.AiSdkClient;
 import com.evomind.api.model.*;
-import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.service.DailyQuestionPool;
+import com.evomind.api.service.DiscussionService;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/v1/discussion")
 public class DiscussionController {
 
-    private final InMemoryStore store;
-    private final AiSdkClient aiSdkClient;
+    private final DiscussionService discussionService;
+    private final DailyQuestionPool questionPool;
 
-    public DiscussionController(InMemoryStore store, AiSdkClient aiSdkClient) {
-        this.store = store;
-        this.aiSdkClient = aiSdkClient;
+    public DiscussionController(DiscussionService discussionService, DailyQuestionPool questionPool) {
+        this.discussionService = discussionService;
+        this.questionPool = questionPool;
     }
 
     @PostMapping("/daily-question/generate")
-    public ApiResponse<DailyQuestionResponse> generate() {
-        return ApiResponse.ok(aiSdkClient.dailyQuestion());
+    public ApiResponse<DailyQuestionResponse> generate(@RequestParam(required = false) String userId) {
+        return ApiResponse.ok(discussionService.open(userId, questionPool.pick(userId, LocalDate.now())));
     }
 
     @PostMapping("/{id}/reply")
     public ApiResponse<DiscussionReplyResponse> reply(@PathVariable String id, @Valid @RequestBody DiscussionReplyRequest req) {
-        return ApiResponse.ok(store.followUp(id, req.answer()));
+        return ApiResponse.ok(discussionService.reply(id, req.userId(), req.answer()));
     }
 
     @PostMapping("/{id}/finalize")
     public ApiResponse<DiscussionFinalizeResponse> finalizeDiscussion(@PathVariable String id, @Valid @RequestBody DiscussionFinalizeRequest req) {
-        return ApiResponse.ok(store.finalizeDiscussion(id));
+        return ApiResponse.ok(discussionService.finalizeDiscussion(id, req.userId(), req.finalAnswer()));
     }
 }
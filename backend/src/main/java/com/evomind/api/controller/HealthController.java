@@ -1,6 +1,12 @@
 package com.evomind.api.controller;
 
-import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.HealthMonitor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -10,8 +16,29 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/v1")
 public class HealthController {
+
+    private final HealthMonitor monitor;
+    private final CachedJson health;
+
+    public HealthController(HealthMonitor monitor, ObjectMapper objectMapper) {
+        this.monitor = monitor;
+        this.health = CachedJson.of(objectMapper, "health", Map.of("status", "UP", "service", "evomind-api"));
+    }
+
     @GetMapping("/health")
-    public ApiResponse<Map<String, String>> health() {
-        return ApiResponse.ok(Map.of("status", "UP", "service", "evomind-api"));
+    public ResponseEntity<byte[]> health(HttpServletRequest request) {
+        return health.toResponse(request);
+    }
+
+    /**
+     * 各组件的后台检查结果（与探针端口 /health 相同），只读缓存，不触发检查。
+     */
+    @GetMapping("/health/components")
+    public ResponseEntity<byte[]> components() {
+        HealthMonitor.Snapshot snapshot = monitor.snapshot();
+        return ResponseEntity.status(snapshot.status() == HealthMonitor.State.DOWN ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK)
+                .cacheControl(CacheControl.noStore())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
     }
 }
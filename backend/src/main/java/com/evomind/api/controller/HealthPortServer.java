@@ -0,0 +1,100 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.service.HealthMonitor;
+import com.evomind.api.service.WarmupService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * 独立端口上的探针服务：不经过 Tomcat、过滤器链和业务线程池，单个线程直接写出缓存的检查结果，
+ * 业务请求堆积时探针照样秒回。端口由 evomind.health.port 指定，-1 关闭。
+ * <ul>
+ *   <li>/live：进程存活即 200</li>
+ *   <li>/ready：预热完成且整体非 DOWN/UNKNOWN 时 200，否则 503</li>
+ *   <li>/health：各组件状态与最近一次检查耗时，整体 DOWN 时 503</li>
+ * </ul>
+ */
+@Component
+public class HealthPortServer {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthPortServer.class);
+    private static final byte[] LIVE = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] READY = "{\"ready\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_READY = "{\"ready\":false}".getBytes(StandardCharsets.UTF_8);
+
+    private final HealthMonitor monitor;
+    private final WarmupService warmup;
+    private final int port;
+    private HttpServer server;
+
+    public HealthPortServer(HealthMonitor monitor, WarmupService warmup, @Value("${evomind.health.port:-1}") int port) {
+        this.monitor = monitor;
+        this.warmup = warmup;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (port < 0) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 16);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "health-port");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.createContext("/live", exchange -> write(exchange, 200, LIVE));
+        server.createContext("/ready", exchange -> {
+            boolean ready = warmup.status().ready() && isServing(monitor.snapshot().status());
+            write(exchange, ready ? 200 : 503, ready ? READY : NOT_READY);
+        });
+        server.createContext("/health", exchange -> {
+            HealthMonitor.Snapshot snapshot = monitor.snapshot();
+            write(exchange, snapshot.status() == HealthMonitor.State.DOWN ? 503 : 200, snapshot.json());
+        });
+        server.start();
+        log.info("探针端口 {}", port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * 实际监听端口，未开启时为 -1。
+     */
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private static boolean isServing(HealthMonitor.State state) {
+        return state == HealthMonitor.State.UP || state == HealthMonitor.State.DEGRADED;
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
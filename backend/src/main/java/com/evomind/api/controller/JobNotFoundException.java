@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class JobNotFoundException extends RuntimeException {
+    JobNotFoundException() {
+        super("任务不存在");
+    }
+}
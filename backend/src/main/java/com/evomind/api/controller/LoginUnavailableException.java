@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class LoginUnavailableException extends RuntimeException {
+    LoginUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.AiCallLogWriter;
+import com.evomind.api.service.OcrJobService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/system")
+public class MetricsController {
+
+    private final AiGateway aiGateway;
+    private final AiCallLogWriter aiCallLogWriter;
+    private final OcrJobService ocrJobs;
+
+    public MetricsController(AiGateway aiGateway, AiCallLogWriter aiCallLogWriter, OcrJobService ocrJobs) {
+        this.aiGateway = aiGateway;
+        this.aiCallLogWriter = aiCallLogWriter;
+        this.ocrJobs = ocrJobs;
+    }
+
+    @GetMapping("/metrics")
+    public ApiResponse<Map<String, Object>> metrics() {
+        return ApiResponse.ok(Map.of(
+                "aiGateway", aiGateway.snapshot(),
+                "aiCallLog", aiCallLogWriter.snapshot(),
+                "ocr", ocrJobs.snapshot()
+        ));
+    }
+}
@@ -1,10 +1,17 @@
 package com.evomind.api.controller;
 
 import com.evomind.api.model.*;
+import com.evomind.api.service.AccountPurgeService;
+import com.evomind.api.service.PrivacyExportService;
+import com.evomind.api.service.RefundService;
 import com.evomind.api.store.InMemoryStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -13,9 +20,16 @@ import java.util.Map;
 public class OrderController {
 
     private final InMemoryStore store;
+    private final PrivacyExportService exportService;
+    private final AccountPurgeService purgeService;
+    private final RefundService refundService;
 
-    public OrderController(InMemoryStore store) {
+    public OrderController(InMemoryStore store, PrivacyExportService exportService, AccountPurgeService purgeService,
+                           RefundService refundService) {
         this.store = store;
+        this.exportService = exportService;
+        this.purgeService = purgeService;
+        this.refundService = refundService;
     }
 
     @PostMapping("/orders/create")
@@ -24,22 +38,75 @@ public class OrderController {
     }
 
     @GetMapping("/orders/history")
-    public ApiResponse<List<OrderItem>> orderHistory(@RequestParam String userId) {
-        return ApiResponse.ok(store.orders(userId));
+    public ResponseEntity<ApiResponse<List<OrderItem>>> orderHistory(@RequestParam String userId, HttpServletRequest request) {
+        String etag = store.etag(InMemoryStore.UserCollection.ORDERS, userId);
+        return ConditionalGet.respond(request, etag, () -> store.orders(userId));
     }
 
     @PostMapping("/refund/apply")
-    public ApiResponse<Map<String, String>> refundApply(@Valid @RequestBody RefundRequest req) {
-        return ApiResponse.ok(Map.of("ticketNo", "RF" + System.currentTimeMillis(), "status", "待审核"));
+    public ApiResponse<RefundTicket> refundApply(@Valid @RequestBody RefundRequest req) {
+        return ApiResponse.ok(refundService.apply(req));
+    }
+
+    @GetMapping("/refund/tickets")
+    public ApiResponse<List<RefundTicket>> refundTickets(@RequestParam String userId,
+                                                         @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.ok(refundService.userTickets(userId, limit));
+    }
+
+    @GetMapping("/refund/queue")
+    public ApiResponse<List<RefundTicket>> refundQueue(@RequestParam(defaultValue = "SUBMITTED") RefundTicket.Status status,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "50") int limit,
+                                                       @RequestAttribute(value = AuthFilter.USER_ID_ATTRIBUTE, required = false) String operator) {
+        checkReviewer(operator);
+        return ApiResponse.ok(refundService.queue(status, after, limit));
+    }
+
+    @PostMapping("/refund/review")
+    public ApiResponse<RefundTicket> refundReview(@Valid @RequestBody RefundReviewRequest req,
+                                                  @RequestAttribute(value = AuthFilter.USER_ID_ATTRIBUTE, required = false) String operator) {
+        checkReviewer(operator);
+        return ApiResponse.ok(refundService.review(req, operator));
     }
 
     @PostMapping("/privacy/export")
     public ApiResponse<Map<String, String>> export(@Valid @RequestBody PrivacyRequest req) {
-        return ApiResponse.ok(Map.of("status", "已受理", "message", "导出文件将在24小时内生成"));
+        PrivacyExportService.Job job = exportService.submit(req.userId());
+        return ApiResponse.ok(Map.of("status", "已受理", "jobId", job.jobId(), "message", "导出文件生成后可下载，保留24小时"));
+    }
+
+    @GetMapping("/privacy/export/{jobId}")
+    public ApiResponse<PrivacyExportService.Job> exportStatus(@PathVariable String jobId, @RequestParam String userId) {
+        return ApiResponse.ok(exportService.job(jobId, userId).orElseThrow(JobNotFoundException::new));
+    }
+
+    @GetMapping("/privacy/export/{jobId}/download")
+    public void exportDownload(@PathVariable String jobId, @RequestParam String userId,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PrivacyExportService.Job job = exportService.job(jobId, userId).orElse(null);
+        if (job == null || job.status() != PrivacyExportService.Status.DONE) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        RangeFileWriter.serve(exportService.file(job), "application/zip", "evomind-export-" + jobId + ".zip", request, response);
     }
 
     @PostMapping("/privacy/delete-account")
     public ApiResponse<Map<String, String>> deleteAccount(@Valid @RequestBody PrivacyRequest req) {
-        return ApiResponse.ok(Map.of("status", "已受理", "message", "账号注销申请已提交，T+7完成删除"));
+        AccountPurgeService.Progress progress = purgeService.requestDeletion(req.userId());
+        return ApiResponse.ok(Map.of("status", "已受理", "stage", progress.stage().name(),
+                "message", "账号注销申请已提交，T+7完成删除"));
+    }
+
+    @GetMapping("/privacy/delete-account/status")
+    public ApiResponse<AccountPurgeService.Progress> deleteAccountStatus(@RequestParam String userId) {
+        return ApiResponse.ok(purgeService.progress(userId).orElse(null));
+    }
+
+    private void checkReviewer(String operator) {
+        if (!refundService.isReviewer(operator)) {
+            throw new ReviewerRequiredException();
+        }
     }
 }
@@ -3,6 +3,10 @@ package com.evomind.api.controller;
 import com.evomind.api.integration.PaymentSdkClient;
 import com.evomind.api.model.ApiResponse;
 import com.evomind.api.model.PayCallbackRequest;
+import com.evomind.api.model.RefundCallbackRequest;
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.service.ClusterService;
+import com.evomind.api.service.RefundService;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,9 +17,13 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentSdkClient paymentSdkClient;
+    private final RefundService refundService;
+    private final ClusterService cluster;
 
-    public PaymentController(PaymentSdkClient paymentSdkClient) {
+    public PaymentController(PaymentSdkClient paymentSdkClient, RefundService refundService, ClusterService cluster) {
         this.paymentSdkClient = paymentSdkClient;
+        this.refundService = refundService;
+        this.cluster = cluster;
     }
 
     @PostMapping("/wechat/callback")
@@ -29,4 +37,15 @@ public class PaymentController {
         boolean ok = paymentSdkClient.verifyAlipay(req);
         return ApiResponse.ok(Map.of("orderNo", req.orderNo(), "tradeNo", req.tradeNo(), "status", ok ? req.status() : "FAILED", "message", ok ? "支付宝回调验签通过（演示）" : "支付宝回调验签失败"));
     }
+
+    @PostMapping("/refund/callback")
+    public ApiResponse<RefundTicket> refundCallback(@Valid @RequestBody RefundCallbackRequest req) {
+        if (!paymentSdkClient.verifyRefund(req)) {
+            return ApiResponse.error(40001, "退款回调验签失败");
+        }
+        RefundTicket ticket = refundService.complete(req);
+        // 回调不带用户，分片过滤器无从标脏，订单状态变更在这里补上副本同步
+        cluster.markDirty(ticket.userId());
+        return ApiResponse.ok(ticket);
+    }
 }
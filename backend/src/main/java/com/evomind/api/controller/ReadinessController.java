@@ -1,20 +1,30 @@
 package com.evomind.api.controller;
 
 import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.WarmupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/system")
 public class ReadinessController {
 
-    @GetMapping("/readiness")
-    public ApiResponse<Map<String, Object>> readiness() {
-        return ApiResponse.ok(Map.of(
+    private final WarmupService warmup;
+    private final CachedJson readiness;
+
+    public ReadinessController(WarmupService warmup, ObjectMapper objectMapper) {
+        this.warmup = warmup;
+        this.readiness = CachedJson.of(objectMapper, "readiness", Map.of(
+                "ready", true,
                 "implemented", List.of(
                         "认证演示接口", "信息源导入演示", "认知卡片/脑图演示", "讨论接口演示", "订单与退款工单演示", "隐私导出/注销受理演示"
                 ),
@@ -23,4 +33,17 @@ public class ReadinessController {
                 )
         ));
     }
+
+    /**
+     * 预热与依赖检查完成前返回 503 及当前进度，供负载均衡与 Kubernetes readinessProbe 判断是否导流。
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<?> readiness(HttpServletRequest request) {
+        WarmupService.Status status = warmup.status();
+        if (!status.ready()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse<>(50302, "实例预热中", UUID.randomUUID().toString(), status));
+        }
+        return readiness.toResponse(request);
+    }
 }
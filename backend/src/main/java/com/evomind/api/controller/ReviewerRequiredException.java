@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class ReviewerRequiredException extends RuntimeException {
+    ReviewerRequiredException() {
+        super("需要退款审核权限");
+    }
+}
@@ -0,0 +1,219 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.service.ClusterService;
+import com.evomind.api.store.RefundTicketStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 集群模式下把不归本实例的用户请求转发给其主节点，主节点不可达时依次尝试副本。
+ * 用户取自令牌（在 {@link AuthFilter} 之后执行），未登录时取 query 参数 userId；
+ * 支付渠道的退款回调不带用户，按退款单号里附带的分片键路由到创建该单的用户所在实例；
+ * 被转发的请求带 {@link #FORWARDED_HEADER}，接收方一律本地处理，避免成员视图不一致时来回转发；
+ * 该头只有同时带有效的 {@link ClusterService#KEY_HEADER} 才生效，客户端自带的会被忽略，转发时也不透传。
+ * 带 {@link ClusterService#LOCAL_HEADER} 本地标记的回环请求（启动预热）直接在本实例处理，也不标脏复制。
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ShardForwardFilter extends OncePerRequestFilter {
+
+    public static final String FORWARDED_HEADER = "X-Evomind-Forwarded";
+    public static final String REFUND_CALLBACK_PATH = "/api/v1/pay/refund/callback";
+
+    private static final Logger log = LoggerFactory.getLogger(ShardForwardFilter.class);
+    // 逐跳头以及由 HttpClient、容器自行生成的头，不透传
+    private static final Set<String> HOP_BY_HOP = Set.of(
+            "host", "connection", "content-length", "transfer-encoding", "expect", "upgrade", "keep-alive", "te", "trailer",
+            "date");
+    // 由本实例重新签发，不沿用客户端传来的值
+    private static final Set<String> CLUSTER_HEADERS = Set.of(FORWARDED_HEADER.toLowerCase(),
+            ClusterService.KEY_HEADER.toLowerCase(), ClusterService.LOCAL_HEADER.toLowerCase());
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+    private final byte[] unavailable;
+
+    public ShardForwardFilter(ClusterService cluster, ObjectMapper objectMapper) throws JsonProcessingException {
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+        this.unavailable = objectMapper.writeValueAsBytes(ApiResponse.error(50301, "用户所在节点暂不可用，请稍后重试"));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !cluster.enabled() || !uri.startsWith("/api/v1/") || uri.startsWith("/api/v1/cluster/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (cluster.isLocal(request.getHeader(ClusterService.LOCAL_HEADER))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Object principal = request.getAttribute(AuthFilter.USER_ID_ATTRIBUTE);
+        String userId = principal instanceof String id ? id : request.getParameter("userId");
+        boolean forwarded = request.getHeader(FORWARDED_HEADER) != null
+                && cluster.authorized(request.getHeader(ClusterService.KEY_HEADER));
+        byte[] body = null;
+        List<String> route;
+        if (forwarded) {
+            route = List.of();
+        } else if (userId != null) {
+            route = cluster.route(userId);
+        } else if (REFUND_CALLBACK_PATH.equals(request.getRequestURI())) {
+            body = request.getInputStream().readAllBytes();
+            request = new CachedBodyRequest(request, body);
+            route = cluster.routeByShardKey(refundShardKey(body));
+        } else {
+            route = List.of();
+        }
+        if (route.isEmpty() || route.get(0).equals(cluster.self())) {
+            serveLocally(request, response, chain, userId);
+            return;
+        }
+        if (body == null) {
+            body = request.getInputStream().readAllBytes();
+        }
+        for (String node : route) {
+            if (node.equals(cluster.self())) {
+                serveLocally(new CachedBodyRequest(request, body), response, chain, userId);
+                return;
+            }
+            try {
+                forward(node, request, body, response);
+                return;
+            } catch (IOException e) {
+                log.warn("转发到 {} 失败，尝试下一个副本: {}", node, e.getMessage());
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(unavailable.length);
+        response.getOutputStream().write(unavailable);
+    }
+
+    private String refundShardKey(byte[] body) {
+        try {
+            String ticketNo = objectMapper.readTree(body).path("ticketNo").asText(null);
+            return ticketNo == null ? null : RefundTicketStore.shardKey(ticketNo);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void serveLocally(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String userId)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        if (userId != null && !READ_METHODS.contains(request.getMethod()) && response.getStatus() < 400) {
+            cluster.markDirty(userId);
+        }
+    }
+
+    private void forward(String node, HttpServletRequest request, byte[] body, HttpServletResponse response)
+            throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(node + request.getRequestURI()
+                        + (query == null ? "" : "?" + query)))
+                .timeout(cluster.timeout())
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_BY_HOP.contains(name.toLowerCase()) && !CLUSTER_HEADERS.contains(name.toLowerCase())) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        HttpResponse<byte[]> upstream = cluster.send(cluster.sign(builder).header(FORWARDED_HEADER, cluster.self()).build());
+        response.setStatus(upstream.statusCode());
+        for (Map.Entry<String, List<String>> h : upstream.headers().map().entrySet()) {
+            if (!HOP_BY_HOP.contains(h.getKey().toLowerCase()) && !h.getKey().startsWith(":")) {
+                for (String value : h.getValue()) {
+                    response.addHeader(h.getKey(), value);
+                }
+            }
+        }
+        response.setContentLength(upstream.body().length);
+        response.getOutputStream().write(upstream.body());
+    }
+
+    /**
+     * 请求体已读出用于转发时，回退到本地处理需要重新提供请求体。
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.evomind.api.controller;
 
-import com.evomind.api.integration.OcrSdkClient;
 import com.evomind.api.model.*;
+import com.evomind.api.service.OcrJobService;
 import com.evomind.api.store.InMemoryStore;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,16 +16,33 @@ import java.util.List;
 public class SourceController {
 
     private final InMemoryStore store;
-    private final OcrSdkClient ocrSdkClient;
+    private final OcrJobService ocrJobs;
+    private final long recognizeWaitMillis;
 
-    public SourceController(InMemoryStore store, OcrSdkClient ocrSdkClient) {
+    public SourceController(InMemoryStore store, OcrJobService ocrJobs,
+                            @Value("${evomind.ocr.sync-wait-ms:10000}") long recognizeWaitMillis) {
         this.store = store;
-        this.ocrSdkClient = ocrSdkClient;
+        this.ocrJobs = ocrJobs;
+        this.recognizeWaitMillis = recognizeWaitMillis;
     }
 
+    /**
+     * 旧版同步识别：内部提交异步任务并等待结果，同样享受缓存与去重。新客户端改用 /ocr/jobs。
+     */
     @PostMapping("/ocr/recognize")
-    public ApiResponse<OcrRecognizeResponse> recognize(@Valid @RequestBody OcrRecognizeRequest req) {
-        return ApiResponse.ok(ocrSdkClient.recognize(req.platform(), req.imageBase64()));
+    public ApiResponse<OcrRecognizeResponse> recognize(@Valid @RequestBody OcrRecognizeRequest req, HttpServletRequest request) {
+        String userId = request.getAttribute(AuthFilter.USER_ID_ATTRIBUTE) instanceof String id ? id : "";
+        return ApiResponse.ok(ocrJobs.recognize(userId, req.platform(), req.imageBase64(), recognizeWaitMillis));
+    }
+
+    @PostMapping("/ocr/jobs")
+    public ApiResponse<OcrJobService.Job> submitOcr(@Valid @RequestBody OcrJobRequest req) {
+        return ApiResponse.ok(ocrJobs.submit(req.userId(), req.platform(), req.imageBase64()));
+    }
+
+    @GetMapping("/ocr/jobs/{jobId}")
+    public ApiResponse<OcrJobService.Job> ocrJob(@PathVariable String jobId, @RequestParam String userId) {
+        return ApiResponse.ok(ocrJobs.job(jobId, userId).orElseThrow(JobNotFoundException::new));
     }
 
     @PostMapping("/import")
@@ -36,8 +56,9 @@ public class SourceController {
     }
 
     @GetMapping
-    public ApiResponse<List<SourceItem>> list(@RequestParam String userId) {
-        return ApiResponse.ok(store.getSources(userId));
+    public ResponseEntity<ApiResponse<List<SourceItem>>> list(@RequestParam String userId, HttpServletRequest request) {
+        String etag = store.etag(InMemoryStore.UserCollection.SOURCES, userId);
+        return ConditionalGet.respond(request, etag, () -> store.getSources(userId));
     }
 
     @DeleteMapping("/{id}")
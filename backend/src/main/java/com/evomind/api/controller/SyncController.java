@@ -0,0 +1,25 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.model.SyncResponse;
+import com.evomind.api.store.InMemoryStore;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 客户端本地库的增量同步：返回 since 之后信息源、订单、挑战任务的变更，日志无法补齐时返回全量数据。
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class SyncController {
+
+    private final InMemoryStore store;
+
+    public SyncController(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @GetMapping("/sync")
+    public ApiResponse<SyncResponse> sync(@RequestParam String userId, @RequestParam(defaultValue = "0") long since) {
+        return ApiResponse.ok(store.changesSince(userId, since));
+    }
+}
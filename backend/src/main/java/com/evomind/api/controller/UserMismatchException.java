@@ -0,0 +1,7 @@
+package com.evomind.api.controller;
+
+class UserMismatchException extends RuntimeException {
+    UserMismatchException(String userId) {
+        super("令牌与请求用户不一致：" + userId);
+    }
+}
@@ -0,0 +1,94 @@
+package com.evomind.api.controller;
+
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.UserDeletedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 拦截已注销用户的请求：query 参数中的 userId 在进入控制器前检查，
+ * 请求体中的 userId（记录类型的 userId 组件）在反序列化后检查，均为一次哈希查找。
+ * 请求已通过令牌认证时，同时要求 userId 与令牌中的用户一致。
+ */
+@ControllerAdvice
+public class UserTombstoneGuard extends RequestBodyAdviceAdapter implements HandlerInterceptor {
+
+    private static final Map<Class<?>, Optional<Method>> USER_ID_ACCESSORS = new ConcurrentHashMap<>();
+
+    private final InMemoryStore store;
+
+    public UserTombstoneGuard(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        check(request, request.getParameter("userId"));
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return userIdAccessor(methodParameter.getParameterType()).isPresent();
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        Optional<Method> accessor = userIdAccessor(body.getClass());
+        if (accessor.isPresent()) {
+            try {
+                Object userId = accessor.get().invoke(body);
+                if (userId instanceof String id
+                        && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+                    check(attrs.getRequest(), id);
+                }
+            } catch (ReflectiveOperationException ignored) {
+                // 访问器不可用时不做拦截，写入路径仍由存储层兜底
+            }
+        }
+        return body;
+    }
+
+    private void check(HttpServletRequest request, String userId) {
+        if (userId == null) {
+            return;
+        }
+        Object principal = request.getAttribute(AuthFilter.USER_ID_ATTRIBUTE);
+        if (principal != null && !principal.equals(userId)) {
+            throw new UserMismatchException(userId);
+        }
+        if (store.isDeleted(userId)) {
+            throw new UserDeletedException(userId);
+        }
+    }
+
+    private static Optional<Method> userIdAccessor(Class<?> type) {
+        return USER_ID_ACCESSORS.computeIfAbsent(type, t -> {
+            if (!t.isRecord()) {
+                return Optional.empty();
+            }
+            for (RecordComponent c : t.getRecordComponents()) {
+                if (c.getName().equals("userId") && c.getType() == String.class) {
+                    return Optional.of(c.getAccessor());
+                }
+            }
+            return Optional.empty();
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.evomind.api.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final UserTombstoneGuard tombstoneGuard;
+
+    public WebConfig(UserTombstoneGuard tombstoneGuard) {
+        this.tombstoneGuard = tombstoneGuard;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(tombstoneGuard)
+                .addPathPatterns("/api/v1/**")
+                .excludePathPatterns("/api/v1/privacy/delete-account/status", "/api/v1/cluster/**");
+    }
+}
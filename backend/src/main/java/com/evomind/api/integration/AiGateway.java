@@ -0,0 +1,207 @@
+package com.evomind.api.integration;
+
+import com.evomind.api.model.*;
+import com.evomind.api.service.AiCallLogWriter;
+import com.evomind.api.store.InMemoryStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * AI 调用统一入口：按场景隔离的线程池舱壁 + 熔断器 + 全局重试预算，失败时返回兜底模板。
+ */
+@Component
+public class AiGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(AiGateway.class);
+    private static final String FALLBACK_TAG = "AI服务繁忙，已返回兜底内容，请稍后重试";
+
+    public enum Scene {
+        FEED(16, 3000), MINDMAP(8, 5000), DISCUSSION(16, 8000), DAILY_QUESTION(4, 10000);
+
+        final int defaultConcurrency;
+        final long defaultTimeoutMillis;
+
+        Scene(int defaultConcurrency, long defaultTimeoutMillis) {
+            this.defaultConcurrency = defaultConcurrency;
+            this.defaultTimeoutMillis = defaultTimeoutMillis;
+        }
+    }
+
+    private static final class Compartment {
+        final ThreadPoolExecutor pool;
+        final long timeoutMillis;
+        final CircuitBreaker breaker;
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong shortCircuited = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+
+        Compartment(Scene scene, int concurrency, long timeoutMillis, CircuitBreaker breaker) {
+            // SynchronousQueue：不排队，舱壁满时立即拒绝
+            this.pool = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                Thread t = new Thread(r, "ai-" + scene.name().toLowerCase());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+            this.pool.allowCoreThreadTimeOut(true);
+            this.timeoutMillis = timeoutMillis;
+            this.breaker = breaker;
+        }
+    }
+
+    private final AiSdkClient client;
+    private final InMemoryStore templates;
+    private final RetryBudget retryBudget;
+    private final Consumer<AiCallRecord> callLog;
+    private final LongSupplier clock;
+    private final Map<Scene, Compartment> compartments = new EnumMap<>(Scene.class);
+
+    @Autowired
+    public AiGateway(AiSdkClient client, InMemoryStore templates, AiCallLogWriter callLogWriter,
+                     @Value("${evomind.ai.timeout-scale:1.0}") double timeoutScale,
+                     @Value("${evomind.ai.concurrency-scale:1.0}") double concurrencyScale) {
+        this(client, templates, callLogWriter::publish, timeoutScale, concurrencyScale, System::currentTimeMillis);
+    }
+
+    public AiGateway(AiSdkClient client, InMemoryStore templates, Consumer<AiCallRecord> callLog,
+                     double timeoutScale, double concurrencyScale, LongSupplier clock) {
+        this.client = client;
+        this.templates = templates;
+        this.callLog = callLog;
+        this.clock = clock;
+        this.retryBudget = new RetryBudget(0.1, 1, 50, clock);
+        for (Scene scene : Scene.values()) {
+            compartments.put(scene, new Compartment(scene,
+                    Math.max(1, (int) Math.round(scene.defaultConcurrency * concurrencyScale)),
+                    Math.max(1, Math.round(scene.defaultTimeoutMillis * timeoutScale)),
+                    new CircuitBreaker(20, 10, 0.5, 10_000, clock)));
+        }
+    }
+
+    public List<CardItem> buildCards(String userId) {
+        return execute(Scene.FEED, userId, () -> client.buildCards(userId), () -> templates.feed(userId));
+    }
+
+    public MindmapResponse buildMindmap(String cardId) {
+        return execute(Scene.MINDMAP, null, () -> client.buildMindmap(cardId), () -> templates.mindmap(cardId));
+    }
+
+    public DailyQuestionResponse dailyQuestion() {
+        return execute(Scene.DAILY_QUESTION, null, client::dailyQuestion, templates::dailyQuestion);
+    }
+
+    /**
+     * 供预生成题库使用：失败、熔断或舱壁已满时返回空而不是兜底模板，调用方据此跳过，避免模板混进题库。
+     */
+    public Optional<DailyQuestionResponse> generateDailyQuestion() {
+        return Optional.ofNullable(execute(Scene.DAILY_QUESTION, null, client::dailyQuestion, () -> null));
+    }
+
+    public DiscussionReplyResponse followUp(String discussionId, DiscussionContext context, String answer) {
+        return execute(Scene.DISCUSSION, null, () -> client.followUp(discussionId, context, answer),
+                () -> new DiscussionReplyResponse(discussionId, "先把你的想法记下来，稍后我们再继续追问。", FALLBACK_TAG));
+    }
+
+    public DiscussionFinalizeResponse finalizeDiscussion(String discussionId, DiscussionContext context, String finalAnswer) {
+        return execute(Scene.DISCUSSION, null, () -> client.finalizeDiscussion(discussionId, context, finalAnswer),
+                () -> new DiscussionFinalizeResponse(discussionId, "你的最终回答已保存：" + finalAnswer, "稍后可再次生成总结", FALLBACK_TAG));
+    }
+
+    public CircuitBreaker.State breakerState(Scene scene) {
+        return compartments.get(scene).breaker.state();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        compartments.forEach((scene, c) -> out.put(scene.name(), Map.of(
+                "breaker", c.breaker.state().name(),
+                "active", c.pool.getActiveCount(),
+                "calls", c.calls.get(),
+                "failures", c.failures.get(),
+                "rejected", c.rejected.get(),
+                "shortCircuited", c.shortCircuited.get(),
+                "retries", c.retries.get())));
+        out.put("retryBudget", retryBudget.available());
+        return out;
+    }
+
+    <T> T execute(Scene scene, String userId, Supplier<T> call, Supplier<T> fallback) {
+        Compartment c = compartments.get(scene);
+        retryBudget.onRequest();
+        boolean retried = false;
+        while (true) {
+            CircuitBreaker.Permit permit = c.breaker.tryAcquire();
+            if (permit == null) {
+                c.shortCircuited.incrementAndGet();
+                return fallback.get();
+            }
+            Future<T> future;
+            try {
+                future = c.pool.submit(call::get);
+            } catch (RejectedExecutionException e) {
+                c.breaker.release(permit);
+                c.rejected.incrementAndGet();
+                return fallback.get();
+            }
+            c.calls.incrementAndGet();
+            long start = clock.getAsLong();
+            try {
+                T result = future.get(c.timeoutMillis, TimeUnit.MILLISECONDS);
+                c.breaker.onSuccess(permit);
+                record(scene, userId, start, true);
+                return result;
+            } catch (TimeoutException e) {
+                // 超时不重试：继续等待只会占满舱壁
+                future.cancel(true);
+                c.failures.incrementAndGet();
+                c.breaker.onFailure(permit);
+                record(scene, userId, start, false);
+                return fallback.get();
+            } catch (InterruptedException e) {
+                // 调用方被中断不说明模型有问题，不计结果，但要归还半开状态下的探测名额
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                c.breaker.release(permit);
+                return fallback.get();
+            } catch (ExecutionException e) {
+                c.failures.incrementAndGet();
+                c.breaker.onFailure(permit);
+                record(scene, userId, start, false);
+                if (retried || !retryBudget.tryRetry()) {
+                    log.warn("ai call failed scene={} cause={}", scene, e.getCause().toString());
+                    return fallback.get();
+                }
+                retried = true;
+                c.retries.incrementAndGet();
+            }
+        }
+    }
+
+    // token 与费用待接入真实 SDK 后从响应 usage 中读取
+    private void record(Scene scene, String userId, long start, boolean success) {
+        long now = clock.getAsLong();
+        callLog.accept(new AiCallRecord(userId, scene.name(), client.modelName(scene.name()), 0, 0,
+                (int) (now - start), 0, success, System.currentTimeMillis()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compartments.values().forEach(c -> c.pool.shutdownNow());
+    }
+}
@@ -8,6 +8,11 @@ import java.util.UUID;
 
 @Component
 public class AiSdkClient {
+    public String modelName(String sceneCode) {
+        // 演示版：上线时按场景路由轻量/旗舰模型
+        return "deepseek-chat";
+    }
+
     public List<CardItem> buildCards(String userId) {
         return List.of(
                 new CardItem(UUID.randomUUID().toString(), "科技博主A", "知乎", "从信息焦虑到行动闭环", "核心：输入筛选+日清行动。", true),
@@ -25,4 +30,13 @@ public class AiSdkClient {
     public DailyQuestionResponse dailyQuestion() {
         return new DailyQuestionResponse(UUID.randomUUID().toString(), "你今天愿意放弃哪一件低价值任务，换来30分钟深度学习？", "AI生成，仅供参考");
     }
+
+    public DiscussionReplyResponse followUp(String discussionId, DiscussionContext context, String answer) {
+        // 演示版：上线时将 context 拼装为提示词（问题 + 滚动摘要 + 最近轮次）调用模型
+        return new DiscussionReplyResponse(discussionId, "你提到了" + answer + "，请给出一个明天就能执行的具体动作。", "AI生成，仅供参考");
+    }
+
+    public DiscussionFinalizeResponse finalizeDiscussion(String discussionId, DiscussionContext context, String finalAnswer) {
+        return new DiscussionFinalizeResponse(discussionId, "你已形成可执行策略：每天固定30分钟复盘+输出。", "如何持续8周不间断？", "AI生成，仅供参考");
+    }
 }
@@ -0,0 +1,151 @@
+package com.evomind.api.integration;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于最近 N 次调用失败率的熔断器。OPEN 持续 openMillis 后进入 HALF_OPEN，
+ * 同一时刻只放行一个探测请求，探测成功即闭合，失败则重新打开。
+ * 结果按放行时拿到的凭证回报，只计入仍处于同一代次的调用，晚到的旧结果不会改写新状态。
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private int cursor;
+    private int recorded;
+    private int failures;
+    // 状态与代次放在同一个不可变对象里整体替换，每次状态切换代次加一
+    private volatile Permit current = new Permit(State.CLOSED, 0);
+    private volatile long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * 一次放行的凭证：记下放行时的状态与代次，回报结果时据此判断是否仍属于当前这一轮。
+     */
+    public record Permit(State state, long generation) {}
+
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openMillis, LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * 是否放行本次调用，不放行时返回 null；HALF_OPEN 下放行的调用即为探测请求，必须随后回报结果。
+     */
+    public Permit tryAcquire() {
+        Permit p = current;
+        if (p.state() == State.CLOSED) {
+            return p;
+        }
+        if (p.state() == State.OPEN && clock.getAsLong() - openedAt < openMillis) {
+            return null;
+        }
+        synchronized (this) {
+            if (current.state() == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+                transition(State.HALF_OPEN);
+                probeInFlight = false;
+            }
+            p = current;
+            if (p.state() == State.HALF_OPEN) {
+                if (probeInFlight) {
+                    return null;
+                }
+                probeInFlight = true;
+                return p;
+            }
+            return p.state() == State.CLOSED ? p : null;
+        }
+    }
+
+    /**
+     * 回报成功。放行之后熔断器已切换过状态（如期间已熔断）的结果属于上一轮，直接忽略。
+     */
+    public synchronized void onSuccess(Permit permit) {
+        if (stale(permit)) {
+            return;
+        }
+        if (current.state() == State.HALF_OPEN) {
+            reset();
+            transition(State.CLOSED);
+            probeInFlight = false;
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (stale(permit)) {
+            return;
+        }
+        if (current.state() == State.HALF_OPEN) {
+            trip();
+            probeInFlight = false;
+            return;
+        }
+        record(true);
+        if (recorded >= minCalls && failures >= failureRateThreshold * recorded) {
+            trip();
+        }
+    }
+
+    /**
+     * 放行后调用未实际发出（如被舱壁拒绝）或没等到结果（调用方被中断）时归还探测名额，不计入结果。
+     */
+    public synchronized void release(Permit permit) {
+        if (!stale(permit) && current.state() == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public State state() {
+        return current.state();
+    }
+
+    private boolean stale(Permit permit) {
+        return permit.generation() != current.generation();
+    }
+
+    private void transition(State next) {
+        current = new Permit(next, current.generation() + 1);
+    }
+
+    private void record(boolean failed) {
+        if (recorded == windowSize) {
+            if (window[cursor]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[cursor] = failed;
+        if (failed) {
+            failures++;
+        }
+        cursor = (cursor + 1) % windowSize;
+    }
+
+    private void trip() {
+        openedAt = clock.getAsLong();
+        transition(State.OPEN);
+        reset();
+    }
+
+    private void reset() {
+        cursor = 0;
+        recorded = 0;
+        failures = 0;
+        Arrays.fill(window, false);
+    }
+}
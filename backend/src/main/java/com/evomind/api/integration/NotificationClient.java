@@ -0,0 +1,23 @@
+package com.evomind.api.integration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NotificationClient {
+    private static final Logger log = LoggerFactory.getLogger(NotificationClient.class);
+
+    public void challengeReminder(String userId, String taskId, String title) {
+        // 演示版：后续接入厂商推送/站内信
+        log.info("challenge reminder user={} task={} title={}", userId, taskId, title);
+    }
+
+    public void challengeOverdue(String userId, String taskId, String title) {
+        log.info("challenge overdue user={} task={} title={}", userId, taskId, title);
+    }
+
+    public void ocrFinished(String userId, String jobId, boolean success) {
+        log.info("ocr finished user={} job={} success={}", userId, jobId, success);
+    }
+}
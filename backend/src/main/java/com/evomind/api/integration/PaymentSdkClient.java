@@ -1,6 +1,7 @@
 package com.evomind.api.integration;
 
 import com.evomind.api.model.PayCallbackRequest;
+import com.evomind.api.model.RefundCallbackRequest;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -12,4 +13,8 @@ public class PaymentSdkClient {
     public boolean verifyAlipay(PayCallbackRequest req) {
         return req.tradeNo() != null && !req.tradeNo().isBlank();
     }
+
+    public boolean verifyRefund(RefundCallbackRequest req) {
+        return req.refundNo() != null && !req.refundNo().isBlank();
+    }
 }
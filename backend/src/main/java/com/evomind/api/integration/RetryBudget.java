@@ -0,0 +1,63 @@
+package com.evomind.api.integration;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 全局重试预算：每次首发请求存入 ratio 个令牌，每次重试消耗 1 个，
+ * 另按 minPerSecond 匀速补充，保证低流量时也有少量重试额度。
+ * 令牌以千分之一为单位存放在一个 AtomicLong 中。
+ */
+public class RetryBudget {
+
+    private static final long UNIT = 1000;
+
+    private final long depositPerRequest;
+    private final long minPerSecond;
+    private final long maxBalance;
+    private final LongSupplier clock;
+    private final AtomicLong balance = new AtomicLong();
+    private final AtomicLong lastRefill;
+
+    public RetryBudget(double ratio, int minPerSecond, int maxTokens, LongSupplier clock) {
+        this.depositPerRequest = Math.round(ratio * UNIT);
+        this.minPerSecond = minPerSecond * UNIT;
+        this.maxBalance = maxTokens * UNIT;
+        this.clock = clock;
+        this.lastRefill = new AtomicLong(clock.getAsLong());
+    }
+
+    public void onRequest() {
+        add(depositPerRequest);
+    }
+
+    public boolean tryRetry() {
+        refill();
+        while (true) {
+            long b = balance.get();
+            if (b < UNIT) {
+                return false;
+            }
+            if (balance.compareAndSet(b, b - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    public double available() {
+        return balance.get() / (double) UNIT;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        long last = lastRefill.get();
+        long elapsed = now - last;
+        if (elapsed >= 100 && lastRefill.compareAndSet(last, now)) {
+            add(minPerSecond * elapsed / 1000);
+        }
+    }
+
+    private void add(long amount) {
+        balance.accumulateAndGet(amount, (b, a) -> Math.min(maxBalance, b + a));
+    }
+}
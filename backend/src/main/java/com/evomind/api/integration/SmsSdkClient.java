@@ -0,0 +1,17 @@
+package com.evomind.api.integration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SmsSdkClient {
+    private static final Logger log = LoggerFactory.getLogger(SmsSdkClient.class);
+
+    public String sendCode(String phone, String code) {
+        // 演示版：后续替换阿里云/腾讯云短信 SDK
+        String masked = phone.length() > 7 ? phone.substring(0, 3) + "****" + phone.substring(phone.length() - 4) : phone;
+        log.info("sms code sent phone={}", masked);
+        return "BIZ" + System.currentTimeMillis();
+    }
+}
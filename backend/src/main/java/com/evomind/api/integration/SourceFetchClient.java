@@ -0,0 +1,11 @@
+package com.evomind.api.integration;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class SourceFetchClient {
+    public String fetchParagraph(String cardId, String nodeId) {
+        // 演示版：后续替换为按卡片来源链接临时抓取原文
+        return "这是与节点" + nodeId + "关联的原文段落（临时抓取示例，不落地存储）。";
+    }
+}
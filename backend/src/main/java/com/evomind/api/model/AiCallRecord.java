@@ -0,0 +1,4 @@
+package com.evomind.api.model;
+
+public record AiCallRecord(String userId, String sceneCode, String modelName, int tokenIn, int tokenOut,
+                           int latencyMs, double costAmount, boolean success, long createdAt) {}
@@ -4,4 +4,8 @@ public record ApiResponse<T>(int code, String message, String requestId, T data)
     public static <T> ApiResponse<T> ok(T data) {
         return new ApiResponse<>(0, "ok", java.util.UUID.randomUUID().toString(), data);
     }
+
+    public static <T> ApiResponse<T> error(int code, String message) {
+        return new ApiResponse<>(code, message, java.util.UUID.randomUUID().toString(), null);
+    }
 }
@@ -0,0 +1,17 @@
+package com.evomind.api.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+import java.util.Map;
+
+public record BatchRequest(@NotEmpty List<@Valid Item> requests) {
+    /**
+     * path 含查询串；headers 可带 If-None-Match 等条件请求头；timeoutMs 不填或超过上限时取服务端上限。
+     */
+    public record Item(String id, @NotBlank String method, @NotBlank String path, Map<String, String> headers,
+                       JsonNode body, Long timeoutMs) {}
+}
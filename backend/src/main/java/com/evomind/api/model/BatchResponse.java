@@ -0,0 +1,12 @@
+package com.evomind.api.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+public record BatchResponse(List<Item> responses) {
+    /**
+     * status 为子请求的 HTTP 状态码，超时为 504，线程池排满为 503；body 为子请求的原始响应体（304 时为 null）。
+     */
+    public record Item(String id, int status, String etag, long elapsedMs, JsonNode body) {}
+}
@@ -0,0 +1,7 @@
+package com.evomind.api.model;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record ClusterMembersRequest(@NotEmpty List<String> nodes) {}
@@ -0,0 +1,8 @@
+package com.evomind.api.model;
+
+import java.util.List;
+
+public record ConflictDetectResponse(int corpusSize, int candidateCount, List<Conflict> conflicts, String tag) {
+    public record Conflict(String newStatement, String corpusContent, String corpusSourceId, String corpusTitle,
+                           double similarityScore, String conflictType, String suggestion) {}
+}
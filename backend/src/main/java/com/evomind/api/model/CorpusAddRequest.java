@@ -0,0 +1,5 @@
+package com.evomind.api.model;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record CorpusAddRequest(@NotBlank String userId, @NotBlank String sourceId, String title, @NotBlank String text) {}
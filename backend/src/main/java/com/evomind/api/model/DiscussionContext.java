@@ -0,0 +1,9 @@
+package com.evomind.api.model;
+
+/**
+ * 拼装给模型的讨论上下文：原始问题、较早轮次的滚动摘要与最近若干轮原文。
+ */
+public record DiscussionContext(String question, String summary, Turn[] recentTurns, int estimatedTokens) {
+
+    public record Turn(String role, String text) {}
+}
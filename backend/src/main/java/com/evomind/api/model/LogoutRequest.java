@@ -2,4 +2,4 @@ package com.evomind.api.model;
 
 import jakarta.validation.constraints.NotBlank;
 
-public record LogoutRequest(@NotBlank String userId) {}
+public record LogoutRequest(@NotBlank String userId, String refreshToken) {}
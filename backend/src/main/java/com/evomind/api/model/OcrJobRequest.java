@@ -0,0 +1,9 @@
+package com.evomind.api.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record OcrJobRequest(@NotBlank String userId, @NotBlank @Size(max = OcrJobRequest.MAX_IMAGE_BASE64) String imageBase64, @NotBlank String platform) {
+    // base64 后约 12MB，对应约 9MB 的原图，远大于手机截图
+    public static final int MAX_IMAGE_BASE64 = 12 * 1024 * 1024;
+}
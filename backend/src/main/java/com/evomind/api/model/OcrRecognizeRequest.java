@@ -1,5 +1,6 @@
 package com.evomind.api.model;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
-public record OcrRecognizeRequest(@NotBlank String imageBase64, @NotBlank String platform) {}
+public record OcrRecognizeRequest(@NotBlank @Size(max = OcrJobRequest.MAX_IMAGE_BASE64) String imageBase64, @NotBlank String platform) {}
@@ -0,0 +1,11 @@
+package com.evomind.api.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * version 为审核人看到的退款单版本，必填且为正：不带版本的流转只留给支付回调。
+ */
+public record RefundReviewRequest(@NotBlank String ticketNo, @NotNull @Positive Long version,
+                                  @NotNull RefundTicket.Status status) {}
@@ -0,0 +1,28 @@
+package com.evomind.api.model;
+
+public record RefundTicket(String ticketNo, String userId, String orderNo, int amount, String reason, Status status,
+                           long version, String reviewer, String refundNo, long createdAt, long updatedAt) {
+
+    public enum Status {
+        SUBMITTED, REVIEWING, APPROVED, REJECTED, REFUNDED;
+
+        // 状态只向前流转，不存在回退边
+        public boolean canMoveTo(Status next) {
+            return switch (this) {
+                case SUBMITTED -> next == REVIEWING || next == REJECTED;
+                case REVIEWING -> next == APPROVED || next == REJECTED;
+                case APPROVED -> next == REFUNDED;
+                case REJECTED, REFUNDED -> false;
+            };
+        }
+
+        public boolean terminal() {
+            return this == REJECTED || this == REFUNDED;
+        }
+    }
+
+    public RefundTicket moveTo(Status next, String reviewer, String refundNo, long now) {
+        return new RefundTicket(ticketNo, userId, orderNo, amount, reason, next, version + 1,
+                reviewer == null ? this.reviewer : reviewer, refundNo == null ? this.refundNo : refundNo, createdAt, now);
+    }
+}
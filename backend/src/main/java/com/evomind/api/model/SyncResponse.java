@@ -0,0 +1,16 @@
+package com.evomind.api.model;
+
+import java.util.List;
+
+/**
+ * 增量同步结果。full 为 false 时只有 changes；为 true 时 changes 为空，sources / orders / task 为完整数据，客户端整体替换本地库。
+ * 下次同步以 version 作为 since。
+ */
+public record SyncResponse(long version, boolean full, List<Change> changes,
+                           List<SourceItem> sources, List<OrderItem> orders, ChallengeTask task) {
+
+    /**
+     * 单个实体的最新状态：type 为 source / order / task，deleted 时 data 为空；data 取同步时的当前值。
+     */
+    public record Change(long version, String type, String id, boolean deleted, Object data) {}
+}
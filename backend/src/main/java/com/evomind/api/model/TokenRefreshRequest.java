@@ -0,0 +1,5 @@
+package com.evomind.api.model;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record TokenRefreshRequest(@NotBlank String refreshToken) {}
@@ -0,0 +1,17 @@
+package com.evomind.api.model;
+
+import java.util.List;
+
+/**
+ * 单个用户在 InMemoryStore 中的全部状态，用于分片迁移与副本同步。
+ * modifiedAt 为最后一次变更的时间，接收方只接受不比本地旧的快照。
+ */
+public record UserSnapshot(
+        String userId,
+        long modifiedAt,
+        Long deletedAt,
+        boolean onboardingDone,
+        List<SourceItem> sources,
+        List<OrderItem> orders,
+        ChallengeTask task
+) {}
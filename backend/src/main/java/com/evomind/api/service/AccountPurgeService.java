@@ -0,0 +1,206 @@
+package com.evomind.api.service;
+
+import com.evomind.api.store.DiscussionSessionStore;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.RefundTicketStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * 账号注销：申请时立即打墓碑（读取过滤、写入拒绝），宽限期后由后台按批次限速清除各存储中的数据。
+ * 进度在每批之后落盘，重启后恢复墓碑并从中断的阶段继续。
+ * 退款单与 AI 调用日志这类整文件重写的 journal，各阶段只从内存或待删集合中去掉用户，每批落盘进度前统一重写一次。
+ */
+@Service
+public class AccountPurgeService {
+
+    public enum Stage { WAITING, SOURCES, ORDERS, REFUNDS, PROFILE, DISCUSSIONS, CORPUS, EXPORTS, OCR, AI_CALLS, REGISTRY, DONE }
+
+    public record Progress(String userId, long deletedAt, Stage stage, long removed) {}
+
+    private static final Logger log = LoggerFactory.getLogger(AccountPurgeService.class);
+
+    private final InMemoryStore store;
+    private final DiscussionSessionStore discussions;
+    private final RefundTicketStore refunds;
+    private final ConflictDetectionService conflicts;
+    private final ChallengeDeadlineScheduler deadlines;
+    private final PrivacyExportService exports;
+    private final OcrJobService ocrJobs;
+    private final AiCallLogWriter aiCallLog;
+    private final Path stateFile;
+    private final long graceMillis;
+    private final int batchSize;
+    private final LongSupplier clock;
+    // 按申请顺序排队，同一时刻只推进队首用户，每次调度最多删除 batchSize 条
+    private final Map<String, Progress> queue = new LinkedHashMap<>();
+
+    @Autowired
+    public AccountPurgeService(InMemoryStore store, DiscussionSessionStore discussions, RefundTicketStore refunds,
+                               ConflictDetectionService conflicts, ChallengeDeadlineScheduler deadlines,
+                               PrivacyExportService exports, OcrJobService ocrJobs, AiCallLogWriter aiCallLog,
+                               @Value("${evomind.data-dir:./data}") String dataDir,
+                               @Value("${evomind.purge.grace-days:7}") long graceDays,
+                               @Value("${evomind.purge.batch-size:500}") int batchSize) {
+        this(store, discussions, refunds, conflicts, deadlines, exports, ocrJobs, aiCallLog,
+                Path.of(dataDir, "purge", "pending.tsv"), graceDays * 86_400_000L, batchSize, System::currentTimeMillis);
+    }
+
+    public AccountPurgeService(InMemoryStore store, DiscussionSessionStore discussions, RefundTicketStore refunds,
+                               ConflictDetectionService conflicts, ChallengeDeadlineScheduler deadlines,
+                               PrivacyExportService exports, OcrJobService ocrJobs, AiCallLogWriter aiCallLog,
+                               Path stateFile, long graceMillis, int batchSize, LongSupplier clock) {
+        this.store = store;
+        this.discussions = discussions;
+        this.refunds = refunds;
+        this.conflicts = conflicts;
+        this.deadlines = deadlines;
+        this.exports = exports;
+        this.ocrJobs = ocrJobs;
+        this.aiCallLog = aiCallLog;
+        this.stateFile = stateFile;
+        this.graceMillis = graceMillis;
+        this.batchSize = batchSize;
+        this.clock = clock;
+        load();
+    }
+
+    public synchronized Progress requestDeletion(String userId) {
+        Progress existing = queue.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        long now = clock.getAsLong();
+        store.markDeleted(userId, now);
+        Progress p = new Progress(userId, now, Stage.WAITING, 0);
+        queue.put(userId, p);
+        persist();
+        return p;
+    }
+
+    public synchronized Optional<Progress> progress(String userId) {
+        return Optional.ofNullable(queue.get(userId));
+    }
+
+    /**
+     * 执行一批清理，返回本批删除的记录数。
+     */
+    @Scheduled(fixedDelayString = "${evomind.purge.interval-ms:200}")
+    public synchronized int purgeBatch() {
+        long now = clock.getAsLong();
+        int budget = batchSize;
+        List<String> finished = new ArrayList<>();
+        for (Progress p : queue.values()) {
+            if (budget <= 0 || p.deletedAt() + graceMillis > now) {
+                break;
+            }
+            Progress cur = p;
+            while (budget > 0 && cur.stage() != Stage.DONE) {
+                int removed = step(cur, budget);
+                // 按条删除的阶段删不满额度说明已清空；其余阶段一次完成
+                boolean drained = (cur.stage() != Stage.SOURCES && cur.stage() != Stage.ORDERS) || removed < budget;
+                budget -= removed;
+                Stage stage = drained ? Stage.values()[cur.stage().ordinal() + 1] : cur.stage();
+                cur = new Progress(cur.userId(), cur.deletedAt(), stage, cur.removed() + removed);
+            }
+            queue.put(p.userId(), cur);
+            if (cur.stage() == Stage.DONE) {
+                finished.add(p.userId());
+            }
+        }
+        int used = batchSize - Math.max(budget, 0);
+        // 进度落盘前重写 journal，重启后不会按已完成的阶段跳过仍留在文件里的记录
+        refunds.compact();
+        int callLines = aiCallLog.compact();
+        if (callLines > 0) {
+            log.info("removed {} ai_call_log lines of purged accounts", callLines);
+        }
+        for (String userId : finished) {
+            queue.remove(userId);
+            store.clearTombstone(userId);
+            log.info("account {} purged", userId);
+        }
+        if (used > 0 || !finished.isEmpty()) {
+            persist();
+        }
+        return used;
+    }
+
+    private int step(Progress p, int budget) {
+        String userId = p.userId();
+        return switch (p.stage()) {
+            case WAITING, DONE -> 0;
+            case SOURCES -> store.purgeSources(userId, budget);
+            case ORDERS -> store.purgeOrders(userId, budget);
+            case REFUNDS -> refunds.dropUser(userId);
+            case PROFILE -> {
+                deadlines.cancel(userId);
+                yield store.purgeProfile(userId);
+            }
+            case DISCUSSIONS -> discussions.dropUser(userId);
+            case CORPUS -> {
+                int size = conflicts.corpusSize(userId);
+                conflicts.dropCorpus(userId);
+                yield size;
+            }
+            case EXPORTS -> exports.dropUser(userId);
+            case OCR -> ocrJobs.dropUser(userId);
+            case AI_CALLS -> {
+                aiCallLog.dropUser(userId);
+                yield 0;
+            }
+            case REGISTRY -> store.forgetUser(userId);
+        };
+    }
+
+    private void load() {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(stateFile, StandardCharsets.UTF_8)) {
+                String[] c = line.split("\t");
+                if (c.length < 4) {
+                    continue;
+                }
+                Progress p = new Progress(c[0], Long.parseLong(c[1]), Stage.valueOf(c[2]), Long.parseLong(c[3]));
+                queue.put(p.userId(), p);
+                store.markDeleted(p.userId(), p.deletedAt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("load purge state failed", e);
+        }
+    }
+
+    private void persist() {
+        List<String> lines = new ArrayList<>(queue.size());
+        for (Progress p : queue.values()) {
+            lines.add(p.userId() + '\t' + p.deletedAt() + '\t' + p.stage() + '\t' + p.removed());
+        }
+        try {
+            Files.createDirectories(stateFile.getParent());
+            Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("persist purge state failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.AiCallRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ai_call_log 异步写入：AI 调用线程只把记录放进无锁环形队列，
+ * 单个后台线程批量取出追加到按天滚动的日志文件（列与 ai_call_log 表除自增 id 外一致，可直接 LOAD DATA 入库）。
+ * user_id 为服务端的字符串用户标识，数字一律按 Locale.ROOT 格式化，不随部署机器的区域设置变成逗号小数点。
+ * 注销用户的行由 {@link #compact()} 从各天的文件中删除，一批注销只重写一遍。
+ */
+@Service
+public class AiCallLogWriter {
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final Logger log = LoggerFactory.getLogger(AiCallLogWriter.class);
+
+    private final MpscRingBuffer<AiCallRecord> buffer;
+    private final Path dir;
+    private final int batchSize;
+    private final OverflowPolicy policy;
+    private final long blockNanos;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastFlushAt;
+    private volatile boolean running;
+    // 消费线程无事可做时置位后挂起，生产者看到置位才唤醒，平时不产生额外开销
+    private volatile boolean idle;
+    private volatile Thread consumer;
+    private BufferedWriter out;
+    private LocalDate outDate;
+    // 待从日志文件中删除的用户（已转义，与 user_id 列的写法一致）
+    private final Set<String> pendingDrops = ConcurrentHashMap.newKeySet();
+
+    public AiCallLogWriter(@Value("${evomind.data-dir:./data}") String dataDir,
+                           @Value("${evomind.ai-call-log.capacity:65536}") int capacity,
+                           @Value("${evomind.ai-call-log.batch-size:512}") int batchSize,
+                           @Value("${evomind.ai-call-log.overflow-policy:DROP}") OverflowPolicy policy,
+                           @Value("${evomind.ai-call-log.block-max-ms:5}") long blockMaxMillis) {
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.dir = Path.of(dataDir, "ai-call-log");
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.blockNanos = TimeUnit.MILLISECONDS.toNanos(blockMaxMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::drainLoop, "ai-call-log-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * 发布一条调用记录；DROP 策略队列满时直接丢弃，BLOCK 策略最多等待 block-max-ms 后丢弃。
+     */
+    public boolean publish(AiCallRecord record) {
+        if (buffer.offer(record)) {
+            published.incrementAndGet();
+            signal();
+            return true;
+        }
+        if (policy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + blockNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(10_000);
+                if (buffer.offer(record)) {
+                    published.incrementAndGet();
+                    signal();
+                    return true;
+                }
+            }
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("published", published.get());
+        m.put("written", written.get());
+        m.put("dropped", dropped.get());
+        m.put("lag", published.get() - written.get());
+        m.put("queued", buffer.size());
+        m.put("capacity", buffer.capacity());
+        m.put("batches", batches.get());
+        m.put("lastFlushAt", lastFlushAt);
+        return m;
+    }
+
+    /**
+     * 登记注销用户，其历史行在下一次 {@link #compact()} 时删除。
+     */
+    public void dropUser(String userId) {
+        pendingDrops.add(escape(userId));
+    }
+
+    /**
+     * 把已登记注销用户的行从全部日志文件中删除，返回删除行数；写临时文件后原子替换，失败的用户留到下次重试。
+     */
+    public synchronized int compact() {
+        if (pendingDrops.isEmpty() || !Files.isDirectory(dir)) {
+            return 0;
+        }
+        Set<String> drop = Set.copyOf(pendingDrops);
+        // 关闭当前追加的文件，下一批写入时重新打开替换后的文件
+        closeQuietly();
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "ai_call_log-*.tsv")) {
+            for (Path file : files) {
+                removed += rewrite(file, drop);
+            }
+        } catch (IOException e) {
+            log.warn("ai_call_log compact failed: {}", e.getMessage());
+            return removed;
+        }
+        pendingDrops.removeAll(drop);
+        return removed;
+    }
+
+    private static int rewrite(Path file, Set<String> drop) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int removed = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (drop.contains(tab < 0 ? line : line.substring(0, tab))) {
+                    removed++;
+                } else {
+                    w.write(line);
+                    w.write('\n');
+                }
+            }
+        }
+        if (removed == 0) {
+            Files.delete(tmp);
+        } else {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return removed;
+    }
+
+    private void signal() {
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void drainLoop() {
+        List<AiCallRecord> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                // 先置位再复查队列：生产者要么在复查时已可见，要么会看到置位并唤醒；提前的 unpark 让 park 立即返回
+                idle = true;
+                if (buffer.size() == 0 && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+        synchronized (this) {
+            closeQuietly();
+        }
+    }
+
+    // 与 compact 互斥：重写文件期间不追加
+    private synchronized void write(List<AiCallRecord> batch) {
+        int ok = 0;
+        try {
+            for (AiCallRecord r : batch) {
+                String line;
+                try {
+                    line = format(r);
+                } catch (RuntimeException e) {
+                    // 单条记录不合法（如字段为空）只丢这一条，整行格式化成功才写入，不留半行
+                    dropped.incrementAndGet();
+                    log.warn("ai_call_log record skipped: {}", e.toString());
+                    continue;
+                }
+                writerFor(r.createdAt()).write(line);
+                ok++;
+            }
+            if (out != null) {
+                out.flush();
+            }
+            written.addAndGet(ok);
+            batches.incrementAndGet();
+            lastFlushAt = System.currentTimeMillis();
+        } catch (IOException | RuntimeException e) {
+            // 写失败计入丢弃，不影响调用方，消费线程继续运行
+            dropped.addAndGet(batch.size() - ok);
+            written.addAndGet(ok);
+            log.warn("ai_call_log batch write failed: {}", e.toString());
+            closeQuietly();
+        }
+    }
+
+    private static String format(AiCallRecord r) {
+        return (r.userId() == null ? "\\N" : escape(r.userId()))
+                + '\t' + escape(r.sceneCode())
+                + '\t' + escape(r.modelName())
+                + '\t' + r.tokenIn()
+                + '\t' + r.tokenOut()
+                + '\t' + r.latencyMs()
+                + '\t' + String.format(Locale.ROOT, "%.4f", r.costAmount())
+                + '\t' + (r.success() ? '1' : '0')
+                + '\t' + LocalDateTime.ofInstant(Instant.ofEpochMilli(r.createdAt()), ZoneId.systemDefault())
+                + '\n';
+    }
+
+    private BufferedWriter writerFor(long createdAt) throws IOException {
+        LocalDate date = Instant.ofEpochMilli(createdAt).atZone(ZoneId.systemDefault()).toLocalDate();
+        if (out == null || !date.equals(outDate)) {
+            closeQuietly();
+            Files.createDirectories(dir);
+            out = Files.newBufferedWriter(dir.resolve("ai_call_log-" + date + ".tsv"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            outDate = date;
+        }
+        return out;
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // 关闭失败无需处理
+            }
+            out = null;
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
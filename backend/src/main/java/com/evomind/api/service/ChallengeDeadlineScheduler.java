@@ -0,0 +1,143 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.NotificationClient;
+import com.evomind.api.model.ChallengeTask;
+import com.evomind.api.store.InMemoryStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 挑战任务截止时间调度：到期前提醒，到期后未完成的任务转为逾期。
+ */
+@Service
+public class ChallengeDeadlineScheduler {
+
+    public static final String STATUS_DONE = "已完成";
+    public static final String STATUS_OVERDUE = "已逾期";
+
+    private record Tracked(String taskId, String deadline, TimingWheel.Timeout reminder, TimingWheel.Timeout expiry) {}
+
+    private final InMemoryStore store;
+    private final NotificationClient notificationClient;
+    private final long reminderLeadMillis;
+    private final long tickMillis;
+    private final ExecutorService callbackPool;
+    private final ScheduledExecutorService ticker;
+    private final TimingWheel wheel;
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+
+    public ChallengeDeadlineScheduler(InMemoryStore store,
+                                      NotificationClient notificationClient,
+                                      @Value("${evomind.challenge.reminder-lead-minutes:120}") long reminderLeadMinutes,
+                                      @Value("${evomind.challenge.tick-ms:1000}") long tickMillis) {
+        this.store = store;
+        this.notificationClient = notificationClient;
+        this.reminderLeadMillis = reminderLeadMinutes * 60_000;
+        this.tickMillis = tickMillis;
+        this.callbackPool = Executors.newFixedThreadPool(2, daemon("challenge-deadline"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemon("challenge-wheel"));
+        this.wheel = new TimingWheel(tickMillis, 4, System.currentTimeMillis(), callbackPool);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // 启动时按存量任务重建时间轮
+        store.forEachTask(this::track);
+        ticker.scheduleAtFixedRate(() -> wheel.advance(System.currentTimeMillis()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public ChallengeTask track(String userId, ChallengeTask task) {
+        // 比较、撤销旧定时器、登记新定时器在同一次 compute 内完成，同一用户的并发调用不会留下孤儿定时器
+        tracked.compute(userId, (k, current) -> {
+            if (current != null && current.taskId().equals(task.id()) && current.deadline().equals(task.deadline())
+                    && !isTerminal(task.status())) {
+                return current;
+            }
+            cancelTimeouts(current);
+            long deadline = isTerminal(task.status()) ? -1 : parse(task.deadline());
+            if (deadline < 0) {
+                return null;
+            }
+            TimingWheel.Timeout reminder = deadline - reminderLeadMillis > System.currentTimeMillis()
+                    ? wheel.schedule(deadline - reminderLeadMillis, () -> remind(userId, task.id()))
+                    : null;
+            TimingWheel.Timeout expiry = wheel.schedule(deadline, () -> expire(userId, task.id()));
+            return new Tracked(task.id(), task.deadline(), reminder, expiry);
+        });
+        return task;
+    }
+
+    public void cancel(String userId) {
+        cancelTimeouts(tracked.remove(userId));
+    }
+
+    private static void cancelTimeouts(Tracked t) {
+        if (t != null) {
+            if (t.reminder() != null) {
+                t.reminder().cancel();
+            }
+            t.expiry().cancel();
+        }
+    }
+
+    public int pending() {
+        return wheel.pending();
+    }
+
+    private void remind(String userId, String taskId) {
+        ChallengeTask task = store.task(userId);
+        if (task != null && task.id().equals(taskId) && !isTerminal(task.status())) {
+            notificationClient.challengeReminder(userId, taskId, task.title());
+        }
+    }
+
+    private void expire(String userId, String taskId) {
+        ChallengeTask task = store.task(userId);
+        tracked.computeIfPresent(userId, (k, t) -> t.taskId().equals(taskId) ? null : t);
+        if (task == null || store.isDeleted(userId) || !task.id().equals(taskId) || isTerminal(task.status())) {
+            return;
+        }
+        store.updateTaskStatus(userId, STATUS_OVERDUE);
+        notificationClient.challengeOverdue(userId, taskId, task.title());
+    }
+
+    private static boolean isTerminal(String status) {
+        return STATUS_DONE.equals(status) || STATUS_OVERDUE.equals(status);
+    }
+
+    private static long parse(String deadline) {
+        try {
+            return LocalDateTime.parse(deadline).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException | NullPointerException e) {
+            return -1;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        callbackPool.shutdownNow();
+    }
+}
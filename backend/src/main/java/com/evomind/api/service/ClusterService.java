@@ -0,0 +1,295 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.UserSnapshot;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按用户分片的集群成员管理：用一致性哈希环决定每个用户的主节点与副本，
+ * 成员变化时把不再归本实例的用户推给新的归属节点后释放本地状态。
+ * 主节点处理写请求后把用户标记为脏，定时把快照推给其余副本；只覆盖 InMemoryStore 中的用户状态。
+ */
+@Service
+public class ClusterService {
+
+    public static final String KEY_HEADER = "X-Evomind-Cluster-Key";
+    public static final String LOCAL_HEADER = "X-Evomind-Local";
+    public static final String HANDOFF_PATH = "/api/v1/cluster/handoff";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+
+    public record Rebalance(int users, int pushed, int dropped, int failed) {}
+
+    private final InMemoryStore store;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final int replication;
+    private final byte[] secret;
+    // 进程内随机生成、从不离开本机的标记，带上它的回环请求不转发、不复制，未配置集群密钥时同样有效
+    private final byte[] localKey = localKey();
+    private final Duration timeout;
+    private final HttpClient http;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // 推送可能逐个等到超时，放到专用线程，不占用 Spring 全局单线程调度器（验证码过期、令牌清理等定时任务共用）
+    private final ExecutorService replicator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cluster-replicate");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean replicating = new AtomicBoolean();
+    private volatile HashRing ring;
+
+    public ClusterService(InMemoryStore store, ObjectMapper objectMapper,
+                          @Value("${evomind.cluster.enabled:false}") boolean enabled,
+                          @Value("${evomind.cluster.self:}") String self,
+                          @Value("${evomind.cluster.nodes:}") String nodes,
+                          @Value("${evomind.cluster.virtual-nodes:128}") int virtualNodes,
+                          @Value("${evomind.cluster.replication:1}") int replication,
+                          @Value("${evomind.cluster.secret:}") String secret,
+                          @Value("${evomind.cluster.timeout-ms:3000}") long timeoutMs) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.replication = Math.max(1, replication);
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(timeout).build();
+        if (enabled && self.isBlank()) {
+            throw new IllegalStateException("集群模式需要配置 evomind.cluster.self");
+        }
+        this.ring = new HashRing(enabled ? parseNodes(nodes) : List.of(self), virtualNodes);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public List<String> members() {
+        return ring.nodes();
+    }
+
+    /**
+     * 用户的节点优先列表，第一个为主节点。
+     */
+    public List<String> route(String userId) {
+        return ring.preference(userId, replication);
+    }
+
+    /**
+     * 用户在哈希环上的位置，编码为定长十六进制。可附在不带用户标识的外部单号里，回调时用 {@link #routeByShardKey} 路由。
+     */
+    public static String shardKey(String userId) {
+        return String.format("%016x", HashRing.hash(userId));
+    }
+
+    /**
+     * 按分片键取节点优先列表；键缺失或格式不对时返回空列表，由调用方在本实例处理。
+     */
+    public List<String> routeByShardKey(String shardKey) {
+        if (shardKey == null || shardKey.length() != 16) {
+            return List.of();
+        }
+        try {
+            return ring.preference(Long.parseUnsignedLong(shardKey, 16), replication);
+        } catch (NumberFormatException e) {
+            return List.of();
+        }
+    }
+
+    public boolean authorized(String key) {
+        return enabled && secret.length > 0 && key != null
+                && MessageDigest.isEqual(secret, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 给实例间的内部请求带上集群密钥；未配置密钥时原样返回，接收方会按普通客户端请求处理。
+     */
+    public HttpRequest.Builder sign(HttpRequest.Builder builder) {
+        return secret.length == 0 ? builder : builder.header(KEY_HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 给本实例发往自己的回环请求（如启动预热）带上本地标记，分片过滤器据此始终在本实例处理。
+     */
+    public HttpRequest.Builder signLocal(HttpRequest.Builder builder) {
+        return builder.header(LOCAL_HEADER, new String(localKey, StandardCharsets.US_ASCII));
+    }
+
+    public boolean isLocal(String key) {
+        return key != null && MessageDigest.isEqual(localKey, key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public void markDirty(String userId) {
+        if (enabled && replication > 1) {
+            dirty.add(userId);
+        }
+    }
+
+    public boolean accept(UserSnapshot snapshot) {
+        return store.importUser(snapshot);
+    }
+
+    public HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("请求被中断", e);
+        }
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    @Scheduled(fixedDelayString = "${evomind.cluster.replicate-interval-ms:500}")
+    public void scheduleReplicate() {
+        if (!dirty.isEmpty() && replicating.compareAndSet(false, true)) {
+            replicator.execute(() -> {
+                try {
+                    replicate();
+                } finally {
+                    replicating.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 把当前脏用户推给各副本；失败的用户在本轮结束后重新标脏，留到下一轮重试。
+     */
+    public void replicate() {
+        // 遍历中不能把失败的键加回集合：ConcurrentHashMap 的迭代器可能再次遇到它，副本宕机时整轮停不下来
+        List<String> failed = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String userId = it.next();
+            it.remove();
+            UserSnapshot snapshot = store.exportUser(userId);
+            if (snapshot == null) {
+                continue;
+            }
+            boolean ok = true;
+            for (String node : route(userId)) {
+                if (!node.equals(self)) {
+                    ok &= push(node, snapshot);
+                }
+            }
+            if (!ok) {
+                failed.add(userId);
+            }
+        }
+        dirty.addAll(failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replicator.shutdownNow();
+    }
+
+    /**
+     * 应用新的成员列表：本实例持有的每个用户推给新增的归属节点，不再归本实例的用户推送成功后释放。
+     */
+    public synchronized Rebalance updateMembers(List<String> nodes) {
+        // 先把待同步的副本推完，保证已有副本的数据是新的
+        replicate();
+        HashRing old = ring;
+        HashRing next = new HashRing(nodes, virtualNodes);
+        ring = next;
+        int[] counts = new int[4];
+        store.forEachUser(userId -> {
+            counts[0]++;
+            List<String> before = old.preference(userId, replication);
+            List<String> after = next.preference(userId, replication);
+            UserSnapshot snapshot = null;
+            boolean delivered = false;
+            for (String node : after) {
+                if (node.equals(self) || before.contains(node)) {
+                    delivered |= !node.equals(self);
+                    continue;
+                }
+                if (snapshot == null) {
+                    snapshot = store.exportUser(userId);
+                }
+                if (snapshot != null && push(node, snapshot)) {
+                    counts[1]++;
+                    delivered = true;
+                } else {
+                    counts[3]++;
+                }
+            }
+            if (!after.contains(self) && delivered) {
+                store.dropUser(userId);
+                counts[2]++;
+            }
+        });
+        Rebalance result = new Rebalance(counts[0], counts[1], counts[2], counts[3]);
+        log.info("集群成员变更为 {}，迁移结果 {}", next.nodes(), result);
+        return result;
+    }
+
+    private boolean push(String node, UserSnapshot snapshot) {
+        try {
+            HttpRequest request = sign(HttpRequest.newBuilder(URI.create(node + HANDOFF_PATH)))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(snapshot)))
+                    .build();
+            return send(request).statusCode() == 200;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            log.warn("向 {} 推送用户 {} 失败: {}", node, snapshot.userId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<String> parseNodes(String nodes) {
+        List<String> result = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                result.add(node.trim());
+            }
+        }
+        return result;
+    }
+
+    private static byte[] localKey() {
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        return HexFormat.of().formatHex(random).getBytes(StandardCharsets.US_ASCII);
+    }
+}
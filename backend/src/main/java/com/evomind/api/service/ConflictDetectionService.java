@@ -0,0 +1,130 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.ConflictDetectResponse;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 服务端认知冲突检测：规则与安卓端 ConflictDetectionService 保持一致，
+ * 但只对 LSH 召回的候选段落计算相似度，语料库增量追加。
+ */
+@Service
+public class ConflictDetectionService {
+
+    private static final double CONFLICT_SIMILARITY_THRESHOLD = 0.75;
+    private static final double DUPLICATE_THRESHOLD = 0.9;
+    private static final int MIN_SENTENCE_LENGTH = 10;
+    private static final int MAX_SENTENCE_LENGTH = 200;
+    private static final int MAX_STATEMENTS = 20;
+    private static final Pattern SENTENCE_SPLIT = Pattern.compile("[。.！!？?\\r\\n]+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final List<String> TIME_KEYWORDS = List.of("年", "月", "日", "当时", "现在", "过去", "未来");
+
+    private final Map<String, MinHashIndex> indexes = new ConcurrentHashMap<>();
+
+    public int addToCorpus(String userId, String sourceId, String title, String text) {
+        MinHashIndex index = indexes.computeIfAbsent(userId, k -> new MinHashIndex());
+        int added = 0;
+        for (String sentence : splitStatements(text)) {
+            index.add(sourceId, title, sentence);
+            added++;
+        }
+        return added;
+    }
+
+    public int corpusSize(String userId) {
+        MinHashIndex index = indexes.get(userId);
+        return index == null ? 0 : index.size();
+    }
+
+    public void dropCorpus(String userId) {
+        indexes.remove(userId);
+    }
+
+    public ConflictDetectResponse detect(String userId, String content) {
+        MinHashIndex index = indexes.get(userId);
+        if (index == null || index.size() == 0) {
+            return new ConflictDetectResponse(0, 0, List.of(), "语料库为空");
+        }
+        List<String> statements = splitStatements(content).stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .limit(MAX_STATEMENTS)
+                .toList();
+        int[] candidates = new int[1];
+        // 同一语料来源只保留相似度最高的冲突
+        Map<String, ConflictDetectResponse.Conflict> bySource = new HashMap<>();
+        for (String statement : statements) {
+            for (MinHashIndex.Match m : index.query(statement, CONFLICT_SIMILARITY_THRESHOLD, candidates)) {
+                if (m.similarity() <= CONFLICT_SIMILARITY_THRESHOLD || m.similarity() > DUPLICATE_THRESHOLD) {
+                    continue;
+                }
+                String type = conflictType(statement, m.passage().text());
+                ConflictDetectResponse.Conflict c = new ConflictDetectResponse.Conflict(
+                        statement, m.passage().text(), m.passage().sourceId(), m.passage().title(),
+                        Math.round(m.similarity() * 1000) / 1000.0, type, suggestion(type));
+                bySource.merge(c.corpusSourceId(), c, (a, b) -> a.similarityScore() >= b.similarityScore() ? a : b);
+            }
+        }
+        List<ConflictDetectResponse.Conflict> conflicts = new ArrayList<>(bySource.values());
+        conflicts.sort(Comparator.comparingDouble(ConflictDetectResponse.Conflict::similarityScore).reversed());
+        return new ConflictDetectResponse(index.size(), candidates[0], conflicts, "AI生成，仅供参考");
+    }
+
+    static List<String> splitStatements(String content) {
+        List<String> out = new ArrayList<>();
+        for (String s : SENTENCE_SPLIT.split(content)) {
+            String sentence = s.trim();
+            if (sentence.length() >= MIN_SENTENCE_LENGTH && sentence.length() <= MAX_SENTENCE_LENGTH && hasText(sentence)) {
+                out.add(sentence);
+            }
+        }
+        return out;
+    }
+
+    private static boolean hasText(String sentence) {
+        for (int i = 0; i < sentence.length(); i++) {
+            char c = sentence.charAt(i);
+            if (Character.isLetter(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String conflictType(String statement, String corpusContent) {
+        Set<String> n1 = numbers(statement);
+        Set<String> n2 = numbers(corpusContent);
+        if (!n1.isEmpty() && !n2.isEmpty()) {
+            Set<String> common = new HashSet<>(n1);
+            common.retainAll(n2);
+            if (common.size() != Math.min(n1.size(), n2.size())) {
+                return "FACTUAL";
+            }
+        }
+        boolean t1 = TIME_KEYWORDS.stream().anyMatch(statement::contains);
+        boolean t2 = TIME_KEYWORDS.stream().anyMatch(corpusContent::contains);
+        return t1 && t2 ? "TEMPORAL" : "OPINION";
+    }
+
+    private static Set<String> numbers(String text) {
+        Set<String> out = new HashSet<>();
+        Matcher m = NUMBER.matcher(text);
+        while (m.find()) {
+            out.add(m.group());
+        }
+        return out;
+    }
+
+    private static String suggestion(String type) {
+        return switch (type) {
+            case "FACTUAL" -> "存在事实性冲突，建议核实数据来源的准确性和时效性";
+            case "TEMPORAL" -> "时间信息不一致，注意信息可能随时间变化";
+            default -> "观点不同，思考两种观点的适用场景和背景";
+        };
+    }
+}
@@ -0,0 +1,256 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.model.DailyQuestionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 每日一问题库：低峰期预生成当天题目，请求时按用户确定性挑选，只读内存。
+ * 题库同时写入本地文件，重启后直接加载；当天题库缺失或不足时后台补齐，补齐只在原有题目后追加。
+ * 用户拿到的题目由题库长度决定，当天题库一旦出过题就不再变动，不足的部分等次日题库。
+ * 当天题库还没有时沿用最近一天的题库（内存中的或磁盘上最新的一份），都没有时用内置题目，请求路径上从不直接调模型；
+ * 题目 ID 始终由用户与日期决定。
+ */
+@Service
+public class DailyQuestionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyQuestionPool.class);
+    private static final String TAG = "AI生成，仅供参考";
+    private static final String[] BUILT_IN = {
+            "如果今天只能改一个习惯，哪个最能提升你的执行力？",
+            "最近读到的哪个观点改变了你的做法？为什么？",
+            "你现在最想验证的一个判断是什么？需要什么证据？",
+            "哪条信息源最近让你觉得浪费时间？要不要取消关注？",
+            "过去一周你做过的最好的一个决定是什么？"
+    };
+    // 题库生成失败时的重试间隔，避免模型不可用期间每个请求都触发一轮生成
+    private static final long REFILL_RETRY_MILLIS = 60_000;
+
+    private record Pool(LocalDate date, String[] questions, AtomicBoolean served) {
+        Pool(LocalDate date, String[] questions) {
+            this(date, questions, new AtomicBoolean());
+        }
+    }
+
+    private final AiGateway aiGateway;
+    private final Path dir;
+    private final int poolSize;
+    private final AtomicReference<Pool> current = new AtomicReference<>(new Pool(LocalDate.MIN, new String[0]));
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile long lastRefillAt;
+    // 出题前的标记与补齐后的替换互斥，保证已出过题的题库不会被替换
+    private final Object swapLock = new Object();
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "daily-question-refill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public DailyQuestionPool(AiGateway aiGateway,
+                             @Value("${evomind.data-dir:./data}") String dataDir,
+                             @Value("${evomind.daily-question.pool-size:32}") int poolSize) {
+        this.aiGateway = aiGateway;
+        this.dir = Path.of(dataDir, "daily-question");
+        this.poolSize = poolSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        if (!load(today) || size(today) < poolSize) {
+            refillAsync(today);
+        }
+    }
+
+    // 凌晨低峰期生成次日题库
+    @Scheduled(cron = "${evomind.daily-question.cron:0 30 3 * * *}")
+    public void pregenerateTomorrow() {
+        generate(LocalDate.now().plusDays(1));
+    }
+
+    public DailyQuestionResponse pick(String userId, LocalDate date) {
+        Pool pool = current.get();
+        if (!pool.date().equals(date) && load(date)) {
+            pool = current.get();
+        }
+        if (!pool.date().equals(date)) {
+            String[] questions = fallback(pool, date);
+            refillAsync(date);
+            return choose(userId, date, questions);
+        }
+        if (!pool.served().get()) {
+            synchronized (swapLock) {
+                pool = current.get();
+                pool.served().set(true);
+            }
+        }
+        return choose(userId, date, pool.questions().length == 0 ? BUILT_IN : pool.questions());
+    }
+
+    private static DailyQuestionResponse choose(String userId, LocalDate date, String[] questions) {
+        if (userId == null) {
+            return new DailyQuestionResponse(UUID.randomUUID().toString(),
+                    questions[ThreadLocalRandom.current().nextInt(questions.length)], TAG);
+        }
+        String seed = userId + '@' + date;
+        int index = Math.floorMod(seed.hashCode(), questions.length);
+        return new DailyQuestionResponse(UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8)).toString(),
+                questions[index], TAG);
+    }
+
+    public int size(LocalDate date) {
+        Pool pool = current.get();
+        return pool.date().equals(date) ? pool.questions().length : 0;
+    }
+
+    public void generate(LocalDate date) {
+        Pool existing = current.get();
+        String[] base = existing.date().equals(date) ? existing.questions() : new String[0];
+        if (existing.date().equals(date) && existing.served().get()) {
+            return;
+        }
+        List<String> questions = new ArrayList<>(List.of(base));
+        for (int i = base.length; i < poolSize; i++) {
+            aiGateway.generateDailyQuestion().ifPresent(q -> questions.add(q.question()));
+        }
+        if (questions.size() == base.length) {
+            log.warn("daily question generation for {} produced nothing, keeping current pool", date);
+            return;
+        }
+        String[] table = questions.toArray(new String[0]);
+        // 次日题库只落盘，跨天后首次请求再加载
+        if (!date.isAfter(LocalDate.now())) {
+            synchronized (swapLock) {
+                Pool latest = current.get();
+                if (latest.date().equals(date) && (latest != existing || latest.served().get())) {
+                    // 生成期间当天题库已被替换或已出题，本次结果作废
+                    return;
+                }
+                current.set(new Pool(date, table));
+            }
+        }
+        persist(date, table);
+    }
+
+    // 当天题库缺失时的题目：内存里较早一天的题库，否则磁盘上早于当天的最新一份（加载后留在内存），再否则内置题目
+    private String[] fallback(Pool pool, LocalDate date) {
+        if (pool.date().isBefore(date) && pool.questions().length > 0) {
+            return pool.questions();
+        }
+        Pool latest = latestBefore(date);
+        if (latest == null) {
+            return BUILT_IN;
+        }
+        // 只替换看到的那份，不会覆盖期间补齐的当天题库
+        current.compareAndSet(pool, latest);
+        return latest.questions();
+    }
+
+    private Pool latestBefore(LocalDate date) {
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        LocalDate best = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try {
+                    LocalDate d = LocalDate.parse(name.substring(0, name.length() - 4));
+                    if (d.isBefore(date) && (best == null || d.isAfter(best))) {
+                        best = d;
+                    }
+                } catch (DateTimeParseException e) {
+                    // 不是题库文件
+                }
+            }
+        } catch (IOException e) {
+            log.warn("list daily question pools failed: {}", e.getMessage());
+            return null;
+        }
+        if (best == null) {
+            return null;
+        }
+        String[] table = read(file(best));
+        return table == null ? null : new Pool(best, table);
+    }
+
+    private void refillAsync(LocalDate date) {
+        long now = System.currentTimeMillis();
+        if (now - lastRefillAt < REFILL_RETRY_MILLIS) {
+            return;
+        }
+        if (refilling.compareAndSet(false, true)) {
+            lastRefillAt = now;
+            refillExecutor.execute(() -> {
+                try {
+                    generate(date);
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        }
+    }
+
+    private boolean load(LocalDate date) {
+        String[] table = read(file(date));
+        if (table == null) {
+            return false;
+        }
+        current.set(new Pool(date, table));
+        return true;
+    }
+
+    // 文件不存在、为空或读取失败时返回 null
+    private String[] read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String[] table = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .toArray(String[]::new);
+            return table.length == 0 ? null : table;
+        } catch (IOException e) {
+            log.warn("load daily question pool failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void persist(LocalDate date, String[] table) {
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, date.toString(), ".tmp");
+            Files.write(tmp, List.of(table), StandardCharsets.UTF_8);
+            Files.move(tmp, file(date), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("persist daily question pool failed: {}", e.getMessage());
+        }
+    }
+
+    private Path file(LocalDate date) {
+        return dir.resolve(date + ".txt");
+    }
+}
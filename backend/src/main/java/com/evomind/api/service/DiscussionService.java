@@ -0,0 +1,47 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.model.DailyQuestionResponse;
+import com.evomind.api.model.DiscussionContext;
+import com.evomind.api.model.DiscussionFinalizeResponse;
+import com.evomind.api.model.DiscussionReplyResponse;
+import com.evomind.api.store.DiscussionSessionStore;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DiscussionService {
+
+    private final DiscussionSessionStore sessions;
+    private final AiGateway aiGateway;
+
+    public DiscussionService(DiscussionSessionStore sessions, AiGateway aiGateway) {
+        this.sessions = sessions;
+        this.aiGateway = aiGateway;
+    }
+
+    public DailyQuestionResponse open(String userId, DailyQuestionResponse question) {
+        // 同一用户当天的题目和讨论id固定，重复请求不重置已有会话；未登录只出题，不开讨论
+        if (userId != null) {
+            sessions.openIfAbsent(question.discussionId(), userId, question.question());
+        }
+        return question;
+    }
+
+    public DiscussionReplyResponse reply(String discussionId, String userId, String answer) {
+        DiscussionContext context = sessions.append(discussionId, userId, "user", answer);
+        DiscussionReplyResponse reply = aiGateway.followUp(discussionId, context, answer);
+        sessions.append(discussionId, userId, "ai", reply.aiFollowUp());
+        return reply;
+    }
+
+    public DiscussionFinalizeResponse finalizeDiscussion(String discussionId, String userId, String finalAnswer) {
+        sessions.append(discussionId, userId, "user", finalAnswer);
+        return aiGateway.finalizeDiscussion(discussionId, sessions.close(discussionId, userId), finalAnswer);
+    }
+
+    @Scheduled(fixedDelayString = "${evomind.discussion.evict-interval-ms:60000}")
+    public void evictIdle() {
+        sessions.evictIdle();
+    }
+}
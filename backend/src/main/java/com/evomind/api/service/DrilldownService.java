@@ -0,0 +1,107 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.SourceFetchClient;
+import com.evomind.api.model.DrilldownResponse;
+import com.evomind.api.model.MindmapResponse;
+import com.evomind.api.store.ParagraphCache;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class DrilldownService {
+
+    private static final String NOTE = "AI生成，仅供参考";
+    private static final int MAX_TRACKED_CARDS = 10_000;
+    static final String CARD_PREFIX = "card:";
+
+    private final ParagraphCache cache;
+    private final SourceFetchClient fetchClient;
+    private final InvalidationBus bus;
+    // cardId -> 按层级分组的节点id，用于下钻时预取同级节点
+    private final Map<String, Map<String, List<String>>> siblings = new ConcurrentHashMap<>();
+    private final ExecutorService prefetchPool = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "drilldown-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public DrilldownService(ParagraphCache cache, SourceFetchClient fetchClient, InvalidationBus bus) {
+        this.cache = cache;
+        this.fetchClient = fetchClient;
+        this.bus = bus;
+        bus.subscribe(CARD_PREFIX, (key, version) -> forget(key.substring(CARD_PREFIX.length())));
+    }
+
+    public void registerMindmap(MindmapResponse mindmap) {
+        if (siblings.size() >= MAX_TRACKED_CARDS) {
+            siblings.clear();
+        }
+        Map<String, List<String>> byLevel = new HashMap<>();
+        for (MindmapResponse.Node node : mindmap.nodes()) {
+            byLevel.computeIfAbsent(node.level(), k -> new ArrayList<>()).add(node.id());
+        }
+        Map<String, List<String>> old = siblings.put(mindmap.cardId(), byLevel);
+        // 导图结构变了，按旧节点缓存的段落与其他实例上的同一张卡片一并作废
+        if (old != null && !old.equals(byLevel)) {
+            cache.invalidateCard(mindmap.cardId());
+            bus.publish(CARD_PREFIX + mindmap.cardId());
+        }
+    }
+
+    private void forget(String cardId) {
+        siblings.remove(cardId);
+        cache.invalidateCard(cardId);
+    }
+
+    public DrilldownResponse drilldown(String cardId, String nodeId) {
+        String paragraph = cache.get(cardId, nodeId);
+        if (paragraph == null) {
+            paragraph = fetchClient.fetchParagraph(cardId, nodeId);
+            cache.put(cardId, nodeId, paragraph);
+            prefetchSiblings(cardId, nodeId);
+        }
+        return new DrilldownResponse(cardId, nodeId, paragraph, NOTE);
+    }
+
+    private void prefetchSiblings(String cardId, String nodeId) {
+        Map<String, List<String>> byLevel = siblings.get(cardId);
+        if (byLevel == null) {
+            return;
+        }
+        for (List<String> ids : byLevel.values()) {
+            if (!ids.contains(nodeId)) {
+                continue;
+            }
+            for (String sibling : ids) {
+                if (sibling.equals(nodeId) || cache.contains(cardId, sibling)) {
+                    continue;
+                }
+                try {
+                    prefetchPool.execute(() -> cache.put(cardId, sibling, fetchClient.fetchParagraph(cardId, sibling)));
+                } catch (RejectedExecutionException ignored) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${evomind.drilldown.purge-interval-ms:1000}")
+    public void purgeExpired() {
+        cache.purgeExpired();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchPool.shutdownNow();
+    }
+}
@@ -0,0 +1,104 @@
+package com.evomind.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 一致性哈希环：每个节点映射为若干虚拟节点，键顺时针找到的第一个虚拟节点即为主节点，
+ * 继续顺时针取不重复的节点作为副本。实例不可变，成员变化时整体重建。
+ * 哈希只依赖字符串内容，所有实例对同一成员列表算出的归属一致。
+ */
+public final class HashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(new LinkedHashSet<>(nodes));
+        int n = this.nodes.size() * virtualNodes;
+        long[] keyed = new long[n];
+        int[] index = new int[n];
+        int k = 0;
+        for (int i = 0; i < this.nodes.size(); i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                keyed[k] = hash(this.nodes.get(i) + '#' + v);
+                index[k++] = i;
+            }
+        }
+        // 按哈希值排序，owners 与 points 同步重排
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keyed[a], keyed[b]));
+        this.points = new long[n];
+        this.owners = new int[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = keyed[order[i]];
+            owners[i] = index[order[i]];
+        }
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public String owner(String key) {
+        return points.length == 0 ? null : nodes.get(owners[slot(hash(key))]);
+    }
+
+    /**
+     * 从主节点开始顺时针取至多 n 个不同节点。
+     */
+    public List<String> preference(String key, int n) {
+        return preference(hash(key), n);
+    }
+
+    /**
+     * 同上，直接给出键在环上的位置（{@link #hash} 的结果）。
+     */
+    public List<String> preference(long position, int n) {
+        int want = Math.min(n, nodes.size());
+        List<String> result = new ArrayList<>(want);
+        if (want == 0) {
+            return result;
+        }
+        boolean[] seen = new boolean[nodes.size()];
+        for (int i = slot(position); result.size() < want; i = (i + 1) % points.length) {
+            int owner = owners[i];
+            if (!seen[owner]) {
+                seen[owner] = true;
+                result.add(nodes.get(owner));
+            }
+        }
+        return result;
+    }
+
+    private int slot(long h) {
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i == points.length ? 0 : i;
+    }
+
+    // FNV-1a 64 位，再做一次 murmur3 fmix64 打散相近的键
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,194 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.integration.CircuitBreaker;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 深度健康检查：每个组件由后台线程按各自周期检查，结果连同耗时缓存成预序列化的 JSON，
+ * 探针读取只是取一次引用，不触发任何检查，也不占用业务线程池。
+ * 关键组件（磁盘、存储完整性）失败时整体 DOWN；非关键组件（AI 熔断、外部依赖连通性）失败时整体 DEGRADED。
+ */
+@Service
+public class HealthMonitor {
+
+    public enum State { UNKNOWN, UP, DEGRADED, DOWN }
+
+    public record Component(State status, boolean critical, long latencyUs, long checkedAt, int consecutiveFailures,
+                            String detail) {}
+
+    public record Snapshot(State status, byte[] json) {}
+
+    private record Check(String name, boolean critical, long intervalMillis, Callable<String> probe) {}
+
+    private static final Logger log = LoggerFactory.getLogger(HealthMonitor.class);
+
+    private final ObjectMapper objectMapper;
+    private final List<Check> checks = new ArrayList<>();
+    private final Map<String, Component> components = new LinkedHashMap<>();
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    public HealthMonitor(InMemoryStore store, AiGateway aiGateway, ObjectMapper objectMapper,
+                         @Value("${evomind.data-dir:./data}") String dataDir,
+                         @Value("${evomind.health.interval-ms:5000}") long intervalMillis,
+                         @Value("${evomind.health.store-interval-ms:60000}") long storeIntervalMillis,
+                         @Value("${evomind.health.min-free-mb:256}") long minFreeMb,
+                         @Value("${evomind.health.timeout-ms:2000}") int timeoutMillis,
+                         @Value("${evomind.health.tcp-targets:}") String tcpTargets) {
+        this.objectMapper = objectMapper;
+        Path dir = Path.of(dataDir);
+        register(new Check("disk", true, intervalMillis, () -> checkDisk(dir, minFreeMb)));
+        register(new Check("store", true, storeIntervalMillis, () -> store.verify() + " 行校验通过"));
+        register(new Check("ai", false, intervalMillis, () -> checkAi(aiGateway)));
+        // 外部依赖（MySQL、Redis、OCR/支付/短信网关等）按 名称=主机:端口 配置，只检查 TCP 可连
+        for (String target : tcpTargets.split(",")) {
+            int eq = target.indexOf('=');
+            int colon = target.lastIndexOf(':');
+            if (eq > 0 && colon > eq) {
+                String host = target.substring(eq + 1, colon).trim();
+                int port = Integer.parseInt(target.substring(colon + 1).trim());
+                register(new Check(target.substring(0, eq).trim(), false, intervalMillis,
+                        () -> checkTcp(host, port, timeoutMillis)));
+            }
+        }
+        publish();
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger seq = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.min(checks.size(), 4), r -> {
+            Thread t = new Thread(r, "health-check-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (Check check : checks) {
+            scheduler.scheduleWithFixedDelay(() -> run(check), 0, check.intervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 立即执行全部检查；供测试和运维手动刷新，探针路径不调用。
+     */
+    public Snapshot refresh() {
+        checks.forEach(this::run);
+        return snapshot;
+    }
+
+    private void register(Check check) {
+        checks.add(check);
+        components.put(check.name(), new Component(State.UNKNOWN, check.critical(), 0, 0, 0, "尚未检查"));
+    }
+
+    private void run(Check check) {
+        long started = System.nanoTime();
+        State state;
+        String detail;
+        try {
+            detail = check.probe().call();
+            state = State.UP;
+        } catch (Exception e) {
+            detail = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            state = State.DOWN;
+        }
+        long latencyUs = (System.nanoTime() - started) / 1000;
+        synchronized (this) {
+            Component previous = components.get(check.name());
+            int failures = state == State.DOWN ? previous.consecutiveFailures() + 1 : 0;
+            if (state != previous.status() && previous.status() != State.UNKNOWN) {
+                log.warn("组件 {} 状态 {} -> {}: {}", check.name(), previous.status(), state, detail);
+            }
+            components.put(check.name(), new Component(state, check.critical(), latencyUs, System.currentTimeMillis(),
+                    failures, detail));
+            publish();
+        }
+    }
+
+    private synchronized void publish() {
+        boolean down = false;
+        boolean unknown = false;
+        boolean degraded = false;
+        for (Component c : components.values()) {
+            if (c.status() == State.DOWN) {
+                down |= c.critical();
+                degraded |= !c.critical();
+            } else if (c.status() == State.UNKNOWN) {
+                unknown |= c.critical();
+            }
+        }
+        State overall = down ? State.DOWN : unknown ? State.UNKNOWN : degraded ? State.DEGRADED : State.UP;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("status", overall);
+            body.put("components", new LinkedHashMap<>(components));
+            snapshot = new Snapshot(overall, objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String checkDisk(Path dir, long minFreeMb) throws IOException {
+        Files.createDirectories(dir);
+        Files.delete(Files.createTempFile(dir, "health", ".tmp"));
+        long freeMb = Files.getFileStore(dir).getUsableSpace() >> 20;
+        if (freeMb < minFreeMb) {
+            throw new IOException("可用空间 " + freeMb + " MB，低于 " + minFreeMb + " MB");
+        }
+        return "可用 " + freeMb + " MB";
+    }
+
+    private static String checkAi(AiGateway aiGateway) {
+        List<String> open = new ArrayList<>();
+        for (AiGateway.Scene scene : AiGateway.Scene.values()) {
+            if (aiGateway.breakerState(scene) == CircuitBreaker.State.OPEN) {
+                open.add(scene.name());
+            }
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalStateException("熔断中: " + open);
+        }
+        return "熔断器均未打开";
+    }
+
+    private static String checkTcp(String host, int port, int timeoutMillis) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        }
+        return host + ":" + port + " 可连接";
+    }
+}
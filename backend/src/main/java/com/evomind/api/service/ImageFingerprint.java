@@ -0,0 +1,148 @@
+package com.evomind.api.service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * 图片指纹：内容哈希（SHA-256）识别完全相同的上传；差值感知哈希（dHash）识别重新压缩、状态栏时间变化这类近似重复的截图。
+ * <p>
+ * dHash 把灰度图按区域平均缩到 17×16，逐行比较相邻格子的明暗得到 256 位；只在宽高完全相同的图片之间比较，
+ * 同一应用里布局相近但内容不同的截图靠足够细的网格和较小的汉明距离阈值区分。
+ * 解码前先从文件头读宽高，像素数超过 {@link #MAX_PIXELS} 的不解码；这类图片与无法解码的内容一样只有内容哈希。
+ */
+public final class ImageFingerprint {
+
+    static final int COLS = 17;
+    static final int ROWS = 16;
+    static final int WORDS = (COLS - 1) * ROWS / 64;
+    // 解码后按 4 字节/像素驻留，约 64MB；文件头可以声明任意宽高，小文件也可能解出巨图
+    static final long MAX_PIXELS = 16L * 1024 * 1024;
+    // 灰度按 ×1000 累加
+    private static final long MARGIN = 2 * 1000;
+
+    private final String sha256;
+    private final int width;
+    private final int height;
+    private final long[] dhash;
+
+    private ImageFingerprint(String sha256, int width, int height, long[] dhash) {
+        this.sha256 = sha256;
+        this.width = width;
+        this.height = height;
+        this.dhash = dhash;
+    }
+
+    public static ImageFingerprint of(byte[] content) {
+        String sha = sha256(content);
+        BufferedImage image;
+        try {
+            image = decode(content);
+        } catch (IOException | RuntimeException e) {
+            image = null;
+        }
+        if (image == null || image.getWidth() < COLS || image.getHeight() < ROWS) {
+            return new ImageFingerprint(sha, 0, 0, null);
+        }
+        return new ImageFingerprint(sha, image.getWidth(), image.getHeight(), dhash(image));
+    }
+
+    public String sha256() {
+        return sha256;
+    }
+
+    public boolean hasPerceptualHash() {
+        return dhash != null;
+    }
+
+    /**
+     * 与另一张图的汉明距离；尺寸不同或任一方没有感知哈希时为 Integer.MAX_VALUE。
+     */
+    public int distance(ImageFingerprint other) {
+        if (dhash == null || other.dhash == null || width != other.width || height != other.height) {
+            return Integer.MAX_VALUE;
+        }
+        int d = 0;
+        for (int i = 0; i < WORDS; i++) {
+            d += Long.bitCount(dhash[i] ^ other.dhash[i]);
+        }
+        return d;
+    }
+
+    /**
+     * 第 band 段（32 位）的取值，与尺寸一起作为近似查找的分桶键：汉明距离不超过 2×WORDS−1 时至少有一段完全相同。
+     */
+    long band(int band) {
+        long bits = dhash[band >> 1] >>> ((band & 1) * 32) & 0xFFFFFFFFL;
+        return (long) (band * 31 + width * 131 + height) << 32 ^ bits;
+    }
+
+    static int bands() {
+        return WORDS * 2;
+    }
+
+    private static BufferedImage decode(byte[] content) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static long[] dhash(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        long[] sum = new long[COLS * ROWS];
+        long[] count = new long[COLS * ROWS];
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            int base = (int) ((long) y * ROWS / h) * COLS;
+            for (int x = 0; x < w; x++) {
+                int rgb = row[x];
+                int cell = base + (int) ((long) x * COLS / w);
+                sum[cell] += ((rgb >> 16 & 0xFF) * 299 + (rgb >> 8 & 0xFF) * 587 + (rgb & 0xFF) * 114);
+                count[cell]++;
+            }
+        }
+        long[] bits = new long[WORDS];
+        int bit = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS - 1; c++, bit++) {
+                int left = r * COLS + c;
+                // 右格比左格亮出 MARGIN 个灰度级才记 1：大片同色区域的均值只差压缩噪声，不让它们随机翻转；
+                // 交叉相乘比较平均值，避免除法取整
+                if (sum[left + 1] * count[left] - sum[left] * count[left + 1] > MARGIN * count[left] * count[left + 1]) {
+                    bits[bit >> 6] |= 1L << (bit & 63);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.evomind.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 跨实例缓存失效总线：写路径只把（键, 版本）合并进待发送表，同一键在一个刷新周期内多次失效只发最大版本；
+ * 后台线程按 flush-interval 批量打包成 UDP 报文发给各对端，并在 max-staleness 窗口内周期性重发，
+ * 丢包时对端最迟在下一次重发时收到。版本为混合逻辑时钟（毫秒 &lt;&lt; 16 | 计数），接收方只处理比已知版本新的失效。
+ * 报文尾部带以集群密钥计算的 HMAC-SHA256（截取 16 字节），校验不过的报文直接丢弃；启用时必须配置 evomind.cluster.secret。
+ */
+@Service
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+    private static final int MAGIC = 0x45564942;
+    // 魔数(4) + 发送方(8) + 条数(2)
+    private static final int HEADER_BYTES = 14;
+    private static final int TAG_BYTES = 16;
+    private static final int MAX_DATAGRAM = 1400;
+    private static final int MAX_PAYLOAD = MAX_DATAGRAM - TAG_BYTES;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private record Subscription(String prefix, BiConsumer<String, Long> listener) {}
+
+    private final boolean enabled;
+    private final InetSocketAddress bind;
+    private final List<InetSocketAddress> peers;
+    private final long flushMillis;
+    private final long resendMillis;
+    private final long maxStalenessMillis;
+    private final LongSupplier clock;
+    private final byte[] secret;
+    private final long senderId = new SecureRandom().nextLong();
+    private final AtomicLong hlc = new AtomicLong();
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    // 仅刷新线程访问：窗口内已发出的失效，值为 {版本, 首次发送时间}
+    private final Map<String, long[]> recent = new HashMap<>();
+    // 已收到的每个键的最大版本，超过保留期按版本中的时间清理
+    private final Map<String, Long> known = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong forged = new AtomicLong();
+    private volatile boolean running;
+    private DatagramChannel channel;
+    private Thread flusher;
+    private Thread receiver;
+    private long lastResendAt;
+    // 签名只在刷新线程、校验只在接收线程上进行，各用一个实例
+    private Mac signer;
+    private Mac verifier;
+
+    @Autowired
+    public InvalidationBus(@Value("${evomind.invalidation.enabled:false}") boolean enabled,
+                           @Value("${evomind.invalidation.bind:127.0.0.1:0}") String bind,
+                           @Value("${evomind.invalidation.peers:}") String peers,
+                           @Value("${evomind.invalidation.flush-interval-ms:20}") long flushMillis,
+                           @Value("${evomind.invalidation.resend-interval-ms:250}") long resendMillis,
+                           @Value("${evomind.invalidation.max-staleness-ms:2000}") long maxStalenessMillis,
+                           @Value("${evomind.cluster.secret:}") String secret) {
+        this(enabled, address(bind), parsePeers(peers), flushMillis, resendMillis, maxStalenessMillis,
+                secret.getBytes(StandardCharsets.UTF_8), System::currentTimeMillis);
+    }
+
+    public InvalidationBus(boolean enabled, InetSocketAddress bind, List<InetSocketAddress> peers, long flushMillis,
+                           long resendMillis, long maxStalenessMillis, byte[] secret, LongSupplier clock) {
+        this.enabled = enabled;
+        this.bind = bind;
+        this.peers = List.copyOf(peers);
+        this.flushMillis = flushMillis;
+        this.resendMillis = resendMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.clock = clock;
+        this.secret = secret.clone();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (secret.length == 0) {
+            throw new IllegalStateException("启用失效总线需要配置 evomind.cluster.secret");
+        }
+        signer = mac();
+        verifier = mac();
+        channel = DatagramChannel.open().bind(bind);
+        running = true;
+        flusher = new Thread(this::flushLoop, "invalidation-bus-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        receiver = new Thread(this::receiveLoop, "invalidation-bus-receive");
+        receiver.setDaemon(true);
+        receiver.start();
+        log.info("失效总线监听 {}，对端 {}", channel.getLocalAddress(), peers);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        if (channel != null) {
+            channel.close();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return channel == null ? null : (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * 对前缀匹配的键注册失效回调，回调在接收线程上执行，应当只做本地缓存删除之类的轻量操作。
+     */
+    public void subscribe(String prefix, BiConsumer<String, Long> listener) {
+        subscriptions.add(new Subscription(prefix, listener));
+    }
+
+    /**
+     * 发布一次失效并返回其版本；只做一次哈希表合并，不做任何 IO。
+     */
+    public long publish(String key) {
+        long now = clock.getAsLong() << 16;
+        long version = hlc.updateAndGet(v -> Math.max(v + 1, now));
+        if (running) {
+            pending.merge(key, version, Math::max);
+        }
+        return version;
+    }
+
+    public long sentEntries() {
+        return sent.get();
+    }
+
+    public long receivedEntries() {
+        return received.get();
+    }
+
+    /**
+     * 因签名不符被丢弃的报文数。
+     */
+    public long forgedPackets() {
+        return forged.get();
+    }
+
+    /**
+     * 发出本周期合并后的失效，到达重发间隔时把窗口内的失效整体重发一遍；返回本次发出的条数。
+     */
+    private synchronized int flush() throws IOException {
+        long now = clock.getAsLong();
+        List<String> keys = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            // 原子取走当前值；之后再合并进来的版本留到下一轮
+            Long version = pending.remove(key);
+            if (version != null) {
+                keys.add(key);
+                versions.add(version);
+                long[] r = recent.get(key);
+                if (r == null || r[0] < version) {
+                    recent.put(key, new long[]{version, now});
+                }
+            }
+        }
+        if (now - lastResendAt >= resendMillis) {
+            lastResendAt = now;
+            keys.clear();
+            versions.clear();
+            for (Iterator<Map.Entry<String, long[]>> it = recent.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, long[]> e = it.next();
+                if (now - e.getValue()[1] > maxStalenessMillis) {
+                    it.remove();
+                } else {
+                    keys.add(e.getKey());
+                    versions.add(e.getValue()[0]);
+                }
+            }
+            long horizon = (now - 2 * maxStalenessMillis) << 16;
+            known.values().removeIf(v -> v < horizon);
+        }
+        send(keys, versions);
+        return keys.size();
+    }
+
+    private void send(List<String> keys, List<Long> versions) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(MAX_DATAGRAM);
+        int count = 0;
+        for (int i = 0; i <= keys.size(); i++) {
+            byte[] key = i < keys.size() ? keys.get(i).getBytes(StandardCharsets.UTF_8) : null;
+            if (count > 0 && (key == null || buf.position() + 10 + key.length > MAX_PAYLOAD)) {
+                buf.putShort(12, (short) count);
+                signer.update(buf.array(), 0, buf.position());
+                buf.put(signer.doFinal(), 0, TAG_BYTES);
+                buf.flip();
+                for (SocketAddress peer : peers) {
+                    channel.send(buf.duplicate(), peer);
+                }
+                sent.addAndGet(count);
+                buf.clear();
+                count = 0;
+            }
+            if (key == null) {
+                break;
+            }
+            if (HEADER_BYTES + 10 + key.length > MAX_PAYLOAD) {
+                log.warn("失效键过长，已丢弃：{}", keys.get(i));
+                continue;
+            }
+            if (count == 0) {
+                buf.putInt(MAGIC).putLong(senderId).putShort((short) 0);
+            }
+            buf.putLong(versions.get(i)).putShort((short) key.length).put(key);
+            count++;
+        }
+    }
+
+    private void receive(ByteBuffer packet) {
+        if (!verify(packet)) {
+            forged.incrementAndGet();
+            log.warn("丢弃签名不符的失效报文");
+            return;
+        }
+        try {
+            if (packet.getInt() != MAGIC || packet.getLong() == senderId) {
+                return;
+            }
+            int count = packet.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                long version = packet.getLong();
+                byte[] key = new byte[packet.getShort() & 0xFFFF];
+                packet.get(key);
+                apply(new String(key, StandardCharsets.UTF_8), version);
+            }
+        } catch (BufferUnderflowException e) {
+            log.warn("丢弃格式错误的失效报文");
+        }
+    }
+
+    // 校验通过时把 limit 收到签名之前
+    private boolean verify(ByteBuffer packet) {
+        int end = packet.limit() - TAG_BYTES;
+        if (end < HEADER_BYTES) {
+            return false;
+        }
+        verifier.update(packet.array(), 0, end);
+        byte[] expected = Arrays.copyOf(verifier.doFinal(), TAG_BYTES);
+        byte[] tag = Arrays.copyOfRange(packet.array(), end, packet.limit());
+        if (!MessageDigest.isEqual(expected, tag)) {
+            return false;
+        }
+        packet.limit(end);
+        return true;
+    }
+
+    private Mac mac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void apply(String key, long version) {
+        hlc.accumulateAndGet(version, Math::max);
+        boolean[] newer = new boolean[1];
+        known.compute(key, (k, v) -> {
+            if (v != null && v >= version) {
+                return v;
+            }
+            newer[0] = true;
+            return version;
+        });
+        if (!newer[0]) {
+            return;
+        }
+        received.incrementAndGet();
+        for (Subscription s : subscriptions) {
+            if (key.startsWith(s.prefix())) {
+                try {
+                    s.listener().accept(key, version);
+                } catch (RuntimeException e) {
+                    log.warn("失效回调异常，键 {}", key, e);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(flushMillis);
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("发送失效报文失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocate(65536);
+        while (running) {
+            try {
+                buf.clear();
+                channel.receive(buf);
+                buf.flip();
+                receive(buf);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("接收失效报文失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static InetSocketAddress address(String hostPort) {
+        int colon = hostPort.lastIndexOf(':');
+        return new InetSocketAddress(hostPort.substring(0, colon).trim(), Integer.parseInt(hostPort.substring(colon + 1).trim()));
+    }
+
+    private static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> result = new ArrayList<>();
+        for (String peer : peers.split(",")) {
+            if (!peer.isBlank()) {
+                result.add(address(peer));
+            }
+        }
+        return result;
+    }
+}
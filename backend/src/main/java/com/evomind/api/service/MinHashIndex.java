@@ -0,0 +1,183 @@
+package com.evomind.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个用户语料库的 MinHash/LSH 索引。
+ * 每条段落保存字符二元组集合（排序去重的 int 数组）和 MinHash 签名；
+ * 签名按 band 切分后落入桶中，查询时只对同桶候选计算精确 Jaccard。
+ */
+public class MinHashIndex {
+
+    static final int BANDS = 16;
+    static final int ROWS = 4;
+    static final int HASHES = BANDS * ROWS;
+
+    private static final long[] SEED_A = new long[HASHES];
+    private static final long[] SEED_B = new long[HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+        for (int i = 0; i < HASHES; i++) {
+            SEED_A[i] = random.nextLong() | 1L;
+            SEED_B[i] = random.nextLong();
+        }
+    }
+
+    public record Passage(String sourceId, String title, String text, int[] grams) {}
+
+    public record Match(Passage passage, double similarity) {}
+
+    private final List<Passage> passages = new ArrayList<>();
+    private final Map<Long, int[]> buckets = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(String sourceId, String title, String text) {
+        int[] grams = bigrams(text);
+        if (grams.length == 0) {
+            return;
+        }
+        long[] keys = bandKeys(signature(grams));
+        lock.writeLock().lock();
+        try {
+            int id = passages.size();
+            passages.add(new Passage(sourceId, title, text, grams));
+            for (long key : keys) {
+                buckets.merge(key, new int[]{1, id}, MinHashIndex::append);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return passages.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 返回与 text 的二元组 Jaccard 相似度不低于 minSimilarity 的段落，candidates[0] 回填候选数。
+     */
+    public List<Match> query(String text, double minSimilarity, int[] candidates) {
+        int[] grams = bigrams(text);
+        if (grams.length == 0) {
+            return List.of();
+        }
+        long[] keys = bandKeys(signature(grams));
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet seen = new BitSet();
+            int seenCount = 0;
+            for (long key : keys) {
+                int[] bucket = buckets.get(key);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 1; i <= bucket[0]; i++) {
+                    int id = bucket[i];
+                    if (seen.get(id)) {
+                        continue;
+                    }
+                    seen.set(id);
+                    seenCount++;
+                    Passage p = passages.get(id);
+                    double sim = jaccard(grams, p.grams());
+                    if (sim >= minSimilarity) {
+                        matches.add(new Match(p, sim));
+                    }
+                }
+            }
+            if (candidates != null && candidates.length > 0) {
+                candidates[0] += seenCount;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    static int[] bigrams(String text) {
+        String clean = text.replaceAll("\\s+", " ").trim();
+        if (clean.length() < 2) {
+            return new int[0];
+        }
+        int[] grams = new int[clean.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (clean.charAt(i) << 16) | clean.charAt(i + 1);
+        }
+        Arrays.sort(grams);
+        int n = 1;
+        for (int i = 1; i < grams.length; i++) {
+            if (grams[i] != grams[n - 1]) {
+                grams[n++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    static int[] signature(int[] grams) {
+        int[] sig = new int[HASHES];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (int g : grams) {
+            for (int i = 0; i < HASHES; i++) {
+                int h = (int) ((SEED_A[i] * g + SEED_B[i]) >>> 33);
+                if (h < sig[i]) {
+                    sig[i] = h;
+                }
+            }
+        }
+        return sig;
+    }
+
+    static double jaccard(int[] a, int[] b) {
+        int i = 0, j = 0, inter = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                inter++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) inter / (a.length + b.length - inter);
+    }
+
+    private static long[] bandKeys(int[] sig) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            int h = 17;
+            for (int r = 0; r < ROWS; r++) {
+                h = h * 31 + sig[band * ROWS + r];
+            }
+            keys[band] = ((long) band << 32) | (h & 0xFFFFFFFFL);
+        }
+        return keys;
+    }
+
+    // 桶以 int[] 保存：下标0为长度，其后为段落id
+    private static int[] append(int[] bucket, int[] single) {
+        int n = bucket[0] + 1;
+        if (n >= bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[n] = single[1];
+        bucket[0] = n;
+        return bucket;
+    }
+}
@@ -0,0 +1,88 @@
+package com.evomind.api.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁多生产者单消费者环形队列。
+ * 每个槽位带序号：生产者 CAS 抢占写指针后写入元素再发布序号，消费者按序号判断槽位是否就绪。
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        int cap = requestedCapacity <= 2 ? 2 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.slots = new AtomicReferenceArray<>(cap);
+        this.sequences = new AtomicLongArray(cap);
+        for (int i = 0; i < cap; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 满时返回 false，不阻塞。
+     */
+    public boolean offer(E e) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.setPlain(index, e);
+                    sequences.setRelease(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 仅允许单个消费者线程调用。
+     */
+    public E poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.getAcquire(index) != pos + 1) {
+            return null;
+        }
+        E e = slots.getPlain(index);
+        slots.setPlain(index, null);
+        sequences.setRelease(index, pos + capacity);
+        head = pos + 1;
+        return e;
+    }
+
+    public int drain(Consumer<E> sink, int limit) {
+        int n = 0;
+        E e;
+        while (n < limit && (e = poll()) != null) {
+            sink.accept(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,379 @@
+package com.evomind.api.service;
+
+import com.evomind.api.integration.NotificationClient;
+import com.evomind.api.integration.OcrSdkClient;
+import com.evomind.api.model.OcrRecognizeResponse;
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.store.InMemoryStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 截图 OCR 异步任务：提交即返回任务 ID，固定数量的工作线程从有界优先队列取任务调用 OCR SDK，结果轮询获取，完成时推送通知。
+ * <ul>
+ *   <li>同一平台下内容哈希相同的图片直接复用缓存结果；宽高相同、感知哈希距离不超过阈值的近似截图只在同一用户内复用，
+ *   避免把别人关注列表的识别结果当成自己的</li>
+ *   <li>相同图片正在识别时，新任务挂到同一次 SDK 调用上，不重复计费</li>
+ *   <li>按套餐档位插队：排序键为提交序号减去档位×priority-lead，付费用户最多越过固定数量的任务，免费用户不会饿死</li>
+ * </ul>
+ */
+@Service
+public class OcrJobService {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    public record Job(String jobId, String userId, Status status, boolean cached, OcrRecognizeResponse result,
+                      long createdAt) {}
+
+    /**
+     * 队列已满或同步等待超时。
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(OcrJobService.class);
+    private static final Map<String, Integer> PLAN_TIERS = Map.of("BASIC", 1, "ADVANCED", 2, "CUSTOM", 3);
+    private static final String PAID = "PAID";
+
+    // 一次 SDK 调用，可能被多个任务共享
+    private static final class Task {
+        final long order;
+        final String key;
+        // 发起识别的用户，结果缓存的近似匹配只对他生效
+        final String userId;
+        final String platform;
+        // 识别后置空，任务记录保留期间不再占用图片内存
+        volatile String imageBase64;
+        final ImageFingerprint fingerprint;
+        final CompletableFuture<OcrRecognizeResponse> future = new CompletableFuture<>();
+        volatile boolean started;
+
+        Task(long order, String key, String userId, String platform, String imageBase64, ImageFingerprint fingerprint) {
+            this.order = order;
+            this.key = key;
+            this.userId = userId;
+            this.platform = platform;
+            this.imageBase64 = imageBase64;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private record Entry(String jobId, String userId, long createdAt, Task task, OcrRecognizeResponse cachedResult) {}
+
+    private record Cached(String userId, String platform, ImageFingerprint fingerprint, OcrRecognizeResponse result) {}
+
+    private final OcrSdkClient ocrSdkClient;
+    private final InMemoryStore store;
+    private final NotificationClient notificationClient;
+    private final int workers;
+    private final int queueCapacity;
+    private final int cacheEntries;
+    private final int maxDistance;
+    private final long retentionMillis;
+    private final long priorityLead;
+
+    private final Map<String, Entry> jobs = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>(64, Comparator.comparingLong(t -> t.order));
+    private final Map<String, Task> inflight = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // 结果缓存按访问顺序淘汰；近似查找按感知哈希分段建桶，桶里只放候选，命中前再核对用户、平台与距离
+    private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, List<Cached>> bands = new HashMap<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong sdkCalls = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // 本 Bean 带定时清理，fast-start 下也在启动时创建；SDK 客户端经延迟代理注入，仍到首次识别时才初始化
+    public OcrJobService(@Lazy OcrSdkClient ocrSdkClient, InMemoryStore store, NotificationClient notificationClient,
+                         @Value("${evomind.ocr.workers:4}") int workers,
+                         @Value("${evomind.ocr.queue-capacity:200}") int queueCapacity,
+                         @Value("${evomind.ocr.cache-entries:10000}") int cacheEntries,
+                         @Value("${evomind.ocr.near-duplicate-distance:6}") int maxDistance,
+                         @Value("${evomind.ocr.result-retention-ms:600000}") long retentionMillis,
+                         @Value("${evomind.ocr.priority-lead:32}") long priorityLead) {
+        this.ocrSdkClient = ocrSdkClient;
+        this.store = store;
+        this.notificationClient = notificationClient;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.cacheEntries = cacheEntries;
+        // 超过分段数减一时分桶查找可能漏掉候选
+        this.maxDistance = Math.min(maxDistance, ImageFingerprint.bands() - 1);
+        this.retentionMillis = retentionMillis;
+        this.priorityLead = priorityLead;
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::work, "ocr-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        threads.forEach(Thread::interrupt);
+    }
+
+    public Job submit(String userId, String platform, String imageBase64) {
+        submitted.incrementAndGet();
+        String jobId = "OCR" + UUID.randomUUID().toString().replace("-", "");
+        long now = System.currentTimeMillis();
+        ImageFingerprint fingerprint = ImageFingerprint.of(decode(imageBase64));
+        String key = platform + ':' + fingerprint.sha256();
+        Task task;
+        // 查缓存与登记在途任务在同一把锁内，工作线程写入缓存后才移出在途表，两者之间不会漏判
+        synchronized (inflight) {
+            OcrRecognizeResponse hit = lookup(userId, platform, fingerprint);
+            if (hit != null) {
+                Entry entry = new Entry(jobId, userId, now, null, hit);
+                jobs.put(jobId, entry);
+                return view(entry);
+            }
+            task = inflight.get(key);
+            if (task != null) {
+                joined.incrementAndGet();
+            } else {
+                if (queue.size() >= queueCapacity) {
+                    rejected.incrementAndGet();
+                    throw new BusyException("识别排队已满，请稍后重试");
+                }
+                long order = sequence.incrementAndGet() - tier(userId) * priorityLead;
+                task = new Task(order, key, userId, platform, imageBase64, fingerprint);
+                inflight.put(key, task);
+                queue.add(task);
+            }
+        }
+        Entry entry = new Entry(jobId, userId, now, task, null);
+        jobs.put(jobId, entry);
+        task.future.whenComplete((result, error) -> notificationClient.ocrFinished(userId, jobId, error == null));
+        return view(entry);
+    }
+
+    public Optional<Job> job(String jobId, String userId) {
+        Entry entry = jobs.get(jobId);
+        return entry != null && entry.userId().equals(userId) ? Optional.of(view(entry)) : Optional.empty();
+    }
+
+    /**
+     * 提交并同步等待结果，供旧版同步识别接口使用；仍走缓存、去重与有界队列。
+     */
+    public OcrRecognizeResponse recognize(String userId, String platform, String imageBase64, long timeoutMillis) {
+        Job job = submit(userId, platform, imageBase64);
+        if (job.result() != null) {
+            return job.result();
+        }
+        try {
+            return jobs.get(job.jobId()).task().future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BusyException("识别超时，请稍后在任务列表查看结果");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException("识别已中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("OCR 识别失败", e.getCause());
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        synchronized (cache) {
+            return Map.of(
+                    "submitted", submitted.get(),
+                    "exactHits", exactHits.get(),
+                    "nearHits", nearHits.get(),
+                    "joined", joined.get(),
+                    "sdkCalls", sdkCalls.get(),
+                    "rejected", rejected.get(),
+                    "queued", (long) queue.size(),
+                    "cacheEntries", (long) cache.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${evomind.ocr.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        long deadline = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(e -> e.createdAt() < deadline && (e.task() == null || e.task().future.isDone()));
+    }
+
+    /**
+     * 删除用户的任务记录和由其截图识别出的缓存结果（含按内容哈希可被他人复用的精确缓存），返回删除条数。用于账号注销清理。
+     */
+    public int dropUser(String userId) {
+        int removed = 0;
+        for (Iterator<Entry> it = jobs.values().iterator(); it.hasNext(); ) {
+            if (it.next().userId().equals(userId)) {
+                it.remove();
+                removed++;
+            }
+        }
+        synchronized (cache) {
+            for (Iterator<Cached> it = cache.values().iterator(); it.hasNext(); ) {
+                Cached c = it.next();
+                if (c.userId().equals(userId)) {
+                    unindex(c);
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            task.started = true;
+            try {
+                sdkCalls.incrementAndGet();
+                String image = task.imageBase64;
+                task.imageBase64 = null;
+                OcrRecognizeResponse result = ocrSdkClient.recognize(task.platform, image);
+                remember(task.userId, task.platform, task.fingerprint, result);
+                finish(task);
+                task.future.complete(result);
+            } catch (RuntimeException e) {
+                log.warn("ocr task {} failed: {}", task.key, e.toString());
+                finish(task);
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void finish(Task task) {
+        synchronized (inflight) {
+            inflight.remove(task.key, task);
+        }
+    }
+
+    private OcrRecognizeResponse lookup(String userId, String platform, ImageFingerprint fingerprint) {
+        synchronized (cache) {
+            Cached exact = cache.get(platform + ':' + fingerprint.sha256());
+            if (exact != null) {
+                exactHits.incrementAndGet();
+                return exact.result();
+            }
+            if (!fingerprint.hasPerceptualHash()) {
+                return null;
+            }
+            for (int b = 0; b < ImageFingerprint.bands(); b++) {
+                for (Cached c : bands.getOrDefault(fingerprint.band(b), List.of())) {
+                    if (c.userId().equals(userId) && c.platform().equals(platform)
+                            && fingerprint.distance(c.fingerprint()) <= maxDistance) {
+                        cache.get(platform + ':' + c.fingerprint().sha256());
+                        nearHits.incrementAndGet();
+                        return c.result();
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private void remember(String userId, String platform, ImageFingerprint fingerprint, OcrRecognizeResponse result) {
+        Cached entry = new Cached(userId, platform, fingerprint, result);
+        synchronized (cache) {
+            Cached old = cache.put(platform + ':' + fingerprint.sha256(), entry);
+            if (old != null) {
+                unindex(old);
+            }
+            if (fingerprint.hasPerceptualHash()) {
+                for (int b = 0; b < ImageFingerprint.bands(); b++) {
+                    bands.computeIfAbsent(fingerprint.band(b), k -> new ArrayList<>(1)).add(entry);
+                }
+            }
+            if (cache.size() > cacheEntries) {
+                Iterator<Cached> eldest = cache.values().iterator();
+                unindex(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private void unindex(Cached entry) {
+        if (!entry.fingerprint().hasPerceptualHash()) {
+            return;
+        }
+        for (int b = 0; b < ImageFingerprint.bands(); b++) {
+            long key = entry.fingerprint().band(b);
+            List<Cached> bucket = bands.get(key);
+            if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                bands.remove(key);
+            }
+        }
+    }
+
+    // 取用户已支付订单中最高的套餐档位，未付费为 0
+    private long tier(String userId) {
+        int tier = 0;
+        for (OrderItem order : store.orders(userId)) {
+            if (PAID.equals(order.status())) {
+                tier = Math.max(tier, PLAN_TIERS.getOrDefault(order.planCode(), 0));
+            }
+        }
+        return tier;
+    }
+
+    private static Job view(Entry entry) {
+        Task task = entry.task();
+        if (task == null) {
+            return new Job(entry.jobId(), entry.userId(), Status.DONE, true, entry.cachedResult(), entry.createdAt());
+        }
+        // 只判断一次是否完成，状态与结果一致，不会出现“进行中却带结果”
+        boolean started = task.started;
+        CompletableFuture<OcrRecognizeResponse> f = task.future;
+        Status status;
+        OcrRecognizeResponse result = null;
+        if (!f.isDone()) {
+            status = started ? Status.RUNNING : Status.PENDING;
+        } else if (f.isCompletedExceptionally()) {
+            status = Status.FAILED;
+        } else {
+            status = Status.DONE;
+            result = f.join();
+        }
+        return new Job(entry.jobId(), entry.userId(), status, false, result, entry.createdAt());
+    }
+
+    private static byte[] decode(String imageBase64) {
+        // 兼容 data URL 前缀与换行；不是规范 Base64 时（解码有损，不同文本可能得到相同字节）按原文计算内容哈希
+        int comma = imageBase64.startsWith("data:") ? imageBase64.indexOf(',') : -1;
+        String text = imageBase64.substring(comma + 1).replaceAll("\\s+", "");
+        try {
+            byte[] bytes = Base64.getDecoder().decode(text);
+            String unpadded = text.endsWith("==") ? text.substring(0, text.length() - 2)
+                    : text.endsWith("=") ? text.substring(0, text.length() - 1) : text;
+            if (Base64.getEncoder().withoutPadding().encodeToString(bytes).equals(unpadded)) {
+                return bytes;
+            }
+        } catch (IllegalArgumentException e) {
+            // 按原文处理
+        }
+        return imageBase64.getBytes(StandardCharsets.UTF_8);
+    }
+}
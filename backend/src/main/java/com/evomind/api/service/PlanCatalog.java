@@ -0,0 +1,33 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.PlanItem;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 套餐目录；每次替换版本号加一，接口层据此判断预序列化的响应是否需要重建。
+ */
+@Component
+public class PlanCatalog {
+
+    private volatile List<PlanItem> plans = List.of(
+            new PlanItem("BASIC", "基础套餐", "WEEK/MONTH", 20, 5, "无", List.of("信息源<=20", "无观点冲突标记", "摘要token<=1000/天")),
+            new PlanItem("ADVANCED", "进阶套餐", "WEEK/MONTH", 50, 20, "3次/周", List.of("信息源<=50", "观点冲突标记无限", "摘要token<=5000/天")),
+            new PlanItem("CUSTOM", "定制套餐", "WEEK/MONTH", -1, -1, "无限", List.of("信息源无限", "全功能无限", "按实时算力动态计费"))
+    );
+    private volatile long version = 1;
+
+    public List<PlanItem> plans() {
+        return plans;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public synchronized void replace(List<PlanItem> next) {
+        plans = List.copyOf(next);
+        version++;
+    }
+}
@@ -0,0 +1,224 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.ChallengeTask;
+import com.evomind.api.model.DiscussionContext;
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.SourceItem;
+import com.evomind.api.store.DiscussionSessionStore;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 隐私数据导出：提交时复制各集合的快照，逐条写成 JSON Lines 并流式压缩进 ZIP，
+ * 不在内存中拼装序列化结果。导出文件保留 retention-hours 后删除。
+ */
+@Service
+public class PrivacyExportService {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    public record Job(String jobId, String userId, Status status, long size, long createdAt) {}
+
+    private static final Logger log = LoggerFactory.getLogger(PrivacyExportService.class);
+
+    private final InMemoryStore store;
+    private final DiscussionSessionStore discussions;
+    private final ObjectMapper objectMapper;
+    private final Path exportDir;
+    private final Path callLogDir;
+    private final long retentionMillis;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "privacy-export");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PrivacyExportService(InMemoryStore store, DiscussionSessionStore discussions, ObjectMapper objectMapper,
+                                @Value("${evomind.data-dir:./data}") String dataDir,
+                                @Value("${evomind.privacy.export-retention-hours:24}") long retentionHours) {
+        this.store = store;
+        this.discussions = discussions;
+        this.objectMapper = objectMapper;
+        this.exportDir = Path.of(dataDir, "exports");
+        this.callLogDir = Path.of(dataDir, "ai-call-log");
+        this.retentionMillis = retentionHours * 3_600_000;
+    }
+
+    public Job submit(String userId) {
+        String jobId = "EX" + UUID.randomUUID().toString().replace("-", "");
+        Job job = new Job(jobId, userId, Status.PENDING, 0, System.currentTimeMillis());
+        jobs.put(jobId, job);
+        // 提交时即固定快照，导出期间的新写入不影响本次结果
+        Snapshot snapshot = snapshot(userId);
+        worker.execute(() -> run(job, snapshot));
+        return job;
+    }
+
+    public Optional<Job> job(String jobId, String userId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.userId().equals(userId) ? Optional.of(job) : Optional.empty();
+    }
+
+    public int dropUser(String userId) {
+        int removed = 0;
+        for (Job job : jobs.values()) {
+            if (job.userId().equals(userId) && jobs.remove(job.jobId(), job)) {
+                try {
+                    Files.deleteIfExists(file(job));
+                } catch (IOException e) {
+                    log.warn("delete export {} failed: {}", job.jobId(), e.getMessage());
+                }
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public Path file(Job job) {
+        return exportDir.resolve(job.jobId() + ".zip");
+    }
+
+    private record Snapshot(Iterator<SourceItem> sources, ChallengeTask task, Iterator<OrderItem> orders,
+                            List<DiscussionContext> discussions) {}
+
+    private Snapshot snapshot(String userId) {
+        // 任务可能排队很久才执行，提交时复制一份，不持有存储内部的任何引用
+        Iterator<SourceItem> sources = new ArrayList<>(store.getSources(userId)).iterator();
+        Iterator<OrderItem> orders = new ArrayList<>(store.orders(userId)).iterator();
+        ChallengeTask task = store.task(userId);
+        List<DiscussionContext> contexts = new ArrayList<>();
+        for (String id : discussions.discussionIds(userId)) {
+            contexts.add(discussions.context(id, userId));
+        }
+        return new Snapshot(sources, task, orders, contexts);
+    }
+
+    private void run(Job job, Snapshot snapshot) {
+        jobs.put(job.jobId(), new Job(job.jobId(), job.userId(), Status.RUNNING, 0, job.createdAt()));
+        Path target = file(job);
+        try {
+            Files.createDirectories(exportDir);
+            Path tmp = Files.createTempFile(exportDir, job.jobId(), ".part");
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(tmp))) {
+                zip.setLevel(6);
+                writeEntry(zip, "sources.jsonl", snapshot.sources());
+                writeEntry(zip, "challenge.jsonl", snapshot.task() == null
+                        ? Collections.emptyIterator() : List.of(snapshot.task()).iterator());
+                writeEntry(zip, "orders.jsonl", snapshot.orders());
+                writeEntry(zip, "discussions.jsonl", snapshot.discussions().iterator());
+                writeUsage(zip, job.userId());
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            jobs.put(job.jobId(), new Job(job.jobId(), job.userId(), Status.DONE, Files.size(target), job.createdAt()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("privacy export {} failed: {}", job.jobId(), e.toString());
+            jobs.put(job.jobId(), new Job(job.jobId(), job.userId(), Status.FAILED, 0, job.createdAt()));
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, Iterator<?> rows) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        try (JsonGenerator gen = jsonLines(zip)) {
+            boolean any = rows.hasNext();
+            while (rows.hasNext()) {
+                objectMapper.writeValue(gen, rows.next());
+            }
+            if (any) {
+                gen.writeRaw('\n');
+            }
+        }
+        zip.closeEntry();
+    }
+
+    // ai_call_log 日志按行扫描，只挑出该用户的记录
+    private void writeUsage(ZipOutputStream zip, String userId) throws IOException {
+        zip.putNextEntry(new ZipEntry("usage.jsonl"));
+        try (JsonGenerator gen = jsonLines(zip)) {
+            boolean any = false;
+            if (Files.isDirectory(callLogDir)) {
+                String prefix = userId + '\t';
+                try (Stream<Path> files = Files.list(callLogDir).sorted()) {
+                    for (Path f : (Iterable<Path>) files::iterator) {
+                        try (BufferedReader reader = Files.newBufferedReader(f, StandardCharsets.UTF_8)) {
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                if (line.startsWith(prefix)) {
+                                    objectMapper.writeValue(gen, usageRow(line.split("\t", -1)));
+                                    any = true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if (any) {
+                gen.writeRaw('\n');
+            }
+        }
+        zip.closeEntry();
+    }
+
+    private static Map<String, Object> usageRow(String[] c) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("sceneCode", c[1]);
+        row.put("modelName", c[2]);
+        row.put("tokenIn", Integer.parseInt(c[3]));
+        row.put("tokenOut", Integer.parseInt(c[4]));
+        row.put("latencyMs", Integer.parseInt(c[5]));
+        row.put("costAmount", c[6]);
+        row.put("success", "1".equals(c[7]));
+        row.put("createdAt", c[8]);
+        return row;
+    }
+
+    // 每个根对象之间以换行分隔，生成器关闭时不关闭底层 ZIP 流
+    private JsonGenerator jsonLines(OutputStream out) throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(new SerializedString("\n"));
+        return gen;
+    }
+
+    @Scheduled(fixedDelayString = "${evomind.privacy.export-cleanup-ms:600000}")
+    public void purgeExpired() {
+        long deadline = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> {
+            if (job.createdAt() > deadline) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(file(job));
+            } catch (IOException e) {
+                log.warn("delete export {} failed: {}", job.jobId(), e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
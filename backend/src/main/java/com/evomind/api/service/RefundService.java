@@ -0,0 +1,86 @@
+package com.evomind.api.service;
+
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.RefundCallbackRequest;
+import com.evomind.api.model.RefundRequest;
+import com.evomind.api.model.RefundReviewRequest;
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.model.RefundTicket.Status;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.RefundStateException;
+import com.evomind.api.store.RefundTicketStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 退款流程：提交 → 审核中 → 通过/驳回 → 已退款。审核带版本号防止多人同时处理，
+ * 支付回调不带版本号但只能从“通过”推进一次。审核队列与审核操作仅限 evomind.refund.reviewers 中的用户，
+ * 审核人取自令牌而非请求体。
+ */
+@Service
+public class RefundService {
+
+    public static final String ORDER_REFUNDED = "REFUNDED";
+
+    private static final int MAX_PAGE = 200;
+
+    private final InMemoryStore store;
+    private final RefundTicketStore tickets;
+    private final Set<String> reviewers;
+
+    public RefundService(InMemoryStore store, RefundTicketStore tickets,
+                         @Value("${evomind.refund.reviewers:}") String reviewers) {
+        this.store = store;
+        this.tickets = tickets;
+        this.reviewers = Arrays.stream(reviewers.split(",")).map(String::trim).filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isReviewer(String userId) {
+        return userId != null && reviewers.contains(userId);
+    }
+
+    public RefundTicket apply(RefundRequest req) {
+        OrderItem order = store.findOrder(req.userId(), req.orderNo())
+                .orElseThrow(() -> new RefundStateException(40401, "订单不存在"));
+        if (ORDER_REFUNDED.equals(order.status())) {
+            throw new RefundStateException(40903, "订单已退款");
+        }
+        return tickets.create(req.userId(), req.orderNo(), order.amount(), req.reason(), ClusterService.shardKey(req.userId()));
+    }
+
+    public RefundTicket review(RefundReviewRequest req, String reviewer) {
+        if (req.status() == Status.REFUNDED) {
+            throw new RefundStateException(40902, "退款完成只能由支付回调确认");
+        }
+        return tickets.transition(req.ticketNo(), req.version(), req.status(), reviewer, null);
+    }
+
+    /**
+     * 支付渠道的退款回调可能重复投递：同一退款流水号再次到达时直接返回已退款的单。
+     */
+    public RefundTicket complete(RefundCallbackRequest req) {
+        RefundTicket current = tickets.get(req.ticketNo())
+                .orElseThrow(() -> new RefundStateException(40401, "退款单不存在"));
+        if (current.status() == Status.REFUNDED && req.refundNo().equals(current.refundNo())) {
+            return current;
+        }
+        RefundTicket done = tickets.transition(req.ticketNo(), RefundTicketStore.ANY_VERSION, Status.REFUNDED, null,
+                req.refundNo());
+        store.updateOrderStatus(done.userId(), done.orderNo(), ORDER_REFUNDED);
+        return done;
+    }
+
+    public List<RefundTicket> userTickets(String userId, int limit) {
+        return tickets.byUser(userId, Math.min(limit, MAX_PAGE));
+    }
+
+    public List<RefundTicket> queue(Status status, String after, int limit) {
+        return tickets.byStatus(status, after, Math.min(limit, MAX_PAGE));
+    }
+}
@@ -0,0 +1,45 @@
+package com.evomind.api.service;
+
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.InMemoryStore.UserCollection;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+/**
+ * 把集合版本变化接到失效总线上：本地写入发布 etag:集合:用户，其他实例收到后推进各自的版本号，
+ * 条件 GET 不再对旧内容返回 304。远端失效只改版本不回调，不会再转发回来。
+ * 没有其他 Bean 注入本类，挂接放在 {@link PostConstruct} 里，fast-start 延迟初始化时也会在启动时完成。
+ */
+@Service
+public class StoreInvalidation {
+
+    static final String ETAG_PREFIX = "etag:";
+
+    private final InMemoryStore store;
+    private final InvalidationBus bus;
+
+    public StoreInvalidation(InMemoryStore store, InvalidationBus bus) {
+        this.store = store;
+        this.bus = bus;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 预热的合成用户只存在于本实例，不广播
+        store.onChange((collection, userId) -> {
+            if (!WarmupService.SYNTHETIC_USER.equals(userId)) {
+                bus.publish(key(collection, userId));
+            }
+        });
+        bus.subscribe(ETAG_PREFIX, (key, version) -> {
+            int colon = key.indexOf(':', ETAG_PREFIX.length());
+            if (colon > 0) {
+                store.invalidate(UserCollection.valueOf(key.substring(ETAG_PREFIX.length(), colon)), key.substring(colon + 1));
+            }
+        });
+    }
+
+    static String key(UserCollection collection, String userId) {
+        return ETAG_PREFIX + collection.name() + ':' + userId;
+    }
+}
@@ -0,0 +1,174 @@
+package com.evomind.api.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮：每层 64 个槽，槽内为侵入式双向链表，插入与取消均为 O(1)。
+ * 由调用方按 tick 推进（advance），到期回调提交到外部线程池执行，不占用推进线程。
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+
+    public final class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private Timeout prev;
+        private Timeout next;
+        private Timeout[] bucketHead;
+        private int bucketIndex = -1;
+
+        private Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public boolean cancel() {
+            return TimingWheel.this.cancel(this);
+        }
+
+        public long deadlineMillis() {
+            return deadlineTick * tickMillis;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timeout[][] wheels;
+    private final Executor executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+    private int pending;
+
+    public TimingWheel(long tickMillis, int levels, long startMillis, Executor executor) {
+        this.tickMillis = tickMillis;
+        this.wheels = new Timeout[levels][SLOTS];
+        this.executor = executor;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        lock.lock();
+        try {
+            Timeout t = new Timeout(Math.max(deadlineMillis / tickMillis, currentTick + 1), task);
+            place(t);
+            pending++;
+            return t;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进到 nowMillis，返回本次到期的定时器数量。
+     */
+    public int advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        int fired = 0;
+        lock.lock();
+        try {
+            while (currentTick < target) {
+                currentTick++;
+                cascade(currentTick);
+                Timeout[] level0 = wheels[0];
+                int slot = (int) (currentTick & MASK);
+                Timeout t = level0[slot];
+                level0[slot] = null;
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.prev = t.next = null;
+                    t.bucketHead = null;
+                    t.bucketIndex = -1;
+                    pending--;
+                    fired++;
+                    executor.execute(t.task);
+                    t = next;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return fired;
+    }
+
+    private boolean cancel(Timeout t) {
+        lock.lock();
+        try {
+            if (t.bucketHead == null) {
+                return false;
+            }
+            unlink(t);
+            pending--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 低层转完一圈时，把上一层当前槽内的定时器重新分配到更低层
+    private void cascade(long tick) {
+        for (int level = 1; level < wheels.length; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((tick >>> (SLOT_BITS * level)) & MASK);
+            Timeout t = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (t != null) {
+                Timeout next = t.next;
+                t.prev = t.next = null;
+                place(t);
+                t = next;
+            }
+        }
+    }
+
+    private void place(Timeout t) {
+        long delta = t.deadlineTick - currentTick;
+        int level = 0;
+        while (level < wheels.length - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        long tick = t.deadlineTick;
+        long horizon = 1L << (SLOT_BITS * (level + 1));
+        if (delta >= horizon) {
+            // 超出最高层范围：放到最高层最后被级联的槽，级联时会重新计算位置
+            tick = currentTick + horizon - (1L << (SLOT_BITS * level));
+        }
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & MASK);
+        Timeout[] bucket = wheels[level];
+        Timeout head = bucket[slot];
+        t.next = head;
+        if (head != null) {
+            head.prev = t;
+        }
+        bucket[slot] = t;
+        t.bucketHead = bucket;
+        t.bucketIndex = slot;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            t.bucketHead[t.bucketIndex] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = t.next = null;
+        t.bucketHead = null;
+        t.bucketIndex = -1;
+    }
+}
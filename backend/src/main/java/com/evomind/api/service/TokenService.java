@@ -0,0 +1,244 @@
+package com.evomind.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 无状态访问令牌：载荷与 HMAC-SHA256 签名（截断为 128 位）拼成紧凑串，校验只做一次 HMAC，不查存储。
+ * 载荷带密钥编号，轮换时新令牌用当前密钥签发，旧密钥保留到其签发的令牌全部过期。
+ * Mac 实例按线程缓存，避免每次请求重新 getInstance/init。
+ */
+@Service
+public class TokenService {
+
+    public enum Type { ACCESS, REFRESH }
+
+    public record Claims(String userId, Type type, long expiresAt, long nonce) {}
+
+    public record TokenPair(String userId, String accessToken, String refreshToken, long accessExpiresAt) {}
+
+    public static class InvalidTokenException extends RuntimeException {
+        public InvalidTokenException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SPENT_PREFIX = "refresh-spent:";
+    private static final byte FORMAT = 1;
+    private static final int SIG_BYTES = 16;
+    // 格式(1) + 密钥编号(1) + 类型(1) + 过期秒(8) + 随机数(8)
+    private static final int HEADER_BYTES = 19;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+    private final int activeKid;
+    private final long accessTtlMillis;
+    private final long refreshTtlMillis;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac[]> macs = ThreadLocal.withInitial(() -> new Mac[256]);
+    // 已使用/已注销的刷新令牌，按过期时间清理；多实例部署时经失效总线同步给其他实例
+    private final Map<Long, Long> spentRefresh = new ConcurrentHashMap<>();
+    private final InvalidationBus bus;
+
+    @Autowired
+    public TokenService(@Value("${evomind.auth.keys:}") String keys,
+                        @Value("${evomind.auth.active-kid:1}") int activeKid,
+                        @Value("${evomind.auth.access-ttl-minutes:120}") long accessTtlMinutes,
+                        @Value("${evomind.auth.refresh-ttl-days:30}") long refreshTtlDays,
+                        InvalidationBus bus) {
+        this(parseKeys(keys), activeKid, accessTtlMinutes * 60_000, refreshTtlDays * 86_400_000L, System::currentTimeMillis, bus);
+    }
+
+    public TokenService(byte[][] keys, int activeKid, long accessTtlMillis, long refreshTtlMillis, LongSupplier clock) {
+        this(keys, activeKid, accessTtlMillis, refreshTtlMillis, clock, null);
+    }
+
+    /**
+     * keys 的下标即密钥编号，未使用的编号为 null。
+     */
+    public TokenService(byte[][] keys, int activeKid, long accessTtlMillis, long refreshTtlMillis, LongSupplier clock,
+                        InvalidationBus bus) {
+        if (keys.length == 0) {
+            // 未配置密钥时生成进程内随机密钥，重启后旧令牌全部失效
+            log.warn("evomind.auth.keys not configured, using an ephemeral signing key");
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys = new byte[activeKid + 1][];
+            keys[activeKid] = secret;
+        }
+        for (int kid = 0; kid < keys.length; kid++) {
+            if (keys[kid] != null) {
+                if (keys[kid].length < 32) {
+                    throw new IllegalStateException("签名密钥至少32字节，kid=" + kid);
+                }
+                this.keys[kid] = new SecretKeySpec(keys[kid], ALGORITHM);
+            }
+        }
+        if (activeKid < 0 || activeKid > 255 || this.keys[activeKid] == null) {
+            throw new IllegalStateException("当前签名密钥未配置，kid=" + activeKid);
+        }
+        this.activeKid = activeKid;
+        this.accessTtlMillis = accessTtlMillis;
+        this.refreshTtlMillis = refreshTtlMillis;
+        this.clock = clock;
+        this.bus = bus;
+        if (bus != null) {
+            bus.subscribe(SPENT_PREFIX, (key, version) -> onRemoteSpent(key));
+        }
+    }
+
+    public TokenPair issue(String userId) {
+        long now = clock.getAsLong();
+        long accessExpiresAt = now + accessTtlMillis;
+        return new TokenPair(userId,
+                sign(userId, Type.ACCESS, accessExpiresAt, 0),
+                sign(userId, Type.REFRESH, now + refreshTtlMillis, random.nextLong()),
+                accessExpiresAt);
+    }
+
+    /**
+     * 校验签名、类型与有效期，失败返回 null；热路径上只有一次解码和一次 HMAC。
+     */
+    public Claims verify(String token, Type expected) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payload;
+        byte[] sig;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            sig = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length <= HEADER_BYTES || payload[0] != FORMAT || sig.length != SIG_BYTES) {
+            return null;
+        }
+        int kid = payload[1] & 0xFF;
+        if (keys[kid] == null || payload[2] != expected.ordinal()) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(Arrays.copyOf(mac(kid).doFinal(payload), SIG_BYTES), sig)) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(payload, 3, 16);
+        long expiresAt = buf.getLong() * 1000;
+        long nonce = buf.getLong();
+        if (expiresAt <= clock.getAsLong()) {
+            return null;
+        }
+        String userId = new String(payload, HEADER_BYTES, payload.length - HEADER_BYTES, StandardCharsets.UTF_8);
+        return new Claims(userId, expected, expiresAt, nonce);
+    }
+
+    /**
+     * 用刷新令牌换一对新令牌；刷新令牌一次性使用，重放直接拒绝。
+     */
+    public TokenPair refresh(String refreshToken) {
+        Claims claims = verify(refreshToken, Type.REFRESH);
+        if (claims == null) {
+            throw new InvalidTokenException("刷新令牌无效或已过期");
+        }
+        if (!markSpent(claims)) {
+            throw new InvalidTokenException("刷新令牌已使用");
+        }
+        return issue(claims.userId());
+    }
+
+    public void revoke(String refreshToken) {
+        Claims claims = verify(refreshToken, Type.REFRESH);
+        if (claims != null) {
+            markSpent(claims);
+        }
+    }
+
+    private boolean markSpent(Claims claims) {
+        if (spentRefresh.putIfAbsent(claims.nonce(), claims.expiresAt()) != null) {
+            return false;
+        }
+        if (bus != null) {
+            bus.publish(SPENT_PREFIX + claims.nonce() + ':' + claims.expiresAt());
+        }
+        return true;
+    }
+
+    private void onRemoteSpent(String key) {
+        int colon = key.lastIndexOf(':');
+        spentRefresh.putIfAbsent(Long.parseLong(key.substring(SPENT_PREFIX.length(), colon)),
+                Long.parseLong(key.substring(colon + 1)));
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public int purgeSpent() {
+        long now = clock.getAsLong();
+        int before = spentRefresh.size();
+        spentRefresh.values().removeIf(expiresAt -> expiresAt <= now);
+        return before - spentRefresh.size();
+    }
+
+    private String sign(String userId, Type type, long expiresAt, long nonce) {
+        byte[] user = userId.getBytes(StandardCharsets.UTF_8);
+        // 过期时间按秒向上取整，保证不早于声明的有效期
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + user.length)
+                .put(FORMAT).put((byte) activeKid).put((byte) type.ordinal())
+                .putLong((expiresAt + 999) / 1000).putLong(nonce).put(user);
+        byte[] payload = buf.array();
+        byte[] sig = Arrays.copyOf(mac(activeKid).doFinal(payload), SIG_BYTES);
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sig);
+    }
+
+    private Mac mac(int kid) {
+        Mac[] cache = macs.get();
+        Mac mac = cache[kid];
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keys[kid]);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            cache[kid] = mac;
+        }
+        return mac;
+    }
+
+    /**
+     * 格式为 kid:secret，多个密钥以逗号分隔，例如 1:old-secret,2:new-secret。
+     */
+    static byte[][] parseKeys(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return new byte[0][];
+        }
+        byte[][] keys = new byte[256][];
+        for (String entry : spec.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("evomind.auth.keys 格式应为 kid:secret");
+            }
+            keys[Integer.parseInt(entry.substring(0, colon).trim())] = entry.substring(colon + 1).trim().getBytes(StandardCharsets.UTF_8);
+        }
+        return keys;
+    }
+}
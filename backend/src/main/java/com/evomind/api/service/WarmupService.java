@@ -0,0 +1,233 @@
+package com.evomind.api.service;
+
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动预热：应用就绪后用合成用户经本机回环把热点路径（控制器分发、JSON 序列化、存储读写、计费）反复请求，
+ * 直到 JIT 在一个窗口内几乎不再编译（或到达时间上限），再检查下游依赖，全部通过后才报告就绪。
+ * 合成请求带本地标记，集群模式下始终在本实例处理、不复制也不广播失效；结束后清掉合成用户的数据。
+ * 预热请求失败时记为未通过的检查项，每次依赖检查后重试，成功前不报告就绪。
+ */
+@Service
+public class WarmupService {
+
+    public enum Phase { WARMING, CHECKING, READY }
+
+    public record Status(Phase phase, int rounds, long elapsedMs, long compileMs, List<String> failedChecks) {
+        public boolean ready() {
+            return phase == Phase.READY;
+        }
+    }
+
+    static final String SYNTHETIC_USER = "__warmup__";
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    private final InMemoryStore store;
+    private final TokenService tokens;
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+    private final Path dataDir;
+    private final boolean enabled;
+    private final long maxMillis;
+    private final int minRounds;
+    private final int settleWindow;
+    private final double settleCompileRatio;
+    private final HttpClient http;
+    private volatile Status status = new Status(Phase.WARMING, 0, 0, 0, List.of());
+    private volatile int port = -1;
+
+    public WarmupService(InMemoryStore store, TokenService tokens, ClusterService cluster, ObjectMapper objectMapper,
+                         @Value("${evomind.data-dir:./data}") String dataDir,
+                         @Value("${evomind.warmup.enabled:true}") boolean enabled,
+                         @Value("${evomind.warmup.max-ms:60000}") long maxMillis,
+                         @Value("${evomind.warmup.min-rounds:200}") int minRounds,
+                         @Value("${evomind.warmup.settle-window:50}") int settleWindow,
+                         @Value("${evomind.warmup.settle-compile-ratio:0.05}") double settleCompileRatio) {
+        this.store = store;
+        this.tokens = tokens;
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+        this.dataDir = Path.of(dataDir);
+        this.enabled = enabled;
+        this.maxMillis = maxMillis;
+        this.minRounds = minRounds;
+        this.settleWindow = Math.max(1, settleWindow);
+        this.settleCompileRatio = settleCompileRatio;
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2)).build();
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    @EventListener
+    public void onWebServer(WebServerInitializedEvent event) {
+        port = event.getWebServer().getPort();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long startedAt = System.currentTimeMillis();
+        long compileAtStart = compileMillis();
+        try {
+            String warmupError = enabled && port > 0 ? warmup(startedAt, compileAtStart) : null;
+            while (true) {
+                List<String> failed = checkDependencies();
+                // 预热失败不算就绪：实例能处理请求，但热点路径仍是冷的，且失败往往意味着回环或存储本身有问题
+                if (warmupError != null) {
+                    failed.add(0, "warmup: " + warmupError);
+                }
+                int rounds = status.rounds();
+                long elapsed = System.currentTimeMillis() - startedAt;
+                long compiled = compileMillis() - compileAtStart;
+                if (failed.isEmpty()) {
+                    status = new Status(Phase.READY, rounds, elapsed, compiled, List.of());
+                    log.info("预热完成：{} 轮，耗时 {} ms，期间 JIT 编译 {} ms", rounds, elapsed, compiled);
+                    return;
+                }
+                status = new Status(Phase.CHECKING, rounds, elapsed, compiled, failed);
+                log.warn("就绪检查未通过: {}", failed);
+                Thread.sleep(1000);
+                if (warmupError != null) {
+                    warmupError = warmup(startedAt, compileAtStart);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 反复执行合成请求直到 JIT 趋稳或到达时间上限，返回失败原因，成功时返回 null。轮数接着上一次预热累计。
+     */
+    private String warmup(long startedAt, long compileAtStart) throws InterruptedException {
+        long began = System.currentTimeMillis();
+        int rounds = status.rounds();
+        try {
+            String token = tokens.issue(SYNTHETIC_USER).accessToken();
+            long windowCompiled = compileMillis();
+            long windowStart = began;
+            int windowRounds = 0;
+            while (System.currentTimeMillis() - began < maxMillis) {
+                exercise(token);
+                rounds++;
+                windowRounds++;
+                if (windowRounds % settleWindow == 0) {
+                    long compiled = compileMillis();
+                    long now = System.currentTimeMillis();
+                    // 编译线程与请求并行，窗口内编译耗时占墙钟时间的比例足够低即视为热点已编译完
+                    boolean settled = windowRounds >= minRounds
+                            && compiled - windowCompiled <= (now - windowStart) * settleCompileRatio;
+                    log.debug("预热第 {} 轮：窗口耗时 {} ms，编译 {} ms", rounds, now - windowStart, compiled - windowCompiled);
+                    windowCompiled = compiled;
+                    windowStart = now;
+                    status = new Status(Phase.WARMING, rounds, now - startedAt, compiled - compileAtStart, List.of());
+                    if (settled) {
+                        break;
+                    }
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            log.warn("预热请求失败: {}", e.getMessage());
+            status = new Status(Phase.WARMING, rounds, System.currentTimeMillis() - startedAt,
+                    compileMillis() - compileAtStart, List.of());
+            return e.getMessage();
+        } finally {
+            store.dropUser(SYNTHETIC_USER);
+        }
+    }
+
+    /**
+     * 一轮合成请求，覆盖公开只读接口、计费计算和信息源的增删查。
+     */
+    private void exercise(String token) throws IOException, InterruptedException {
+        String user = "userId=" + SYNTHETIC_USER;
+        call(token, "GET", "/api/v1/health", null);
+        call(token, "GET", "/api/v1/subscription/plans", null);
+        call(token, "POST", "/api/v1/subscription/cost-estimate",
+                "{\"sourceCount\":12,\"conflictCheckCount\":30,\"summaryTokens\":200000,\"discussionRounds\":20,\"agentTrainCount\":1}");
+        call(token, "GET", "/api/v1/onboarding/state?" + user, null);
+        byte[] added = call(token, "POST", "/api/v1/sources/manual", "{\"userId\":\"" + SYNTHETIC_USER
+                + "\",\"platform\":\"知乎\",\"nickname\":\"预热\",\"homepage\":\"https://example.com\"}");
+        String id = objectMapper.readTree(added).path("data").path("id").asText();
+        call(token, "GET", "/api/v1/sources?" + user, null);
+        call(token, "DELETE", "/api/v1/sources/" + id + "?" + user, null);
+    }
+
+    private byte[] call(String token, String method, String path, String body) throws IOException, InterruptedException {
+        // 本地标记让合成请求留在本实例：预热的是自己的过滤器链与存储，也不会把合成用户写到其他节点
+        HttpRequest request = cluster.signLocal(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException(method + " " + path + " 返回 " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * 返回未通过的检查项：数据目录必须可写；集群对端不可达只记日志，请求可由副本兜底。
+     */
+    private List<String> checkDependencies() {
+        List<String> failed = new ArrayList<>();
+        try {
+            Files.createDirectories(dataDir);
+            Files.delete(Files.createTempFile(dataDir, "ready", ".tmp"));
+        } catch (IOException e) {
+            failed.add("data-dir: " + e.getMessage());
+        }
+        if (cluster.enabled()) {
+            for (String node : cluster.members()) {
+                if (node.equals(cluster.self())) {
+                    continue;
+                }
+                try {
+                    HttpRequest ping = HttpRequest.newBuilder(URI.create(node + "/api/v1/health")).timeout(cluster.timeout()).build();
+                    cluster.send(ping);
+                } catch (IOException e) {
+                    log.warn("集群节点 {} 暂不可达: {}", node, e.getMessage());
+                }
+            }
+        }
+        return failed;
+    }
+
+    private static long compileMillis() {
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        return jit != null && jit.isCompilationTimeMonitoringSupported() ? jit.getTotalCompilationTime() : 0;
+    }
+}
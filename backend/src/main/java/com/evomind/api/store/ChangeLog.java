@@ -0,0 +1,124 @@
+package com.evomind.api.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个用户的变更日志：只追加（版本, 实体类型, 实体 ID, 是否删除），不存实体内容，同步时按当前状态解析。
+ * 版本在锁内取号，日志内严格递增。
+ * <p>
+ * 写满时先压缩：同一实体只保留最新一条；压缩后仍超过容量的 3/4，则丢弃最旧的条目直到剩一半，
+ * 并把 floor 抬到最后丢弃的版本。since 低于 floor（或高于当前版本，即来自别的进程）的客户端只能全量同步。
+ */
+public final class ChangeLog {
+
+    public enum Kind { SOURCE, ORDER, TASK }
+
+    public record Entry(long version, Kind kind, String id, boolean deleted) {}
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int capacity;
+    private long[] versions;
+    private byte[] kinds;
+    private String[] ids;
+    private int size;
+    private long floor;
+    private long last;
+
+    ChangeLog(int capacity, long floor) {
+        this.capacity = capacity;
+        this.versions = new long[Math.min(capacity, 8)];
+        this.kinds = new byte[versions.length];
+        this.ids = new String[versions.length];
+        this.floor = floor;
+        this.last = floor;
+    }
+
+    synchronized long append(LongSupplier clock, Kind kind, String id, boolean deleted) {
+        if (size == capacity) {
+            compact();
+        } else if (size == versions.length) {
+            int grown = Math.min(capacity, size * 2);
+            versions = Arrays.copyOf(versions, grown);
+            kinds = Arrays.copyOf(kinds, grown);
+            ids = Arrays.copyOf(ids, grown);
+        }
+        long version = clock.getAsLong();
+        versions[size] = version;
+        kinds[size] = (byte) (kind.ordinal() << 1 | (deleted ? 1 : 0));
+        ids[size] = id;
+        size++;
+        last = version;
+        return version;
+    }
+
+    /**
+     * 丢弃全部条目，此前的版本一律需要全量同步。用于注销、迁移等整体替换用户状态的场景。
+     */
+    synchronized void reset(long version) {
+        size = 0;
+        Arrays.fill(ids, null);
+        floor = version;
+        last = version;
+    }
+
+    synchronized long version() {
+        return last;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 版本大于 since 的条目，按版本升序；无法从日志补齐时返回 null。
+     */
+    synchronized List<Entry> since(long since) {
+        if (since < floor || since > last) {
+            return null;
+        }
+        int from = Arrays.binarySearch(versions, 0, size, since);
+        from = from < 0 ? -from - 1 : from + 1;
+        List<Entry> out = new ArrayList<>(size - from);
+        for (int i = from; i < size; i++) {
+            out.add(new Entry(versions[i], KINDS[kinds[i] >> 1], ids[i], (kinds[i] & 1) != 0));
+        }
+        return out;
+    }
+
+    private void compact() {
+        // 从新到旧扫描，同一实体只留第一次遇到的（即最新的）条目
+        Set<String> seen = new HashSet<>();
+        int kept = size;
+        boolean[] keep = new boolean[size];
+        for (int i = size - 1; i >= 0; i--) {
+            keep[i] = seen.add((kinds[i] >> 1) + ":" + ids[i]);
+            if (!keep[i]) {
+                kept--;
+            }
+        }
+        int drop = kept > capacity * 3 / 4 ? kept - capacity / 2 : 0;
+        int w = 0;
+        for (int i = 0; i < size; i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            if (drop > 0) {
+                floor = versions[i];
+                drop--;
+                continue;
+            }
+            versions[w] = versions[i];
+            kinds[w] = kinds[i];
+            ids[w] = ids[i];
+            w++;
+        }
+        Arrays.fill(ids, w, size, null);
+        size = w;
+    }
+}
@@ -0,0 +1,10 @@
+package com.evomind.api.store;
+
+/**
+ * 讨论不存在或属于其他用户；两种情况对外不作区分。
+ */
+public class DiscussionAccessException extends RuntimeException {
+    public DiscussionAccessException(String discussionId) {
+        super("讨论不存在：" + discussionId);
+    }
+}
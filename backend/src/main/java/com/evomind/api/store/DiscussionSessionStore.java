@@ -0,0 +1,378 @@
+package com.evomind.api.store;
+
+import com.evomind.api.model.DiscussionContext;
+import com.evomind.api.model.DiscussionContext.Turn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 讨论会话：最近若干轮保存在定长环形缓冲区，更早的轮次压缩进滚动摘要，
+ * 保证拼装给模型的上下文不超过 token 预算；空闲会话下沉到压缩冷存储，冷存储按保留期过期、按条数封顶。
+ * 会话只能由出题时显式打开，且必须记录归属用户；回复未打开或已过期的讨论一律视为不存在。
+ */
+@Component
+public class DiscussionSessionStore {
+
+    private final Map<String, Session> hot = new ConcurrentHashMap<>();
+    private record Cold(String userId, byte[] data, long storedAt) {}
+
+    private final Map<String, Cold> cold = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byUser = new ConcurrentHashMap<>();
+    private final int ringSize;
+    private final int tokenBudget;
+    private final long idleMillis;
+    private final long coldTtlMillis;
+    private final int coldMaxSessions;
+    private final LongSupplier clock;
+
+    @Autowired
+    public DiscussionSessionStore(@Value("${evomind.discussion.recent-turns:8}") int ringSize,
+                                  @Value("${evomind.discussion.token-budget:1200}") int tokenBudget,
+                                  @Value("${evomind.discussion.idle-seconds:1800}") long idleSeconds,
+                                  @Value("${evomind.discussion.cold-ttl-hours:72}") long coldTtlHours,
+                                  @Value("${evomind.discussion.cold-max-sessions:200000}") int coldMaxSessions) {
+        this(ringSize, tokenBudget, idleSeconds * 1000, coldTtlHours * 3_600_000, coldMaxSessions, System::currentTimeMillis);
+    }
+
+    public DiscussionSessionStore(int ringSize, int tokenBudget, long idleMillis, LongSupplier clock) {
+        this(ringSize, tokenBudget, idleMillis, 72 * 3_600_000L, 200_000, clock);
+    }
+
+    public DiscussionSessionStore(int ringSize, int tokenBudget, long idleMillis, long coldTtlMillis, int coldMaxSessions,
+                                  LongSupplier clock) {
+        this.ringSize = ringSize;
+        this.tokenBudget = tokenBudget;
+        this.idleMillis = idleMillis;
+        this.coldTtlMillis = coldTtlMillis;
+        this.coldMaxSessions = coldMaxSessions;
+        this.clock = clock;
+    }
+
+    public void open(String discussionId, String userId, String question) {
+        Objects.requireNonNull(userId, "userId");
+        hot.put(discussionId, new Session(userId, question, ringSize, clock.getAsLong()));
+        cold.remove(discussionId);
+        index(userId, discussionId);
+    }
+
+    public void openIfAbsent(String discussionId, String userId, String question) {
+        Objects.requireNonNull(userId, "userId");
+        if (!hot.containsKey(discussionId) && !cold.containsKey(discussionId)) {
+            hot.putIfAbsent(discussionId, new Session(userId, question, ringSize, clock.getAsLong()));
+            index(userId, discussionId);
+        }
+    }
+
+    /**
+     * 追加一轮并返回追加后的上下文；上下文只由摘要和环形缓冲区组成，拼装代价与讨论长度无关。
+     */
+    public DiscussionContext append(String discussionId, String userId, String role, String text) {
+        while (true) {
+            Session s = session(discussionId, userId);
+            synchronized (s) {
+                if (!isCurrent(discussionId, s)) {
+                    continue;
+                }
+                s.lastAccess = clock.getAsLong();
+                Turn evicted = s.push(new Turn(role, text));
+                if (evicted != null) {
+                    s.fold(evicted);
+                }
+                s.fitBudget(tokenBudget);
+                return s.context();
+            }
+        }
+    }
+
+    public DiscussionContext context(String discussionId, String userId) {
+        while (true) {
+            Session s = session(discussionId, userId);
+            synchronized (s) {
+                if (!isCurrent(discussionId, s)) {
+                    continue;
+                }
+                s.lastAccess = clock.getAsLong();
+                return s.context();
+            }
+        }
+    }
+
+    public DiscussionContext close(String discussionId, String userId) {
+        DiscussionContext ctx = context(discussionId, userId);
+        hot.remove(discussionId);
+        cold.remove(discussionId);
+        Set<String> ids = byUser.get(userId);
+        if (ids != null) {
+            ids.remove(discussionId);
+        }
+        return ctx;
+    }
+
+    public Set<String> discussionIds(String userId) {
+        Set<String> ids = byUser.get(userId);
+        return ids == null ? Set.of() : Set.copyOf(ids);
+    }
+
+    public int dropUser(String userId) {
+        Set<String> ids = byUser.remove(userId);
+        if (ids == null) {
+            return 0;
+        }
+        for (String id : ids) {
+            hot.remove(id);
+            cold.remove(id);
+        }
+        return ids.size();
+    }
+
+    /**
+     * 将空闲超过阈值的会话压缩后移入冷存储，再清理冷存储中过期或超出条数上限（先丢最早下沉的）的会话；返回迁移数量。
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        long deadline = now - idleMillis;
+        int moved = 0;
+        for (Map.Entry<String, Session> e : hot.entrySet()) {
+            Session s = e.getValue();
+            synchronized (s) {
+                if (s.lastAccess > deadline) {
+                    continue;
+                }
+                cold.put(e.getKey(), new Cold(s.userId, s.serialize(), now));
+                hot.remove(e.getKey(), s);
+            }
+            moved++;
+        }
+        long expiry = now - coldTtlMillis;
+        for (Map.Entry<String, Cold> e : cold.entrySet()) {
+            if (e.getValue().storedAt() <= expiry) {
+                dropCold(e.getKey(), e.getValue());
+            }
+        }
+        int excess = cold.size() - coldMaxSessions;
+        if (excess > 0) {
+            List<Map.Entry<String, Cold>> oldest = new ArrayList<>(cold.entrySet());
+            oldest.sort(Comparator.comparingLong(e -> e.getValue().storedAt()));
+            for (int i = 0; i < excess && i < oldest.size(); i++) {
+                dropCold(oldest.get(i).getKey(), oldest.get(i).getValue());
+            }
+        }
+        return moved;
+    }
+
+    private void dropCold(String discussionId, Cold entry) {
+        if (cold.remove(discussionId, entry)) {
+            Set<String> ids = byUser.get(entry.userId());
+            if (ids != null) {
+                ids.remove(discussionId);
+            }
+        }
+    }
+
+    public int hotCount() {
+        return hot.size();
+    }
+
+    public int coldCount() {
+        return cold.size();
+    }
+
+    public static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0, other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x2E80) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 取会话（冷存储中的先恢复）；不存在或属于其他用户时同样拒绝，不区分两种情况。
+     */
+    private Session session(String discussionId, String userId) {
+        Session s = hot.get(discussionId);
+        if (s == null) {
+            s = hot.computeIfAbsent(discussionId, id -> {
+                Cold c = cold.get(id);
+                // 先校验归属再恢复，别人的 id 不会把会话拉回热区
+                if (c == null || !c.userId().equals(userId) || !cold.remove(id, c)) {
+                    return null;
+                }
+                return Session.deserialize(c.data(), ringSize, clock.getAsLong());
+            });
+        }
+        if (s == null || !s.userId.equals(userId)) {
+            throw new DiscussionAccessException(discussionId);
+        }
+        return s;
+    }
+
+    // evictIdle 可能在取到会话与加锁之间把它移进冷存储，此时的改动会随旧对象丢失，调用方需重新取
+    private boolean isCurrent(String discussionId, Session s) {
+        return hot.get(discussionId) == s;
+    }
+
+    private void index(String userId, String discussionId) {
+        if (userId != null) {
+            byUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(discussionId);
+        }
+    }
+
+    private static final class Session {
+        private final String userId;
+        private final String question;
+        private final Turn[] ring;
+        private int head;
+        private int count;
+        private int ringTokens;
+        // 摘要按行保存，每行对应一轮被移出缓冲区的对话
+        private final Deque<String> summaryLines = new ArrayDeque<>();
+        private int summaryTokens;
+        private long lastAccess;
+
+        Session(String userId, String question, int ringSize, long now) {
+            this.userId = userId;
+            this.question = question;
+            this.ring = new Turn[ringSize];
+            this.lastAccess = now;
+        }
+
+        Turn push(Turn turn) {
+            Turn evicted = null;
+            int slot = (head + count) % ring.length;
+            if (count == ring.length) {
+                evicted = ring[head];
+                ringTokens -= estimateTokens(evicted.text());
+                head = (head + 1) % ring.length;
+            } else {
+                count++;
+            }
+            ring[slot] = turn;
+            ringTokens += estimateTokens(turn.text());
+            return evicted;
+        }
+
+        void fold(Turn turn) {
+            String line = ("user".equals(turn.role()) ? "用户：" : "AI：") + firstSentence(turn.text(), 40);
+            summaryLines.addLast(line);
+            summaryTokens += estimateTokens(line);
+        }
+
+        void fitBudget(int budget) {
+            int fixed = estimateTokens(question);
+            // 先丢最旧的摘要行，仍超预算时再丢最旧的近期轮次，至少保留最新一轮
+            while (fixed + summaryTokens + ringTokens > budget) {
+                if (!summaryLines.isEmpty()) {
+                    summaryTokens -= estimateTokens(summaryLines.removeFirst());
+                } else if (count > 1) {
+                    Turn oldest = ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                    ringTokens -= estimateTokens(oldest.text());
+                } else {
+                    break;
+                }
+            }
+        }
+
+        DiscussionContext context() {
+            Turn[] recent = new Turn[count];
+            for (int i = 0; i < count; i++) {
+                recent[i] = ring[(head + i) % ring.length];
+            }
+            return new DiscussionContext(question, String.join("\n", summaryLines), recent,
+                    estimateTokens(question) + summaryTokens + ringTokens);
+        }
+
+        byte[] serialize() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                writeString(out, userId);
+                writeString(out, question);
+                out.writeInt(summaryLines.size());
+                for (String line : summaryLines) {
+                    writeString(out, line);
+                }
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    Turn t = ring[(head + i) % ring.length];
+                    writeString(out, t.role());
+                    writeString(out, t.text());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Session deserialize(byte[] data, int ringSize, long now) {
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+                Session s = new Session(readString(in), readString(in), ringSize, now);
+                int lines = in.readInt();
+                for (int i = 0; i < lines; i++) {
+                    String line = readString(in);
+                    s.summaryLines.addLast(line);
+                    s.summaryTokens += estimateTokens(line);
+                }
+                int turns = in.readInt();
+                for (int i = 0; i < turns; i++) {
+                    Turn evicted = s.push(new Turn(readString(in), readString(in)));
+                    if (evicted != null) {
+                        s.fold(evicted);
+                    }
+                }
+                return s;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static String firstSentence(String text, int maxChars) {
+            int end = text.length();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '。' || c == '！' || c == '？' || c == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            end = Math.min(end, maxChars);
+            return end < text.length() ? text.substring(0, end) + "…" : text;
+        }
+    }
+}
@@ -1,35 +1,151 @@
 package com.evomind.api.store;
 
 import com.evomind.api.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 @Component
 public class InMemoryStore {
-    private final Map<String, Boolean> onboardingDone = new ConcurrentHashMap<>();
-    private final Map<String, List<SourceItem>> userSources = new ConcurrentHashMap<>();
-    private final Map<String, ChallengeTask> userTask = new ConcurrentHashMap<>();
-    private final Map<String, List<OrderItem>> userOrders = new ConcurrentHashMap<>();
+
+    /**
+     * 按用户维护版本号的数据集合，任何可见变化都会让对应版本号加一。
+     */
+    public enum UserCollection { SOURCES, ORDERS, TASK }
+
+    // 按用户的状态都存成以稠密编号为下标的列，不再每个用户各占一组哈希表节点
+    private final UserRegistry users;
+    private final UserColumns.Bits onboardingDone = new UserColumns.Bits();
+    // 信息源与订单的行在堆外，用户列里只存句柄数组，写时复制后原子替换
+    private final ItemRows rows;
+    private final UserColumns.Refs<long[]> userSources = new UserColumns.Refs<>();
+    private final UserColumns.Refs<ChallengeTask> userTask = new UserColumns.Refs<>();
+    private final UserColumns.Refs<long[]> userOrders = new UserColumns.Refs<>();
+    private final UserColumns.Ints versions = new UserColumns.Ints(UserCollection.values().length);
+    // 最后一次变更的时间，分片迁移和副本同步按它判断快照新旧；0 表示本实例不持有该用户
+    private final UserColumns.Longs modifiedAt = new UserColumns.Longs();
+    // 已申请注销的用户：读取一律视为空，写入直接拒绝，数据由后台分批清除
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+    // 进程启动时刻参与 ETag，避免重启后版本号从头计数与客户端缓存撞上
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // 增量同步的变更日志，按需创建；版本取自混合时钟（微秒级墙钟与计数取大），
+    // 重启或迁移到其他实例后，客户端带来的旧版本必然落在新日志的 floor 之下或当前版本之上，从而触发全量同步
+    private final UserColumns.Refs<ChangeLog> changeLogs = new UserColumns.Refs<>();
+    private final AtomicLong syncClock = new AtomicLong();
+    private final long syncFloor = nextSyncVersion();
+    private final int changeLogCapacity;
+    // 集合版本变化的通知，多实例部署时转发给其他实例作废它们的 ETag
+    private volatile BiConsumer<UserCollection, String> changeListener = (collection, userId) -> {};
+
+    public InMemoryStore() {
+        this(new UserRegistry());
+    }
+
+    public InMemoryStore(UserRegistry users) {
+        this(users, 256);
+    }
+
+    public InMemoryStore(UserRegistry users, int changeLogCapacity) {
+        this(users, changeLogCapacity, 2000);
+    }
+
+    /**
+     * @param rowReuseDelayMillis 删除的堆外行保留多久再清零复用，需覆盖存储内部一次查找或列表解码的时长
+     */
+    @Autowired
+    public InMemoryStore(UserRegistry users, @Value("${evomind.sync.log-capacity:256}") int changeLogCapacity,
+                         @Value("${evomind.store.row-reuse-delay-ms:2000}") long rowReuseDelayMillis) {
+        this.users = users;
+        this.changeLogCapacity = changeLogCapacity;
+        this.rows = new ItemRows(rowReuseDelayMillis);
+    }
+
+    public void markDeleted(String userId, long deletedAt) {
+        if (tombstones.putIfAbsent(userId, deletedAt) == null) {
+            bumpAll(userId);
+        }
+    }
+
+    public boolean isDeleted(String userId) {
+        return userId != null && tombstones.containsKey(userId);
+    }
+
+    public void clearTombstone(String userId) {
+        // 清理完成时编号已注销，不再重新注册
+        if (tombstones.remove(userId) != null && users.find(userId) != UserRegistry.NONE) {
+            bumpAll(userId);
+        }
+    }
+
+    public long version(UserCollection collection, String userId) {
+        int id = users.find(userId);
+        return id == UserRegistry.NONE ? 0 : versions.get(id, collection.ordinal());
+    }
+
+    /**
+     * 注册集合版本变化的回调，回调在写线程上执行，只应做合并入队这类轻量操作。
+     */
+    public void onChange(BiConsumer<UserCollection, String> listener) {
+        changeListener = listener;
+    }
+
+    /**
+     * 其他实例上的写入作废本地集合：只推进版本号让 ETag 失配，不触发变更回调；本实例未持有该用户时忽略。
+     */
+    public void invalidate(UserCollection collection, String userId) {
+        int id = users.find(userId);
+        if (id != UserRegistry.NONE) {
+            versions.increment(id, collection.ordinal());
+        }
+    }
+
+    /**
+     * 集合的强 ETag；应在读取集合之前取，保证返回内容不比 ETag 旧。
+     * 带上用户编号：注销后同名 userId 重新注册会拿到新编号，版本号从头计数也不会与旧 ETag 撞上。
+     */
+    public String etag(UserCollection collection, String userId) {
+        int id = users.find(userId);
+        long version = id == UserRegistry.NONE ? 0 : versions.get(id, collection.ordinal());
+        return "\"" + epoch + '-' + id + '-' + collection.ordinal() + '-' + version + '"';
+    }
 
     public boolean isOnboardingDone(String userId) {
-        return onboardingDone.getOrDefault(userId, false);
+        int id = users.find(userId);
+        return id != UserRegistry.NONE && !isDeleted(userId) && onboardingDone.get(id);
     }
 
     public void completeOnboarding(String userId) {
-        onboardingDone.put(userId, true);
+        checkAlive(userId);
+        int uid = users.intern(userId);
+        onboardingDone.set(uid, true);
+        modifiedAt.accumulateMax(uid, System.currentTimeMillis());
     }
 
     public List<SourceItem> getSources(String userId) {
-        return userSources.computeIfAbsent(userId, k -> new ArrayList<>());
+        int id = users.find(userId);
+        if (id == UserRegistry.NONE || isDeleted(userId)) {
+            return List.of();
+        }
+        return ItemRows.decode(userSources.get(id), rows::source);
     }
 
     public SourceItem addSource(String userId, String platform, String nick, String link) {
-        SourceItem item = new SourceItem(UUID.randomUUID().toString(), platform, nick, link, false, "默认", LocalDateTime.now().toString());
-        getSources(userId).add(item);
-        return item;
+        checkAlive(userId);
+        long handle = rows.putSource(UUID.randomUUID(), platform, nick, link, false, "默认", System.currentTimeMillis());
+        int uid = users.intern(userId);
+        append(userSources, uid, handle);
+        bump(uid, UserCollection.SOURCES);
+        SourceItem added = rows.source(handle);
+        logChange(uid, ChangeLog.Kind.SOURCE, added.id(), false);
+        return added;
     }
 
     public List<SourceItem> importSources(SourceImportRequest req) {
@@ -41,27 +157,208 @@ public class InMemoryStore {
     }
 
     public boolean removeSource(String userId, String id) {
-        return getSources(userId).removeIf(s -> s.id().equals(id));
+        checkAlive(userId);
+        int uid = users.find(userId);
+        UUID key = parseId(id);
+        if (uid == UserRegistry.NONE || key == null) {
+            return false;
+        }
+        for (;;) {
+            long[] old = userSources.get(uid);
+            int index = -1;
+            for (int i = 0; old != null && i < old.length; i++) {
+                if (rows.sourceIdEquals(old[i], key)) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            long[] n = new long[old.length - 1];
+            System.arraycopy(old, 0, n, 0, index);
+            System.arraycopy(old, index + 1, n, index, n.length - index);
+            if (userSources.compareAndSet(uid, old, n.length == 0 ? null : n)) {
+                rows.releaseSource(old[index]);
+                bump(uid, UserCollection.SOURCES);
+                logChange(uid, ChangeLog.Kind.SOURCE, key.toString(), true);
+                return true;
+            }
+        }
     }
 
     public ChallengeTask getOrInitTask(String userId) {
-        return userTask.computeIfAbsent(userId, uid -> new ChallengeTask(
+        checkAlive(userId);
+        int uid = users.intern(userId);
+        ChallengeTask existing = userTask.get(uid);
+        if (existing != null) {
+            return existing;
+        }
+        ChallengeTask created = new ChallengeTask(
                 UUID.randomUUID().toString(),
                 "入门",
                 "使用AI整理本周工作复盘",
                 "待开始",
                 "10分钟内产出一页总结并保存到语料库",
                 LocalDateTime.now().plusDays(1).toString()
-        ));
+        );
+        if (userTask.compareAndSet(uid, null, created)) {
+            bump(uid, UserCollection.TASK);
+            logChange(uid, ChangeLog.Kind.TASK, created.id(), false);
+            return created;
+        }
+        return userTask.get(uid);
     }
 
     public ChallengeTask updateTaskStatus(String userId, String status) {
         ChallengeTask old = getOrInitTask(userId);
         ChallengeTask n = new ChallengeTask(old.id(), old.stage(), old.title(), status, old.description(), old.deadline());
-        userTask.put(userId, n);
+        int uid = users.intern(userId);
+        userTask.set(uid, n);
+        bump(uid, UserCollection.TASK);
+        logChange(uid, ChangeLog.Kind.TASK, n.id(), false);
         return n;
     }
 
+    public ChallengeTask task(String userId) {
+        int uid = users.find(userId);
+        return uid == UserRegistry.NONE ? null : userTask.get(uid);
+    }
+
+    public void forEachTask(BiConsumer<String, ChallengeTask> action) {
+        int n = users.size();
+        for (int uid = 0; uid < n; uid++) {
+            ChallengeTask t = userTask.get(uid);
+            if (t != null) {
+                action.accept(users.name(uid), t);
+            }
+        }
+    }
+
+    /**
+     * 按用户状态的内存占用（不含列表、任务等被引用对象），用于容量评估。
+     */
+    public Map<String, Long> footprint() {
+        return Map.of(
+                "users", (long) users.size(),
+                "registryBytes", users.footprintBytes(),
+                "columnBytes", onboardingDone.footprintBytes() + userSources.footprintBytes() + userTask.footprintBytes()
+                        + userOrders.footprintBytes() + versions.footprintBytes() + modifiedAt.footprintBytes()
+                        + changeLogs.footprintBytes(),
+                "offHeapBytes", rows.capacityBytes(),
+                "offHeapUsedBytes", rows.allocatedBytes(),
+                "offHeapGarbageBytes", rows.garbageBytes());
+    }
+
+    /**
+     * 完整性自检：逐行校验句柄与解码，并核对存活行加未复用的已释放字节不超过已分配字节；返回检查的行数，发现损坏抛 IllegalStateException。
+     */
+    public long verify() {
+        // 先取累计释放、最后取累计复用与已分配：三者都只增不减，并发写入只会让左边偏小，不会误报
+        long released = rows.releasedBytes();
+        long live = 0;
+        long checked = 0;
+        int n = users.size();
+        for (int uid = 0; uid < n; uid++) {
+            long[] sources = userSources.get(uid);
+            if (sources != null) {
+                for (long handle : sources) {
+                    live += rows.verifySource(handle);
+                }
+                checked += sources.length;
+            }
+            long[] orders = userOrders.get(uid);
+            if (orders != null) {
+                for (long handle : orders) {
+                    live += rows.verifyOrder(handle);
+                }
+                checked += orders.length;
+            }
+        }
+        long garbage = released - rows.reusedBytes();
+        long allocated = rows.allocatedBytes();
+        if (live + garbage > allocated) {
+            throw new IllegalStateException("堆外账目不一致：存活 " + live + " + 未复用 " + garbage + " > 已分配 " + allocated);
+        }
+        return checked;
+    }
+
+    public void forEachUser(Consumer<String> action) {
+        int n = users.size();
+        for (int uid = 0; uid < n; uid++) {
+            if (modifiedAt.get(uid) != 0) {
+                action.accept(users.name(uid));
+            }
+        }
+    }
+
+    /**
+     * 导出用户的全部状态；本实例不持有该用户时返回 null。列表已解码成记录，可以在存储之外长期持有。
+     */
+    public UserSnapshot exportUser(String userId) {
+        int uid = users.find(userId);
+        long stamp = uid == UserRegistry.NONE ? 0 : modifiedAt.get(uid);
+        if (stamp == 0) {
+            return null;
+        }
+        return new UserSnapshot(userId, stamp, tombstones.get(userId), onboardingDone.get(uid),
+                ItemRows.decode(userSources.get(uid), rows::source),
+                ItemRows.decode(userOrders.get(uid), h -> rows.order(h, userId)),
+                userTask.get(uid));
+    }
+
+    /**
+     * 用快照整体替换用户状态；快照比本地旧时忽略并返回 false。
+     */
+    public synchronized boolean importUser(UserSnapshot snapshot) {
+        String userId = snapshot.userId();
+        int uid = users.intern(userId);
+        if (snapshot.modifiedAt() < modifiedAt.get(uid)) {
+            return false;
+        }
+        long[] sources = new long[snapshot.sources() == null ? 0 : snapshot.sources().size()];
+        for (int i = 0; i < sources.length; i++) {
+            SourceItem s = snapshot.sources().get(i);
+            sources[i] = rows.putSource(UUID.fromString(s.id()), s.platform(), s.nickname(), s.homepage(), s.pinned(),
+                    s.groupName(), ItemRows.epochMillis(s.createdAt()));
+        }
+        long[] orders = new long[snapshot.orders() == null ? 0 : snapshot.orders().size()];
+        for (int i = 0; i < orders.length; i++) {
+            OrderItem o = snapshot.orders().get(i);
+            orders[i] = rows.putOrder(o.orderNo(), o.planCode(), o.channel(), o.amount(), o.status(),
+                    ItemRows.epochMillis(o.createdAt()));
+        }
+        replace(userSources, uid, sources.length == 0 ? null : sources, rows::releaseSource);
+        replace(userOrders, uid, orders.length == 0 ? null : orders, rows::releaseOrder);
+        onboardingDone.set(uid, snapshot.onboardingDone());
+        userTask.set(uid, snapshot.task());
+        if (snapshot.deletedAt() != null) {
+            tombstones.put(userId, snapshot.deletedAt());
+        } else {
+            tombstones.remove(userId);
+        }
+        bumpAll(userId);
+        modifiedAt.set(uid, snapshot.modifiedAt());
+        return true;
+    }
+
+    /**
+     * 用户已迁往其他实例：释放本地全部状态，此后本实例视其为未知用户。
+     */
+    public synchronized void dropUser(String userId) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE) {
+            return;
+        }
+        replace(userSources, uid, null, rows::releaseSource);
+        replace(userOrders, uid, null, rows::releaseOrder);
+        onboardingDone.set(uid, false);
+        userTask.set(uid, null);
+        tombstones.remove(userId);
+        bumpAll(userId);
+        modifiedAt.set(uid, 0);
+    }
+
     public List<CardItem> feed(String userId) {
         return List.of(
                 new CardItem(UUID.randomUUID().toString(), "科技博主A", "知乎", "AI工作流的三层架构", "核心观点：先固化输入质量，再做自动化。", true),
@@ -81,38 +378,256 @@ public class InMemoryStore {
         );
     }
 
-    public DrilldownResponse drilldown(String cardId, String nodeId) {
-        return new DrilldownResponse(cardId, nodeId,
-                "这是与节点关联的原文段落（临时抓取示例，不落地存储）。",
-                "AI生成，仅供参考");
-    }
-
     public DailyQuestionResponse dailyQuestion() {
         return new DailyQuestionResponse(UUID.randomUUID().toString(), "如果今天只能改一个习惯，哪个最能提升你的执行力？", "AI生成，仅供参考");
     }
 
-    public DiscussionReplyResponse followUp(String discussionId, String answer) {
-        return new DiscussionReplyResponse(discussionId, "你提到了" + answer + "，请给出一个明天就能执行的具体动作。", "AI生成，仅供参考");
+    public OrderItem createOrder(OrderCreateRequest req) {
+        checkAlive(req.userId());
+        long now = System.currentTimeMillis();
+        long handle = rows.putOrder("OD" + now, req.planCode(), req.channel(), req.amount(), "PAID", now);
+        int uid = users.intern(req.userId());
+        append(userOrders, uid, handle);
+        bump(uid, UserCollection.ORDERS);
+        OrderItem created = rows.order(handle, req.userId());
+        logChange(uid, ChangeLog.Kind.ORDER, created.orderNo(), false);
+        return created;
     }
 
-    public DiscussionFinalizeResponse finalizeDiscussion(String discussionId) {
-        return new DiscussionFinalizeResponse(discussionId, "你已形成可执行策略：每天固定30分钟复盘+输出。", "如何持续8周不间断？", "AI生成，仅供参考");
+    public List<OrderItem> orders(String userId) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE || isDeleted(userId)) {
+            return List.of();
+        }
+        return ItemRows.decode(userOrders.get(uid), h -> rows.order(h, userId));
     }
 
-    public OrderItem createOrder(OrderCreateRequest req) {
-        OrderItem item = new OrderItem(
-                "OD" + System.currentTimeMillis(),
-                req.userId(),
-                req.planCode(),
-                req.channel(),
-                req.amount(),
-                "PAID",
-                LocalDateTime.now().toString());
-        userOrders.computeIfAbsent(req.userId(), k -> new ArrayList<>()).add(item);
-        return item;
+    public Optional<OrderItem> findOrder(String userId, String orderNo) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE || isDeleted(userId)) {
+            return Optional.empty();
+        }
+        long handle = orderHandle(uid, orderNo);
+        return handle < 0 ? Optional.empty() : Optional.of(rows.order(handle, userId));
     }
 
-    public List<OrderItem> orders(String userId) {
-        return userOrders.getOrDefault(userId, List.of());
+    public void updateOrderStatus(String userId, String orderNo, String status) {
+        int uid = users.find(userId);
+        long handle = uid == UserRegistry.NONE ? -1 : orderHandle(uid, orderNo);
+        if (handle >= 0) {
+            rows.setOrderStatus(handle, status);
+            bump(uid, UserCollection.ORDERS);
+            logChange(uid, ChangeLog.Kind.ORDER, orderNo, false);
+        }
+    }
+
+    /**
+     * since 之后的变更；日志无法补齐（首次同步、日志已压缩掉、版本来自其他进程或实例）时返回全量数据。
+     * 版本先于数据读取，保证返回内容不比版本旧，多出的变更下次同步会重复下发，按实体 ID 覆盖即可。
+     */
+    public SyncResponse changesSince(String userId, long since) {
+        int uid = users.find(userId);
+        ChangeLog log = uid == UserRegistry.NONE ? null : changeLogs.get(uid);
+        long version = log == null ? syncFloor : log.version();
+        List<ChangeLog.Entry> entries = log == null
+                ? (since == syncFloor ? List.of() : null)
+                : log.since(since);
+        if (entries == null) {
+            return new SyncResponse(version, true, List.of(), getSources(userId), orders(userId),
+                    isDeleted(userId) ? null : task(userId));
+        }
+        List<SyncResponse.Change> changes = new ArrayList<>(entries.size());
+        for (ChangeLog.Entry e : entries) {
+            Object data = e.deleted() ? null : switch (e.kind()) {
+                case SOURCE -> findSource(uid, e.id());
+                case ORDER -> findOrder(userId, e.id()).orElse(null);
+                case TASK -> userTask.get(uid);
+            };
+            // 新增后又删除的实体：当前已取不到，其删除条目在后面，这里跳过
+            if (e.deleted() || data != null) {
+                changes.add(new SyncResponse.Change(e.version(), e.kind().name().toLowerCase(), e.id(), e.deleted(), data));
+            }
+        }
+        return new SyncResponse(version, false, changes, null, null, null);
+    }
+
+    /**
+     * 用户变更日志当前条数，用于观察压缩效果。
+     */
+    public int changeLogSize(String userId) {
+        int uid = users.find(userId);
+        ChangeLog log = uid == UserRegistry.NONE ? null : changeLogs.get(uid);
+        return log == null ? 0 : log.size();
+    }
+
+    /**
+     * 从列表尾部删除至多 max 条信息源，返回实际删除数量。
+     */
+    public int purgeSources(String userId, int max) {
+        return purgeTail(userSources, userId, UserCollection.SOURCES, max, rows::releaseSource);
+    }
+
+    public int purgeOrders(String userId, int max) {
+        return purgeTail(userOrders, userId, UserCollection.ORDERS, max, rows::releaseOrder);
+    }
+
+    public int purgeProfile(String userId) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE) {
+            return 0;
+        }
+        int removed = 0;
+        if (onboardingDone.get(uid)) {
+            onboardingDone.set(uid, false);
+            removed++;
+        }
+        ChallengeTask task = userTask.get(uid);
+        if (task != null && userTask.compareAndSet(uid, task, null)) {
+            bump(uid, UserCollection.TASK);
+            logChange(uid, ChangeLog.Kind.TASK, task.id(), true);
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * 注销清理的最后一步：丢弃变更日志并注销 userId 的编号，返回删除的条目数（日志条数加注册项）。
+     * 信息源、订单与资料须已清空；之后同名 userId 视为新用户。
+     */
+    public synchronized int forgetUser(String userId) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE) {
+            return 0;
+        }
+        ChangeLog log = changeLogs.get(uid);
+        changeLogs.set(uid, null);
+        modifiedAt.set(uid, 0);
+        users.forget(userId);
+        return (log == null ? 0 : log.size()) + 1;
+    }
+
+    private static void append(UserColumns.Refs<long[]> column, int uid, long handle) {
+        for (;;) {
+            long[] old = column.get(uid);
+            long[] n = old == null ? new long[1] : Arrays.copyOf(old, old.length + 1);
+            n[n.length - 1] = handle;
+            if (column.compareAndSet(uid, old, n)) {
+                return;
+            }
+        }
+    }
+
+    private long orderHandle(int uid, String orderNo) {
+        long[] handles = userOrders.get(uid);
+        if (handles == null || orderNo == null) {
+            return -1;
+        }
+        byte[] key = ItemRows.utf8(orderNo);
+        for (long h : handles) {
+            if (rows.orderNoEquals(h, key)) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    private SourceItem findSource(int uid, String id) {
+        UUID key = parseId(id);
+        long[] handles = userSources.get(uid);
+        for (int i = 0; key != null && handles != null && i < handles.length; i++) {
+            if (rows.sourceIdEquals(handles[i], key)) {
+                return rows.source(handles[i]);
+            }
+        }
+        return null;
+    }
+
+    private void logChange(int uid, ChangeLog.Kind kind, String id, boolean deleted) {
+        ChangeLog log = changeLogs.get(uid);
+        if (log == null) {
+            changeLogs.compareAndSet(uid, null, new ChangeLog(changeLogCapacity, syncFloor));
+            log = changeLogs.get(uid);
+        }
+        log.append(this::nextSyncVersion, kind, id, deleted);
+    }
+
+    private void resetChangeLog(int uid) {
+        // 没有日志的用户也要建一个：否则此前按 syncFloor 同步过的客户端会被当成已是最新。
+        // 已有日志时原地重置，不替换对象，避免并发写入追加到被丢弃的日志上
+        long version = nextSyncVersion();
+        if (!changeLogs.compareAndSet(uid, null, new ChangeLog(changeLogCapacity, version))) {
+            changeLogs.get(uid).reset(version);
+        }
+    }
+
+    private long nextSyncVersion() {
+        long now = System.currentTimeMillis() * 1000;
+        return syncClock.updateAndGet(v -> Math.max(v + 1, now));
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return id == null ? null : UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void bump(int uid, UserCollection collection) {
+        versions.increment(uid, collection.ordinal());
+        modifiedAt.accumulateMax(uid, System.currentTimeMillis());
+        changeListener.accept(collection, users.name(uid));
+    }
+
+    private static void replace(UserColumns.Refs<long[]> column, int uid, long[] handles, LongConsumer release) {
+        long[] old;
+        do {
+            old = column.get(uid);
+        } while (!column.compareAndSet(uid, old, handles));
+        if (old != null) {
+            for (long h : old) {
+                release.accept(h);
+            }
+        }
+    }
+
+    private void bumpAll(String userId) {
+        int uid = users.intern(userId);
+        for (UserCollection c : UserCollection.values()) {
+            bump(uid, c);
+        }
+        resetChangeLog(uid);
+    }
+
+    private int purgeTail(UserColumns.Refs<long[]> column, String userId, UserCollection collection, int max,
+                          LongConsumer release) {
+        int uid = users.find(userId);
+        if (uid == UserRegistry.NONE) {
+            return 0;
+        }
+        for (;;) {
+            long[] old = column.get(uid);
+            if (old == null) {
+                return 0;
+            }
+            int n = Math.min(max, old.length);
+            int keep = old.length - n;
+            if (column.compareAndSet(uid, old, keep == 0 ? null : Arrays.copyOf(old, keep))) {
+                for (int i = keep; i < old.length; i++) {
+                    release.accept(old[i]);
+                }
+                if (n > 0) {
+                    bump(uid, collection);
+                    resetChangeLog(uid);
+                }
+                return n;
+            }
+        }
+    }
+
+    private void checkAlive(String userId) {
+        if (isDeleted(userId)) {
+            throw new UserDeletedException(userId);
+        }
     }
 }
@@ -0,0 +1,202 @@
+package com.evomind.api.store;
+
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.SourceItem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+/**
+ * 信息源与订单的堆外定长行编码。低基数字段走字典，时间存 epoch 毫秒，自由文本存 UTF-8 变长；
+ * 记录对象只在读取时解码；列表在离开存储之前整体解码成记录，调用方拿不到句柄，行被释放复用后也不会读到别人的数据。
+ * <pre>
+ * 信息源：id 高位 long | id 低位 long | createdAt long | platform int | groupName int | flags int | nickname | homepage
+ * 订单：  createdAt long | amount int | status int | channel int | planCode int | orderNo
+ * </pre>
+ * 订单的 userId 不落行，解码时由所属用户给出。
+ */
+final class ItemRows {
+
+    private static final int SOURCE_FIXED = 36;
+    private static final int SOURCE_FLAGS = 32;
+    private static final int ORDER_FIXED = 24;
+    private static final int ORDER_STATUS = 12;
+    private static final int PINNED = 1;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final OffHeapArena arena;
+    private final StringDictionary dictionary = new StringDictionary();
+
+    ItemRows(long reuseDelayMillis) {
+        this.arena = new OffHeapArena(reuseDelayMillis);
+    }
+
+    long putSource(UUID id, String platform, String nickname, String homepage, boolean pinned, String groupName, long createdAt) {
+        byte[] nick = utf8(nickname);
+        byte[] home = utf8(homepage);
+        long handle = arena.allocate(SOURCE_FIXED + OffHeapArena.textBytes(nick) + OffHeapArena.textBytes(home));
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        b.putLong(p, id.getMostSignificantBits());
+        b.putLong(p + 8, id.getLeastSignificantBits());
+        b.putLong(p + 16, createdAt);
+        b.putInt(p + 24, dictionary.code(platform));
+        b.putInt(p + 28, dictionary.code(groupName));
+        b.putInt(p + SOURCE_FLAGS, pinned ? PINNED : 0);
+        OffHeapArena.putText(b, OffHeapArena.putText(b, p + SOURCE_FIXED, nick), home);
+        return handle;
+    }
+
+    SourceItem source(long handle) {
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        int home = OffHeapArena.skipText(b, p + SOURCE_FIXED);
+        return new SourceItem(
+                new UUID(b.getLong(p), b.getLong(p + 8)).toString(),
+                dictionary.value(b.getInt(p + 24)),
+                OffHeapArena.getText(b, p + SOURCE_FIXED),
+                OffHeapArena.getText(b, home),
+                (OffHeapArena.getIntVolatile(b, p + SOURCE_FLAGS) & PINNED) != 0,
+                dictionary.value(b.getInt(p + 28)),
+                timestamp(b.getLong(p + 16)));
+    }
+
+    boolean sourceIdEquals(long handle, UUID id) {
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        return b.getLong(p) == id.getMostSignificantBits() && b.getLong(p + 8) == id.getLeastSignificantBits();
+    }
+
+    void releaseSource(long handle) {
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        arena.release(handle, OffHeapArena.skipText(b, OffHeapArena.skipText(b, p + SOURCE_FIXED)) - p);
+    }
+
+    long putOrder(String orderNo, String planCode, String channel, int amount, String status, long createdAt) {
+        byte[] no = utf8(orderNo);
+        long handle = arena.allocate(ORDER_FIXED + OffHeapArena.textBytes(no));
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        b.putLong(p, createdAt);
+        b.putInt(p + 8, amount);
+        b.putInt(p + ORDER_STATUS, dictionary.code(status));
+        b.putInt(p + 16, dictionary.code(channel));
+        b.putInt(p + 20, dictionary.code(planCode));
+        OffHeapArena.putText(b, p + ORDER_FIXED, no);
+        return handle;
+    }
+
+    OrderItem order(long handle, String userId) {
+        ByteBuffer b = arena.chunk(handle);
+        int p = OffHeapArena.offset(handle);
+        return new OrderItem(
+                OffHeapArena.getText(b, p + ORDER_FIXED),
+                userId,
+                dictionary.value(b.getInt(p + 20)),
+                dictionary.value(b.getInt(p + 16)),
+                b.getInt(p + 8),
+                dictionary.value(OffHeapArena.getIntVolatile(b, p + ORDER_STATUS)),
+                timestamp(b.getLong(p)));
+    }
+
+    boolean orderNoEquals(long handle, byte[] orderNo) {
+        return OffHeapArena.textEquals(arena.chunk(handle), OffHeapArena.offset(handle) + ORDER_FIXED, orderNo);
+    }
+
+    void setOrderStatus(long handle, String status) {
+        OffHeapArena.setIntVolatile(arena.chunk(handle), OffHeapArena.offset(handle) + ORDER_STATUS, dictionary.code(status));
+    }
+
+    void releaseOrder(long handle) {
+        int p = OffHeapArena.offset(handle);
+        arena.release(handle, OffHeapArena.skipText(arena.chunk(handle), p + ORDER_FIXED) - p);
+    }
+
+    /**
+     * 自检一行信息源：句柄在已分配区域内且能完整解码，返回行占用的字节数；损坏时抛 IllegalStateException。
+     */
+    int verifySource(long handle) {
+        try {
+            int p = OffHeapArena.offset(handle);
+            int bytes = OffHeapArena.skipText(arena.chunk(handle), OffHeapArena.skipText(arena.chunk(handle), p + SOURCE_FIXED)) - p;
+            if (!arena.contains(handle, bytes)) {
+                throw new IllegalStateException("信息源行越界: " + Long.toHexString(handle));
+            }
+            source(handle);
+            return (bytes + 7) & ~7;
+        } catch (RuntimeException e) {
+            throw e instanceof IllegalStateException ise ? ise
+                    : new IllegalStateException("信息源行无法解码: " + Long.toHexString(handle), e);
+        }
+    }
+
+    int verifyOrder(long handle) {
+        try {
+            int p = OffHeapArena.offset(handle);
+            int bytes = OffHeapArena.skipText(arena.chunk(handle), p + ORDER_FIXED) - p;
+            if (!arena.contains(handle, bytes)) {
+                throw new IllegalStateException("订单行越界: " + Long.toHexString(handle));
+            }
+            order(handle, null);
+            return (bytes + 7) & ~7;
+        } catch (RuntimeException e) {
+            throw e instanceof IllegalStateException ise ? ise
+                    : new IllegalStateException("订单行无法解码: " + Long.toHexString(handle), e);
+        }
+    }
+
+    long allocatedBytes() {
+        return arena.allocatedBytes();
+    }
+
+    long capacityBytes() {
+        return arena.capacityBytes();
+    }
+
+    long garbageBytes() {
+        return arena.garbageBytes();
+    }
+
+    long releasedBytes() {
+        return arena.releasedBytes();
+    }
+
+    long reusedBytes() {
+        return arena.reusedBytes();
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把句柄数组逐行解码成不可变列表；句柄数组是写时复制的快照，解码在释放留存期内完成。
+     */
+    static <T> List<T> decode(long[] handles, LongFunction<T> decoder) {
+        if (handles == null) {
+            return List.of();
+        }
+        List<T> out = new ArrayList<>(handles.length);
+        for (long handle : handles) {
+            out.add(decoder.apply(handle));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    static long epochMillis(String timestamp) {
+        return timestamp == null ? 0 : LocalDateTime.parse(timestamp).atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static String timestamp(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE).toString();
+    }
+}
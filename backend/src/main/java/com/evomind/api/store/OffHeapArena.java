@@ -0,0 +1,228 @@
+package com.evomind.api.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 堆外追加式内存区：按 1MB 直接内存块分配，行起点 8 字节对齐，句柄为（块号 &lt;&lt; 32 | 块内偏移）。
+ * 行写完后由调用方通过原子引用发布句柄，读者凭句柄读取；行内只有定长的 int 字段允许原地修改。
+ * 句柄不出存储：对外的列表都先解码成记录。释放的行先留存 reuseDelay 毫秒，让存储内部释放前取到句柄的读取
+ * （查找、解码列表）完成，之后清零并按大小挂入空闲表，分配时优先从空闲表取，大块按需切分，余下部分仍留在空闲表。
+ */
+final class OffHeapArena {
+
+    static final int CHUNK_BYTES = 1 << 20;
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int cursor;
+    private long allocated;
+    // 累计释放与累计复用的字节数，两者只增不减，差值为尚未复用的垃圾
+    private volatile long released;
+    private volatile long reused;
+    private final long reuseDelayNanos;
+    private final LongSupplier nanoClock;
+    // 按释放先后排队等待清零
+    private final ArrayDeque<long[]> pending = new ArrayDeque<>();
+    // 已清零的空闲行：行大小 -> 句柄栈
+    private final TreeMap<Integer, ArrayDeque<Long>> free = new TreeMap<>();
+
+    OffHeapArena(long reuseDelayMillis) {
+        this(reuseDelayMillis, System::nanoTime);
+    }
+
+    OffHeapArena(long reuseDelayMillis, LongSupplier nanoClock) {
+        this.reuseDelayNanos = TimeUnit.MILLISECONDS.toNanos(reuseDelayMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    synchronized long allocate(int bytes) {
+        int size = (bytes + 7) & ~7;
+        reclaim();
+        Map.Entry<Integer, ArrayDeque<Long>> fit = free.ceilingEntry(size);
+        if (fit != null) {
+            long handle = take(fit);
+            if (fit.getKey() > size) {
+                put(handle + size, fit.getKey() - size);
+            }
+            reused += size;
+            return handle;
+        }
+        ByteBuffer[] c = chunks;
+        if (c.length == 0 || cursor + size > c[c.length - 1].capacity()) {
+            int capacity = Math.max(CHUNK_BYTES, size);
+            ByteBuffer chunk = ByteBuffer.allocateDirect(capacity + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+            c = Arrays.copyOf(c, c.length + 1);
+            c[c.length - 1] = chunk;
+            chunks = c;
+            cursor = 0;
+        }
+        long handle = ((long) (c.length - 1) << 32) | cursor;
+        cursor += size;
+        allocated += size;
+        return handle;
+    }
+
+    ByteBuffer chunk(long handle) {
+        return chunks[(int) (handle >>> 32)];
+    }
+
+    static int offset(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * 释放一行：立即计入垃圾，留存期过后清零并进入空闲表。
+     */
+    synchronized void release(long handle, int bytes) {
+        int size = (bytes + 7) & ~7;
+        released += size;
+        pending.addLast(new long[]{handle, size, nanoClock.getAsLong()});
+        reclaim();
+    }
+
+    private void reclaim() {
+        long now = nanoClock.getAsLong();
+        for (long[] p = pending.peekFirst(); p != null && now - p[2] >= reuseDelayNanos; p = pending.peekFirst()) {
+            pending.pollFirst();
+            ByteBuffer chunk = chunk(p[0]);
+            int end = offset(p[0]) + (int) p[1];
+            for (int i = offset(p[0]); i < end; i += 8) {
+                chunk.putLong(i, 0L);
+            }
+            put(p[0], (int) p[1]);
+        }
+    }
+
+    private long take(Map.Entry<Integer, ArrayDeque<Long>> entry) {
+        long handle = entry.getValue().pop();
+        if (entry.getValue().isEmpty()) {
+            free.remove(entry.getKey());
+        }
+        return handle;
+    }
+
+    private void put(long handle, int size) {
+        free.computeIfAbsent(size, k -> new ArrayDeque<>()).push(handle);
+    }
+
+    /**
+     * 句柄指向的 bytes 字节是否完全落在已分配的区域内。
+     */
+    synchronized boolean contains(long handle, int bytes) {
+        int index = (int) (handle >>> 32);
+        ByteBuffer[] c = chunks;
+        if (index < 0 || index >= c.length || offset(handle) < 0 || (offset(handle) & 7) != 0) {
+            return false;
+        }
+        long end = (long) offset(handle) + bytes;
+        return index == c.length - 1 ? end <= cursor : end <= c[index].capacity();
+    }
+
+    synchronized long allocatedBytes() {
+        return allocated;
+    }
+
+    long garbageBytes() {
+        return released - reused;
+    }
+
+    long releasedBytes() {
+        return released;
+    }
+
+    long reusedBytes() {
+        return reused;
+    }
+
+    long capacityBytes() {
+        long total = 0;
+        for (ByteBuffer chunk : chunks) {
+            total += chunk.capacity();
+        }
+        return total;
+    }
+
+    static int getIntVolatile(ByteBuffer chunk, int index) {
+        return (int) INTS.getVolatile(chunk, index);
+    }
+
+    static void setIntVolatile(ByteBuffer chunk, int index, int value) {
+        INTS.setVolatile(chunk, index, value);
+    }
+
+    static int textBytes(byte[] utf8) {
+        return varintBytes(utf8.length) + utf8.length;
+    }
+
+    /**
+     * 写入变长文本（varint 长度 + UTF-8），返回下一个字段的位置。
+     */
+    static int putText(ByteBuffer chunk, int pos, byte[] utf8) {
+        int n = utf8.length;
+        while ((n & ~0x7F) != 0) {
+            chunk.put(pos++, (byte) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        chunk.put(pos++, (byte) n);
+        chunk.put(pos, utf8);
+        return pos + utf8.length;
+    }
+
+    static String getText(ByteBuffer chunk, int pos) {
+        long header = readLength(chunk, pos);
+        byte[] utf8 = new byte[(int) (header >>> 32)];
+        chunk.get((int) header, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static boolean textEquals(ByteBuffer chunk, int pos, byte[] utf8) {
+        long header = readLength(chunk, pos);
+        if ((int) (header >>> 32) != utf8.length) {
+            return false;
+        }
+        int start = (int) header;
+        for (int i = 0; i < utf8.length; i++) {
+            if (chunk.get(start + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int skipText(ByteBuffer chunk, int pos) {
+        long header = readLength(chunk, pos);
+        return (int) header + (int) (header >>> 32);
+    }
+
+    // 高 32 位为文本字节数，低 32 位为文本起点
+    private static long readLength(ByteBuffer chunk, int pos) {
+        int len = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = chunk.get(pos++);
+            len |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return ((long) len << 32) | pos;
+    }
+
+    private static int varintBytes(int n) {
+        int bytes = 1;
+        while ((n & ~0x7F) != 0) {
+            n >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+}
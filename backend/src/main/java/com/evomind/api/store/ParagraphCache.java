@@ -0,0 +1,163 @@
+package com.evomind.api.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 原文段落临时缓存：压缩存储、严格按TTL过期、总字节数有上限，不落地。
+ * 所有条目TTL相同，插入顺序即过期顺序，清理时只需从队头弹出。
+ */
+@Component
+public class ParagraphCache {
+
+    private record Entry(byte[] deflated, int rawLength, long expiresAt) {}
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private long usedBytes;
+
+    @Autowired
+    public ParagraphCache(@Value("${evomind.drilldown.cache-ttl-seconds:600}") long ttlSeconds,
+                          @Value("${evomind.drilldown.cache-max-bytes:67108864}") long maxBytes) {
+        this(ttlSeconds * 1000, maxBytes, System::currentTimeMillis);
+    }
+
+    public ParagraphCache(long ttlMillis, long maxBytes, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    public static String key(String cardId, String nodeId) {
+        return cardId + '\u0000' + nodeId;
+    }
+
+    public synchronized String get(String cardId, String nodeId) {
+        long now = clock.getAsLong();
+        purgeExpired(now);
+        Entry e = entries.get(key(cardId, nodeId));
+        return e == null ? null : inflate(e);
+    }
+
+    public synchronized boolean contains(String cardId, String nodeId) {
+        purgeExpired(clock.getAsLong());
+        return entries.containsKey(key(cardId, nodeId));
+    }
+
+    public synchronized void put(String cardId, String nodeId, String paragraph) {
+        long now = clock.getAsLong();
+        purgeExpired(now);
+        byte[] raw = paragraph.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = deflate(raw);
+        if (deflated.length > maxBytes) {
+            return;
+        }
+        // 重新插入以刷新过期顺序
+        Entry old = entries.remove(key(cardId, nodeId));
+        if (old != null) {
+            usedBytes -= old.deflated().length;
+        }
+        while (usedBytes + deflated.length > maxBytes && !entries.isEmpty()) {
+            evictEldest();
+        }
+        entries.put(key(cardId, nodeId), new Entry(deflated, raw.length, now + ttlMillis));
+        usedBytes += deflated.length;
+    }
+
+    /**
+     * 删除一张卡片的全部段落，返回删除条数；按键前缀整表扫描，只在卡片结构变化时调用。
+     */
+    public synchronized int invalidateCard(String cardId) {
+        String prefix = cardId + '\u0000';
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().startsWith(prefix)) {
+                usedBytes -= e.getValue().deflated().length;
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int purgeExpired() {
+        return purgeExpired(clock.getAsLong());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private int purgeExpired(long now) {
+        int removed = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.expiresAt() > now) {
+                break;
+            }
+            usedBytes -= e.deflated().length;
+            it.remove();
+            removed++;
+        }
+        return removed;
+    }
+
+    private void evictEldest() {
+        Iterator<Entry> it = entries.values().iterator();
+        usedBytes -= it.next().deflated().length;
+        it.remove();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buf = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(Entry e) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(e.deflated());
+            byte[] raw = new byte[e.rawLength()];
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                n += inflater.inflate(raw, n, raw.length - n);
+            }
+            return new String(raw, 0, n, StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("段落缓存数据损坏", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
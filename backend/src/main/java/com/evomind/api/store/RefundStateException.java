@@ -0,0 +1,18 @@
+package com.evomind.api.store;
+
+/**
+ * 退款单状态流转失败；code 的前三位即 HTTP 状态码。
+ */
+public class RefundStateException extends RuntimeException {
+
+    private final int code;
+
+    public RefundStateException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+}
@@ -0,0 +1,331 @@
+package com.evomind.api.store;
+
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.model.RefundTicket.Status;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * 退款单存储：每张单是带版本号的不可变记录，状态流转一律对引用做 CAS，
+ * 并发的审核与支付回调只有一方能成功，不会重复退款。
+ * 按用户、按状态的二级索引为有序跳表，读时校验并顺手清理过期索引项。
+ * 每次成功流转追加一行到 journal，重启时按最大版本号回放；注销清理用户后由 {@link #compact()} 重写 journal，
+ * 不留该用户的历史行，一批注销只重写一次。
+ */
+@Component
+public class RefundTicketStore {
+
+    // 支付回调推进状态时不带版本号
+    public static final long ANY_VERSION = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(RefundTicketStore.class);
+
+    private final Map<String, AtomicReference<RefundTicket>> tickets = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> byUser = new ConcurrentHashMap<>();
+    private final Map<Status, NavigableSet<String>> byStatus = new EnumMap<>(Status.class);
+    // 每个订单同时只允许一张未驳回的退款单
+    private final Map<String, String> activeByOrder = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final Path journal;
+    private final LongSupplier clock;
+    private BufferedWriter out;
+    // 有用户被删除、journal 尚未重写
+    private volatile boolean dirty;
+
+    @Autowired
+    public RefundTicketStore(@Value("${evomind.data-dir:./data}") String dataDir) {
+        this(Path.of(dataDir, "refund", "refund_ticket.tsv"), System::currentTimeMillis);
+    }
+
+    public RefundTicketStore(Path journal, LongSupplier clock) {
+        this.journal = journal;
+        this.clock = clock;
+        for (Status s : Status.values()) {
+            byStatus.put(s, new ConcurrentSkipListSet<>());
+        }
+        replay();
+    }
+
+    public RefundTicket create(String userId, String orderNo, int amount, String reason) {
+        return create(userId, orderNo, amount, reason, null);
+    }
+
+    /**
+     * 创建退款单；同一订单已有未驳回的单时直接返回该单，重复提交是幂等的。
+     * shardKey 非空时附在单号末尾（RF序号-分片键），集群模式下不带用户的支付回调据此路由到用户所在实例。
+     */
+    public RefundTicket create(String userId, String orderNo, int amount, String reason, String shardKey) {
+        long now = clock.getAsLong();
+        // 序号部分定长且单调递增，字典序即创建顺序
+        String ticketNo = "RF" + lastId.updateAndGet(prev -> Math.max(prev + 1, now * 1000))
+                + (shardKey == null ? "" : "-" + shardKey);
+        RefundTicket t = new RefundTicket(ticketNo, userId, orderNo, amount, reason, Status.SUBMITTED, 1, null, null, now, now);
+        // 先放入主表再占订单，抢占失败的一方总能读到胜者的单
+        tickets.put(ticketNo, new AtomicReference<>(t));
+        String existing = activeByOrder.putIfAbsent(orderNo, ticketNo);
+        if (existing != null) {
+            tickets.remove(ticketNo);
+            return get(existing).orElseThrow();
+        }
+        index(t, null);
+        append(t);
+        return t;
+    }
+
+    /**
+     * 单号里附带的分片键，没有时返回 null。
+     */
+    public static String shardKey(String ticketNo) {
+        int dash = ticketNo.indexOf('-');
+        return dash < 0 ? null : ticketNo.substring(dash + 1);
+    }
+
+    public Optional<RefundTicket> get(String ticketNo) {
+        AtomicReference<RefundTicket> ref = tickets.get(ticketNo);
+        return ref == null ? Optional.empty() : Optional.of(ref.get());
+    }
+
+    /**
+     * 以 CAS 推进状态。expectedVersion 为 {@link #ANY_VERSION} 时不校验版本（仅用于支付回调，审核请求的版本必须为正），
+     * 否则版本不一致即视为他人已处理，返回 409。
+     */
+    public RefundTicket transition(String ticketNo, long expectedVersion, Status next, String reviewer, String refundNo) {
+        AtomicReference<RefundTicket> ref = tickets.get(ticketNo);
+        if (ref == null) {
+            throw new RefundStateException(40401, "退款单不存在");
+        }
+        while (true) {
+            RefundTicket cur = ref.get();
+            if (expectedVersion != ANY_VERSION && cur.version() != expectedVersion) {
+                throw new RefundStateException(40901, "退款单已被他人处理，当前版本 " + cur.version());
+            }
+            if (!cur.status().canMoveTo(next)) {
+                throw new RefundStateException(40902, "退款单状态 " + cur.status() + " 不能变更为 " + next);
+            }
+            RefundTicket updated = cur.moveTo(next, reviewer, refundNo, clock.getAsLong());
+            if (ref.compareAndSet(cur, updated)) {
+                index(updated, cur.status());
+                if (next == Status.REJECTED) {
+                    activeByOrder.remove(updated.orderNo(), ticketNo);
+                }
+                append(updated);
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * 用户的退款单，按创建时间倒序。
+     */
+    public List<RefundTicket> byUser(String userId, int limit) {
+        NavigableSet<String> ids = byUser.get(userId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<RefundTicket> result = new ArrayList<>(Math.min(limit, 64));
+        for (Iterator<String> it = ids.descendingIterator(); it.hasNext() && result.size() < limit; ) {
+            get(it.next()).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * 某状态下的退款单，按创建时间正序，after 为上一页最后一个单号。
+     */
+    public List<RefundTicket> byStatus(Status status, String after, int limit) {
+        NavigableSet<String> ids = byStatus.get(status);
+        NavigableSet<String> page = after == null ? ids : ids.tailSet(after, false);
+        List<RefundTicket> result = new ArrayList<>(Math.min(limit, 64));
+        for (Iterator<String> it = page.iterator(); it.hasNext() && result.size() < limit; ) {
+            String ticketNo = it.next();
+            RefundTicket t = get(ticketNo).orElse(null);
+            if (t != null && t.status() == status) {
+                result.add(t);
+            } else {
+                // 状态只向前流转，离开过的状态不会再回来，过期索引项可以直接删
+                it.remove();
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return tickets.size();
+    }
+
+    /**
+     * 从内存中删除用户的全部退款单，返回删除数量。用于账号注销清理；journal 中的历史行要等 {@link #compact()} 才清除。
+     */
+    public int dropUser(String userId) {
+        NavigableSet<String> ids = byUser.remove(userId);
+        if (ids == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (String ticketNo : ids) {
+            AtomicReference<RefundTicket> ref = tickets.remove(ticketNo);
+            if (ref == null) {
+                continue;
+            }
+            RefundTicket t = ref.get();
+            byStatus.get(t.status()).remove(ticketNo);
+            activeByOrder.remove(t.orderNo(), ticketNo);
+            removed++;
+        }
+        dirty = true;
+        return removed;
+    }
+
+    /**
+     * 有用户被删除时重写 journal，只保留现存单的最新版本；注销清理每批结束、落盘进度之前调用一次。
+     */
+    public void compact() {
+        if (dirty) {
+            rewrite();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void index(RefundTicket t, Status previous) {
+        if (previous == null) {
+            byUser.computeIfAbsent(t.userId(), k -> new ConcurrentSkipListSet<>()).add(t.ticketNo());
+        } else {
+            byStatus.get(previous).remove(t.ticketNo());
+        }
+        byStatus.get(t.status()).add(t.ticketNo());
+    }
+
+    private synchronized void append(RefundTicket t) {
+        // 与注销清理并发的流转：单已删除时不再写回 journal
+        if (!tickets.containsKey(t.ticketNo())) {
+            return;
+        }
+        try {
+            if (out == null) {
+                Files.createDirectories(journal.getParent());
+                out = Files.newBufferedWriter(journal, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            write(out, t);
+            out.flush();
+        } catch (IOException e) {
+            log.warn("refund journal write failed ticket={}: {}", t.ticketNo(), e.getMessage());
+        }
+    }
+
+    // 只保留每张现存单的最新版本，写临时文件后原子替换
+    private synchronized void rewrite() {
+        dirty = false;
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            Files.createDirectories(journal.getParent());
+            Path tmp = journal.resolveSibling(journal.getFileName() + ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (AtomicReference<RefundTicket> ref : tickets.values()) {
+                    write(w, ref.get());
+                }
+            }
+            Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("refund journal rewrite failed: {}", e.getMessage());
+        }
+    }
+
+    private static void write(BufferedWriter w, RefundTicket t) throws IOException {
+        w.write(String.join("\t", t.ticketNo(), Long.toString(t.version()), t.status().name(), escape(t.userId()),
+                escape(t.orderNo()), Integer.toString(t.amount()), escape(t.reason()), escape(t.reviewer()),
+                escape(t.refundNo()), Long.toString(t.createdAt()), Long.toString(t.updatedAt())));
+        w.write('\n');
+    }
+
+    private void replay() {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        Map<String, RefundTicket> latest = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] c = line.split("\t", -1);
+                if (c.length < 11) {
+                    continue;
+                }
+                RefundTicket t = new RefundTicket(c[0], unescape(c[3]), unescape(c[4]), Integer.parseInt(c[5]), unescape(c[6]),
+                        Status.valueOf(c[2]), Long.parseLong(c[1]), unescape(c[7]), unescape(c[8]),
+                        Long.parseLong(c[9]), Long.parseLong(c[10]));
+                // 并发写入时同一单的行可能乱序，以版本号为准
+                latest.merge(t.ticketNo(), t, (a, b) -> a.version() >= b.version() ? a : b);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("replay refund journal failed", e);
+        }
+        for (RefundTicket t : latest.values()) {
+            tickets.put(t.ticketNo(), new AtomicReference<>(t));
+            index(t, null);
+            if (t.status() != Status.REJECTED) {
+                activeByOrder.merge(t.orderNo(), t.ticketNo(), (a, b) -> a.compareTo(b) >= 0 ? a : b);
+            }
+            int dash = t.ticketNo().indexOf('-');
+            long id = Long.parseLong(dash < 0 ? t.ticketNo().substring(2) : t.ticketNo().substring(2, dash));
+            lastId.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    private static String escape(String value) {
+        return value == null ? "\\N" : value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        if ("\\N".equals(value)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char n = value.charAt(++i);
+                sb.append(n == 't' ? '\t' : n == 'n' ? '\n' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
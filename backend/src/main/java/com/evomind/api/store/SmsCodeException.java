@@ -0,0 +1,18 @@
+package com.evomind.api.store;
+
+/**
+ * 验证码发送被限流或校验失败；code 的前三位即 HTTP 状态码。
+ */
+public class SmsCodeException extends RuntimeException {
+
+    private final int code;
+
+    public SmsCodeException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+}
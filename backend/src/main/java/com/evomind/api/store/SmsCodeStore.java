@@ -0,0 +1,320 @@
+package com.evomind.api.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 短信验证码与发送计数：手机号、IP 都编码成 long 作为键，验证码本身存为 int。
+ * 过期按秒分桶：写入时把键追加到到期那一秒的桶里，清理时只处理已到期的桶，不扫描全表。
+ * 校验次数与发送计数用字段更新器原子自增，热路径无锁。
+ */
+@Component
+public class SmsCodeStore {
+
+    public enum SendResult { SENT, COOLDOWN, PHONE_LIMITED, IP_LIMITED }
+
+    public enum VerifyResult { OK, WRONG, EXPIRED, LOCKED }
+
+    public record Issued(SendResult result, String code) {}
+
+    private static final class Code {
+        static final AtomicIntegerFieldUpdater<Code> ATTEMPTS = AtomicIntegerFieldUpdater.newUpdater(Code.class, "attempts");
+        final int value;
+        final long issuedAt;
+        volatile int attempts;
+
+        Code(int value, long issuedAt) {
+            this.value = value;
+            this.issuedAt = issuedAt;
+        }
+    }
+
+    private static final class Window {
+        static final AtomicIntegerFieldUpdater<Window> COUNT = AtomicIntegerFieldUpdater.newUpdater(Window.class, "count");
+        final long resetAt;
+        volatile int count;
+
+        Window(long resetAt) {
+            this.resetAt = resetAt;
+        }
+    }
+
+    private final Map<Long, Code> codes = new ConcurrentHashMap<>();
+    private final Map<Long, Window> phoneSends = new ConcurrentHashMap<>();
+    private final Map<Long, Window> ipSends = new ConcurrentHashMap<>();
+    private final ExpiryBuckets codeExpiry;
+    private final ExpiryBuckets phoneExpiry;
+    private final ExpiryBuckets ipExpiry;
+    private final long ttlMillis;
+    private final long resendMillis;
+    private final long windowMillis;
+    private final int phoneLimit;
+    private final int ipLimit;
+    private final int maxAttempts;
+    private final String fixedCode;
+    private final LongSupplier clock;
+
+    @Autowired
+    public SmsCodeStore(@Value("${evomind.sms.code-ttl-seconds:300}") long ttlSeconds,
+                        @Value("${evomind.sms.resend-interval-seconds:60}") long resendSeconds,
+                        @Value("${evomind.sms.phone-hourly-limit:5}") int phoneLimit,
+                        @Value("${evomind.sms.ip-hourly-limit:20}") int ipLimit,
+                        @Value("${evomind.sms.max-verify-attempts:5}") int maxAttempts,
+                        @Value("${evomind.sms.fixed-code:}") String fixedCode) {
+        this(ttlSeconds * 1000, resendSeconds * 1000, 3_600_000, phoneLimit, ipLimit, maxAttempts, fixedCode,
+                System::currentTimeMillis);
+    }
+
+    public SmsCodeStore(long ttlMillis, long resendMillis, long windowMillis, int phoneLimit, int ipLimit,
+                        int maxAttempts, String fixedCode, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.resendMillis = resendMillis;
+        this.windowMillis = windowMillis;
+        this.phoneLimit = phoneLimit;
+        this.ipLimit = ipLimit;
+        this.maxAttempts = maxAttempts;
+        this.fixedCode = fixedCode == null || fixedCode.isBlank() ? null : fixedCode;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.codeExpiry = new ExpiryBuckets(ttlMillis, now);
+        this.phoneExpiry = new ExpiryBuckets(windowMillis, now);
+        this.ipExpiry = new ExpiryBuckets(windowMillis, now);
+    }
+
+    /**
+     * 生成并保存验证码；同一手机号在重发间隔内、或手机号/IP 超出每小时上限时拒绝。
+     */
+    public Issued issue(String phone, String ip) {
+        long key = phoneKey(phone);
+        long now = clock.getAsLong();
+        Code current = codes.get(key);
+        if (current != null && now - current.issuedAt < resendMillis) {
+            return new Issued(SendResult.COOLDOWN, null);
+        }
+        if (!acquire(phoneSends, phoneExpiry, key, phoneLimit, now)) {
+            return new Issued(SendResult.PHONE_LIMITED, null);
+        }
+        if (ip != null && !acquire(ipSends, ipExpiry, ipKey(ip), ipLimit, now)) {
+            return new Issued(SendResult.IP_LIMITED, null);
+        }
+        int value = fixedCode != null ? Integer.parseInt(fixedCode) : ThreadLocalRandom.current().nextInt(1_000_000);
+        codes.put(key, new Code(value, now));
+        codeExpiry.add(key, now + ttlMillis);
+        return new Issued(SendResult.SENT, String.format("%06d", value));
+    }
+
+    /**
+     * 校验验证码：成功后立即作废，并发提交同一验证码只有一个能成功；错误次数达到上限后作废。
+     */
+    public VerifyResult verify(String phone, String input) {
+        long key = phoneKey(phone);
+        Code code = codes.get(key);
+        if (code == null || code.issuedAt + ttlMillis <= clock.getAsLong()) {
+            return VerifyResult.EXPIRED;
+        }
+        if (Code.ATTEMPTS.incrementAndGet(code) > maxAttempts) {
+            codes.remove(key, code);
+            return VerifyResult.LOCKED;
+        }
+        if (!matches(input, code.value)) {
+            return VerifyResult.WRONG;
+        }
+        return codes.remove(key, code) ? VerifyResult.OK : VerifyResult.EXPIRED;
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public int expire() {
+        return expire(clock.getAsLong());
+    }
+
+    public int expire(long now) {
+        int[] removed = new int[1];
+        codeExpiry.drain(now, key -> {
+            Code c = codes.get(key);
+            if (c == null) {
+                return 0;
+            }
+            long expiresAt = c.issuedAt + ttlMillis;
+            if (expiresAt <= now && codes.remove(key, c)) {
+                removed[0]++;
+                return 0;
+            }
+            return expiresAt;
+        });
+        phoneExpiry.drain(now, key -> removeWindow(phoneSends, key, now, removed));
+        ipExpiry.drain(now, key -> removeWindow(ipSends, key, now, removed));
+        return removed[0];
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private boolean acquire(Map<Long, Window> windows, ExpiryBuckets expiry, long key, int limit, long now) {
+        Window w = windows.get(key);
+        while (w == null || w.resetAt <= now) {
+            Window fresh = new Window(now + windowMillis);
+            boolean installed = w == null ? windows.putIfAbsent(key, fresh) == null : windows.replace(key, w, fresh);
+            if (installed) {
+                expiry.add(key, fresh.resetAt);
+                w = fresh;
+                break;
+            }
+            w = windows.get(key);
+        }
+        return Window.COUNT.incrementAndGet(w) <= limit;
+    }
+
+    private static long removeWindow(Map<Long, Window> windows, long key, long now, int[] removed) {
+        Window w = windows.get(key);
+        if (w == null) {
+            return 0;
+        }
+        if (w.resetAt <= now && windows.remove(key, w)) {
+            removed[0]++;
+            return 0;
+        }
+        return w.resetAt;
+    }
+
+    private static boolean matches(String input, int expected) {
+        if (input == null || input.length() != 6) {
+            return false;
+        }
+        int value = 0;
+        for (int i = 0; i < 6; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value == expected;
+    }
+
+    /**
+     * 手机号去掉 + 号后按十进制编码为 long。
+     */
+    static long phoneKey(String phone) {
+        int start = phone.startsWith("+") ? 1 : 0;
+        int len = phone.length() - start;
+        if (len < 5 || len > 18) {
+            throw new SmsCodeException(40001, "手机号格式不正确");
+        }
+        long key = 0;
+        for (int i = start; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new SmsCodeException(40001, "手机号格式不正确");
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * IPv4 直接编码，其他地址取 64 位哈希；仅用于限流计数，极少量碰撞可以接受。
+     */
+    static long ipKey(String ip) {
+        long v4 = 0;
+        int parts = 0;
+        int octet = -1;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || octet > 255) {
+                    return hash64(ip);
+                }
+                v4 = (v4 << 8) | octet;
+                parts++;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+            } else {
+                return hash64(ip);
+            }
+        }
+        return parts == 4 ? v4 : hash64(ip);
+    }
+
+    private static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        // 与 IPv4 的 32 位取值区间错开
+        return h | (1L << 62);
+    }
+
+    /**
+     * 按秒分桶的到期队列：桶数覆盖最长有效期，每个桶是一个可增长的 long 数组，桶各自加锁。
+     * 清理回调返回条目仍未到期时的到期时间，用于清理线程滞后导致提前处理时重新入桶。
+     */
+    static final class ExpiryBuckets {
+        private static final long SLOT_MILLIS = 1000;
+        private final long[][] keys;
+        private final int[] sizes;
+        private final Object[] locks;
+        private long drainedSlot;
+
+        ExpiryBuckets(long maxTtlMillis, long now) {
+            int slots = (int) (maxTtlMillis / SLOT_MILLIS) + 2;
+            this.keys = new long[slots][];
+            this.sizes = new int[slots];
+            this.locks = new Object[slots];
+            for (int i = 0; i < slots; i++) {
+                locks[i] = new Object();
+            }
+            this.drainedSlot = now / SLOT_MILLIS;
+        }
+
+        void add(long key, long expiresAt) {
+            // 向上取整到秒，保证桶被处理时条目已经到期
+            int slot = (int) (((expiresAt + SLOT_MILLIS - 1) / SLOT_MILLIS) % keys.length);
+            synchronized (locks[slot]) {
+                long[] bucket = keys[slot];
+                if (bucket == null) {
+                    bucket = keys[slot] = new long[16];
+                } else if (sizes[slot] == bucket.length) {
+                    bucket = keys[slot] = Arrays.copyOf(bucket, bucket.length * 2);
+                }
+                bucket[sizes[slot]++] = key;
+            }
+        }
+
+        /**
+         * 处理到 now 为止的桶；onExpired 返回 0 表示已清理，否则为条目的实际到期时间。
+         */
+        synchronized void drain(long now, LongUnaryOperator onExpired) {
+            long target = now / SLOT_MILLIS;
+            while (drainedSlot < target) {
+                drainedSlot++;
+                int slot = (int) (drainedSlot % keys.length);
+                long[] bucket;
+                int size;
+                synchronized (locks[slot]) {
+                    bucket = keys[slot];
+                    size = sizes[slot];
+                    keys[slot] = null;
+                    sizes[slot] = 0;
+                }
+                for (int i = 0; i < size; i++) {
+                    long expiresAt = onExpired.applyAsLong(bucket[i]);
+                    if (expiresAt > now) {
+                        add(bucket[i], expiresAt);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.evomind.api.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 低基数字符串字典：平台、分组、状态、渠道这类取值有限的字段只存一个 int 编码。
+ * 编码只增不减，null 固定编码为 -1。
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    String value(int code) {
+        return code < 0 ? null : values[code];
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] v = values;
+        if (size == v.length) {
+            v = Arrays.copyOf(v, size * 2);
+        }
+        v[size] = value;
+        // 先发布数组再登记编码，拿到编码的读者一定能看到对应取值
+        values = v;
+        codes.put(value, size);
+        return size++;
+    }
+}
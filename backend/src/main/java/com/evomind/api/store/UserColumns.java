@@ -0,0 +1,164 @@
+package com.evomind.api.store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 按 {@link UserRegistry} 编号下标存取的用户列。按页分配（每页 65536 个用户），
+ * 只有写入时才分配页，读未分配的页返回默认值；页内用原子数组，读写都不加锁。
+ */
+final class UserColumns {
+
+    static final int PAGE_BITS = 16;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private UserColumns() {
+    }
+
+    private static class Pages<P> {
+        private final Supplier<P> factory;
+        private volatile Object[] pages = new Object[0];
+
+        Pages(Supplier<P> factory) {
+            this.factory = factory;
+        }
+
+        @SuppressWarnings("unchecked")
+        final P page(int id, boolean create) {
+            int p = id >>> PAGE_BITS;
+            Object[] dir = pages;
+            if (p < dir.length && dir[p] != null) {
+                return (P) dir[p];
+            }
+            if (!create) {
+                return null;
+            }
+            synchronized (this) {
+                dir = pages;
+                if (p >= dir.length) {
+                    dir = Arrays.copyOf(dir, p + 1);
+                }
+                if (dir[p] == null) {
+                    dir[p] = factory.get();
+                }
+                pages = dir;
+                return (P) dir[p];
+            }
+        }
+
+        final int pageCount() {
+            int n = 0;
+            for (Object page : pages) {
+                if (page != null) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 每个用户一位。
+     */
+    static final class Bits extends Pages<AtomicLongArray> {
+        Bits() {
+            super(() -> new AtomicLongArray(PAGE_SIZE / 64));
+        }
+
+        boolean get(int id) {
+            AtomicLongArray page = page(id, false);
+            return page != null && (page.get((id & PAGE_MASK) >>> 6) & (1L << id)) != 0;
+        }
+
+        void set(int id, boolean value) {
+            long bit = 1L << id;
+            page(id, true).getAndUpdate((id & PAGE_MASK) >>> 6, w -> value ? w | bit : w & ~bit);
+        }
+
+        long footprintBytes() {
+            return (long) pageCount() * (PAGE_SIZE / 8 + 16);
+        }
+    }
+
+    /**
+     * 每个用户 width 个 int，用于计数器。
+     */
+    static final class Ints extends Pages<AtomicIntegerArray> {
+        private final int width;
+
+        Ints(int width) {
+            super(() -> new AtomicIntegerArray(PAGE_SIZE * width));
+            this.width = width;
+        }
+
+        int get(int id, int column) {
+            AtomicIntegerArray page = page(id, false);
+            return page == null ? 0 : page.get((id & PAGE_MASK) * width + column);
+        }
+
+        int increment(int id, int column) {
+            return page(id, true).incrementAndGet((id & PAGE_MASK) * width + column);
+        }
+
+        long footprintBytes() {
+            return (long) pageCount() * ((long) PAGE_SIZE * width * 4 + 16);
+        }
+    }
+
+    /**
+     * 每个用户一个 long，用于时间戳。
+     */
+    static final class Longs extends Pages<AtomicLongArray> {
+        Longs() {
+            super(() -> new AtomicLongArray(PAGE_SIZE));
+        }
+
+        long get(int id) {
+            AtomicLongArray page = page(id, false);
+            return page == null ? 0 : page.get(id & PAGE_MASK);
+        }
+
+        void set(int id, long value) {
+            page(id, true).set(id & PAGE_MASK, value);
+        }
+
+        void accumulateMax(int id, long value) {
+            page(id, true).accumulateAndGet(id & PAGE_MASK, value, Math::max);
+        }
+
+        long footprintBytes() {
+            return (long) pageCount() * ((long) PAGE_SIZE * 8 + 16);
+        }
+    }
+
+    /**
+     * 每个用户一个引用。
+     */
+    static final class Refs<T> extends Pages<AtomicReferenceArray<T>> {
+        Refs() {
+            super(() -> new AtomicReferenceArray<>(PAGE_SIZE));
+        }
+
+        T get(int id) {
+            AtomicReferenceArray<T> page = page(id, false);
+            return page == null ? null : page.get(id & PAGE_MASK);
+        }
+
+        void set(int id, T value) {
+            page(id, true).set(id & PAGE_MASK, value);
+        }
+
+        boolean compareAndSet(int id, T expected, T value) {
+            return page(id, true).compareAndSet(id & PAGE_MASK, expected, value);
+        }
+
+        long footprintBytes() {
+            // 按压缩指针每个引用 4 字节估算，不含被引用对象
+            return (long) pageCount() * ((long) PAGE_SIZE * 4 + 16);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.evomind.api.store;
+
+public class UserDeletedException extends RuntimeException {
+    public UserDeletedException(String userId) {
+        super("账号已注销：" + userId);
+    }
+}
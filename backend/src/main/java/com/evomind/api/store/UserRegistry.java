@@ -0,0 +1,261 @@
+package com.evomind.api.store;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 外部 userId 到稠密 int 编号的注册表，编号从 0 连续分配、永不回收，供按下标存取的用户列使用。
+ * userId 以 UTF-8 顺序写入一块字节区，开放寻址表只存编号，每个用户约 20 字节。
+ * 查找走乐观读，注册、注销时才加写锁。注销的编号空置不复用，只抹掉字节区里的 userId 并移出查找表。
+ */
+@Component
+public class UserRegistry {
+
+    public static final int NONE = -1;
+
+    private final StampedLock lock = new StampedLock();
+    private byte[] arena = new byte[1 << 16];
+    private int arenaSize;
+    // offsets[id] 为起始位置，offsets[id + 1] 为结束位置
+    private int[] offsets = new int[1 << 12];
+    private int[] slots = new int[1 << 13];
+    private int count;
+    private final BitSet forgotten = new BitSet();
+
+    /**
+     * 返回编号，首次出现时注册。
+     */
+    public int intern(String userId) {
+        int id = find(userId);
+        if (id != NONE) {
+            return id;
+        }
+        long stamp = lock.writeLock();
+        try {
+            id = probe(userId, hash(userId));
+            if (id >= 0) {
+                return id;
+            }
+            return insert(userId, ~id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 只查不注册，未出现过的 userId 返回 {@link #NONE}；读接口用它，避免随意的 userId 占用编号。
+     */
+    public int find(String userId) {
+        if (userId == null) {
+            return NONE;
+        }
+        int h = hash(userId);
+        long stamp = lock.tryOptimisticRead();
+        int id = probe(userId, h);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = probe(userId, h);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id >= 0 ? id : NONE;
+    }
+
+    /**
+     * 注销 userId：移出查找表并清零字节区中的名字，返回原编号，未注册时返回 {@link #NONE}。
+     * 之后同名 userId 再出现会分到新编号，调用方应先清空旧编号下的各列。
+     */
+    public int forget(String userId) {
+        if (userId == null) {
+            return NONE;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int id = probe(userId, hash(userId));
+            if (id < 0) {
+                return NONE;
+            }
+            int[] table = slots;
+            int mask = table.length - 1;
+            int hole = hash(userId) & mask;
+            while (table[hole] != id + 1) {
+                hole = (hole + 1) & mask;
+            }
+            // 线性探测的回移删除：后继项的理想槽位不在 (hole, j] 内时前移填洞，保证探测链不断
+            table[hole] = 0;
+            for (int j = (hole + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int other = table[j] - 1;
+                int home = hashBytes(offsets[other], offsets[other + 1]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    table[hole] = table[j];
+                    table[j] = 0;
+                    hole = j;
+                }
+            }
+            Arrays.fill(arena, offsets[id], offsets[id + 1], (byte) 0);
+            forgotten.set(id);
+            return id;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public String name(int id) {
+        long stamp = lock.readLock();
+        try {
+            if (id < 0 || id >= count || forgotten.get(id)) {
+                return null;
+            }
+            return new String(arena, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 注册表自身占用的字节数（数组容量），用于内存报告。
+     */
+    public long footprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) arena.length + 4L * offsets.length + 4L * slots.length;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // 命中返回编号；未命中返回 ~空槽下标。乐观读期间数组可能被替换，越界时按未命中处理，由 validate 兜底
+    private int probe(String userId, int h) {
+        int[] table = slots;
+        int mask = table.length - 1;
+        for (int i = h & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+            int v = table[i];
+            if (v == 0) {
+                return ~i;
+            }
+            int id = v - 1;
+            if (equalsAt(userId, id)) {
+                return id;
+            }
+        }
+        return ~0;
+    }
+
+    private boolean equalsAt(String userId, int id) {
+        int[] offs = offsets;
+        byte[] bytes = arena;
+        if (id + 1 >= offs.length) {
+            return false;
+        }
+        int start = offs[id];
+        int end = offs[id + 1];
+        if (end < start || end > bytes.length) {
+            return false;
+        }
+        int len = userId.length();
+        if (isAscii(userId)) {
+            if (end - start != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (bytes[start + i] != (byte) userId.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        byte[] encoded = userId.getBytes(StandardCharsets.UTF_8);
+        return Arrays.equals(bytes, start, end, encoded, 0, encoded.length);
+    }
+
+    private int insert(String userId, int slot) {
+        byte[] bytes = userId.getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        int id = count;
+        offsets[id] = arenaSize;
+        arenaSize += bytes.length;
+        offsets[id + 1] = arenaSize;
+        count++;
+        slots[slot] = id + 1;
+        // 负载超过一半时扩容重排
+        if (count * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < count; id++) {
+            if (forgotten.get(id)) {
+                continue;
+            }
+            int i = hashBytes(offsets[id], offsets[id + 1]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        slots = table;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 对 UTF-8 字节做 FNV-1a，保证字符串与字节区算出的哈希一致
+    private static int hash(String userId) {
+        if (isAscii(userId)) {
+            int h = 0x811c9dc5;
+            for (int i = 0; i < userId.length(); i++) {
+                h = (h ^ (userId.charAt(i) & 0xFF)) * 0x01000193;
+            }
+            return mix(h);
+        }
+        byte[] bytes = userId.getBytes(StandardCharsets.UTF_8);
+        int h = 0x811c9dc5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private int hashBytes(int start, int end) {
+        int h = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            h = (h ^ (arena[i] & 0xFF)) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
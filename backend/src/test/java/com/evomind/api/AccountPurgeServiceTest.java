@@ -0,0 +1,166 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.NotificationClient;
+import com.evomind.api.integration.OcrSdkClient;
+import com.evomind.api.model.AiCallRecord;
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.service.AccountPurgeService;
+import com.evomind.api.service.AiCallLogWriter;
+import com.evomind.api.service.ChallengeDeadlineScheduler;
+import com.evomind.api.service.ConflictDetectionService;
+import com.evomind.api.service.OcrJobService;
+import com.evomind.api.service.PrivacyExportService;
+import com.evomind.api.store.DiscussionSessionStore;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.RefundTicketStore;
+import com.evomind.api.store.UserDeletedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+class AccountPurgeServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final DiscussionSessionStore discussions = new DiscussionSessionStore(4, 1000, 60_000, System::currentTimeMillis);
+    private final ConflictDetectionService conflicts = new ConflictDetectionService();
+    private final ChallengeDeadlineScheduler deadlines = new ChallengeDeadlineScheduler(store, new NotificationClient(), 120, 1000);
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final OcrJobService ocrJobs = new OcrJobService(new OcrSdkClient(), store, new NotificationClient(),
+            1, 16, 100, 6, 60_000, 32);
+    private RefundTicketStore refunds;
+    private AiCallLogWriter aiCallLog;
+
+    @BeforeEach
+    void open() {
+        refunds = new RefundTicketStore(dataDir.resolve("refund").resolve("refund_ticket.tsv"), now::get);
+        aiCallLog = new AiCallLogWriter(dataDir.toString(), 64, 16, AiCallLogWriter.OverflowPolicy.DROP, 0);
+        aiCallLog.start();
+        ocrJobs.start();
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        aiCallLog.stop();
+        ocrJobs.stop();
+    }
+
+    private AccountPurgeService newService() {
+        PrivacyExportService exports = new PrivacyExportService(store, discussions, new ObjectMapper(), dataDir.toString(), 24);
+        return new AccountPurgeService(store, discussions, refunds, conflicts, deadlines, exports, ocrJobs, aiCallLog,
+                dataDir.resolve("purge").resolve("pending.tsv"), 1000, 100, now::get);
+    }
+
+    @Test
+    void shouldHideDataAndRejectWritesImmediately() {
+        store.addSource("u1", "知乎", "博主", "https://example.cn/1");
+        store.createOrder(new OrderCreateRequest("u1", "BASIC", "WECHAT", 12));
+        store.completeOnboarding("u1");
+
+        newService().requestDeletion("u1");
+
+        Assertions.assertTrue(store.getSources("u1").isEmpty());
+        Assertions.assertTrue(store.orders("u1").isEmpty());
+        Assertions.assertFalse(store.isOnboardingDone("u1"));
+        Assertions.assertThrows(UserDeletedException.class, () -> store.addSource("u1", "知乎", "新博主", "https://example.cn/2"));
+        Assertions.assertDoesNotThrow(() -> store.addSource("u2", "知乎", "博主", "https://example.cn/3"));
+    }
+
+    @Test
+    void shouldPurgeInBatchesAfterGracePeriod() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            store.addSource("u1", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        store.getOrInitTask("u1");
+        discussions.open("d1", "u1", "问题");
+        conflicts.addToCorpus("u1", "s1", "标题", "长期主义需要耐心与复利");
+        refunds.create("u1", "O1", 12, "误购");
+        refunds.create("u2", "O2", 12, "误购");
+        aiCallLog.publish(new AiCallRecord("u1", "DISCUSSION", "m", 1, 1, 1, 0.01, true, now.get()));
+        aiCallLog.publish(new AiCallRecord("u2", "DISCUSSION", "m", 1, 1, 1, 0.01, true, now.get()));
+        OcrJobService.Job ocr = ocrJobs.submit("u1", "知乎", "aGVsbG8=");
+        await(() -> ocrJobs.job(ocr.jobId(), "u1").orElseThrow().status() == OcrJobService.Status.DONE
+                && (long) aiCallLog.snapshot().get("written") == 2);
+        AccountPurgeService service = newService();
+        service.requestDeletion("u1");
+
+        Assertions.assertEquals(0, service.purgeBatch(), "宽限期内不删除");
+        now.addAndGet(1000);
+        Assertions.assertEquals(100, service.purgeBatch());
+        Assertions.assertEquals(AccountPurgeService.Stage.SOURCES, service.progress("u1").orElseThrow().stage());
+        Assertions.assertEquals(100, service.purgeBatch());
+        service.purgeBatch();
+
+        Assertions.assertTrue(service.progress("u1").isEmpty());
+        Assertions.assertFalse(store.isDeleted("u1"));
+        Assertions.assertTrue(store.getSources("u1").isEmpty());
+        Assertions.assertFalse(store.task("u1") != null);
+        Assertions.assertTrue(discussions.discussionIds("u1").isEmpty());
+        Assertions.assertEquals(0, conflicts.corpusSize("u1"));
+        Assertions.assertTrue(refunds.byUser("u1", 10).isEmpty());
+        Assertions.assertEquals(1, refunds.size());
+        // journal 重写后不再含该用户的记录，重启回放也不会恢复
+        Assertions.assertEquals(1, new RefundTicketStore(dataDir.resolve("refund").resolve("refund_ticket.tsv"), now::get).size());
+        Assertions.assertTrue(ocrJobs.job(ocr.jobId(), "u1").isEmpty());
+        Assertions.assertEquals(0L, ocrJobs.snapshot().get("cacheEntries"));
+        Assertions.assertEquals(List.of("u2"), callLogUsers());
+        // 变更日志与用户编号也已清除
+        Assertions.assertEquals(0, store.changeLogSize("u1"));
+        Assertions.assertEquals(0, store.version(InMemoryStore.UserCollection.SOURCES, "u1"));
+    }
+
+    @Test
+    void shouldResumeAfterRestart() {
+        for (int i = 0; i < 150; i++) {
+            store.addSource("u1", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        AccountPurgeService service = newService();
+        service.requestDeletion("u1");
+        now.addAndGet(1000);
+        service.purgeBatch();
+
+        // 模拟重启：墓碑丢失，由落盘的进度恢复
+        store.clearTombstone("u1");
+        AccountPurgeService restarted = newService();
+        Assertions.assertTrue(store.isDeleted("u1"));
+        AccountPurgeService.Progress progress = restarted.progress("u1").orElseThrow();
+        Assertions.assertEquals(AccountPurgeService.Stage.SOURCES, progress.stage());
+        Assertions.assertEquals(100, progress.removed());
+
+        restarted.purgeBatch();
+        Assertions.assertTrue(restarted.progress("u1").isEmpty());
+        Assertions.assertTrue(store.getSources("u1").isEmpty());
+    }
+
+    private List<String> callLogUsers() throws Exception {
+        try (Stream<Path> files = Files.list(dataDir.resolve("ai-call-log"))) {
+            return files.flatMap(f -> {
+                try {
+                    return Files.readAllLines(f).stream();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).map(line -> line.substring(0, line.indexOf('\t'))).toList();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.evomind.api;
+
+import com.evomind.api.model.AiCallRecord;
+import com.evomind.api.service.AiCallLogWriter;
+import com.evomind.api.service.MpscRingBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+class AiCallLogWriterTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void ringBufferShouldKeepEveryRecordFromConcurrentProducers() throws Exception {
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        int producers = 4, perProducer = 50_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new long[]{id, i})) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] e = buffer.poll();
+            if (e == null) {
+                continue;
+            }
+            // 同一生产者的记录保持先后顺序
+            Assertions.assertEquals(next[(int) e[0]]++, e[1]);
+            received++;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assertions.assertNull(buffer.poll());
+    }
+
+    @Test
+    void shouldBatchRecordsToJournalAndCountDrops() throws Exception {
+        AiCallLogWriter writer = new AiCallLogWriter(dataDir.toString(), 64, 16, AiCallLogWriter.OverflowPolicy.DROP, 0);
+        writer.start();
+        int total = 10_000;
+        for (int i = 0; i < total; i++) {
+            writer.publish(new AiCallRecord(i % 2 == 0 ? "u1" : null, "FEED", "deepseek-chat", 10, 20, 35, 0.01, true, System.currentTimeMillis()));
+        }
+        writer.stop();
+
+        long lines;
+        try (Stream<Path> files = Files.list(dataDir.resolve("ai-call-log"))) {
+            lines = files.mapToLong(f -> {
+                try (Stream<String> l = Files.lines(f)) {
+                    return l.count();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).sum();
+        }
+        var stats = writer.snapshot();
+        Assertions.assertEquals(total, (long) stats.get("written") + (long) stats.get("dropped"));
+        Assertions.assertEquals(stats.get("written"), lines);
+        Assertions.assertEquals(0L, stats.get("lag"));
+    }
+
+    @Test
+    void shouldWriteLocaleIndependentColumns() throws Exception {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            AiCallLogWriter writer = new AiCallLogWriter(dataDir.toString(), 64, 16, AiCallLogWriter.OverflowPolicy.DROP, 0);
+            writer.start();
+            writer.publish(new AiCallRecord("u_1234", "FEED", "deepseek-chat", 10, 20, 35, 0.0125, true, System.currentTimeMillis()));
+            writer.stop();
+            List<String> lines;
+            try (Stream<Path> files = Files.list(dataDir.resolve("ai-call-log"))) {
+                lines = Files.readAllLines(files.findFirst().orElseThrow());
+            }
+            String[] columns = lines.get(0).split("\t");
+            Assertions.assertEquals("u_1234", columns[0]);
+            Assertions.assertEquals("0.0125", columns[6]);
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    void shouldSkipBadRecordsAndKeepDraining() throws Exception {
+        AiCallLogWriter writer = new AiCallLogWriter(dataDir.toString(), 64, 16, AiCallLogWriter.OverflowPolicy.DROP, 0);
+        writer.start();
+        long now = System.currentTimeMillis();
+        writer.publish(new AiCallRecord("u1", "FEED", "deepseek-chat", 10, 20, 35, 0.01, true, now));
+        writer.publish(new AiCallRecord("u1", null, "deepseek-chat", 10, 20, 35, 0.01, true, now));
+        // 消费线程空闲挂起后，新记录仍应被及时写出
+        Thread.sleep(200);
+        writer.publish(new AiCallRecord("u2", "FEED", "deepseek-chat", 10, 20, 35, 0.01, true, now));
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((long) writer.snapshot().get("written") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(2L, writer.snapshot().get("written"));
+        Assertions.assertEquals(1L, writer.snapshot().get("dropped"));
+        writer.stop();
+
+        List<String> lines;
+        try (Stream<Path> files = Files.list(dataDir.resolve("ai-call-log"))) {
+            lines = Files.readAllLines(files.findFirst().orElseThrow());
+        }
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(1).startsWith("u2\tFEED\t"));
+    }
+}
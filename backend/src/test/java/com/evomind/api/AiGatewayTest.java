@@ -0,0 +1,175 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.integration.AiSdkClient;
+import com.evomind.api.integration.CircuitBreaker;
+import com.evomind.api.model.CardItem;
+import com.evomind.api.model.DailyQuestionResponse;
+import com.evomind.api.store.InMemoryStore;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AiGatewayTest {
+
+    private HttpServer stub;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile long latencyMillis;
+    private volatile boolean failing;
+    private final AtomicLong now = new AtomicLong(0);
+    private AiGateway gateway;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/question", exchange -> {
+            hits.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            byte[] body = "来自模型的问题".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(failing ? 500 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+        String base = "http://127.0.0.1:" + stub.getAddress().getPort();
+        AiSdkClient remote = new AiSdkClient() {
+            @Override
+            public DailyQuestionResponse dailyQuestion() {
+                return new DailyQuestionResponse("d", get(base + "/question"), "AI生成，仅供参考");
+            }
+
+            @Override
+            public List<CardItem> buildCards(String userId) {
+                return List.of(new CardItem("c", "s", "p", get(base + "/question"), "g", true));
+            }
+        };
+        // 超时缩放到默认值的5%：每日一问200ms、卡片流150ms
+        gateway = new AiGateway(remote, new InMemoryStore(), r -> {}, 0.05, 1.0, now::get);
+    }
+
+    @AfterEach
+    void stopStub() {
+        gateway.shutdown();
+        stub.stop(0);
+    }
+
+    @Test
+    void shouldOpenBreakerAndProbeAfterCooldown() {
+        failing = true;
+        for (int i = 0; i < 30; i++) {
+            Assertions.assertNotEquals("来自模型的问题", gateway.dailyQuestion().question());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, gateway.breakerState(AiGateway.Scene.DAILY_QUESTION));
+        int hitsWhenOpen = hits.get();
+        gateway.dailyQuestion();
+        Assertions.assertEquals(hitsWhenOpen, hits.get());
+
+        failing = false;
+        now.addAndGet(10_000);
+        Assertions.assertEquals("来自模型的问题", gateway.dailyQuestion().question());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, gateway.breakerState(AiGateway.Scene.DAILY_QUESTION));
+    }
+
+    @Test
+    void shouldReturnProbeSlotWhenCallerIsInterrupted() {
+        failing = true;
+        for (int i = 0; i < 30; i++) {
+            gateway.dailyQuestion();
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, gateway.breakerState(AiGateway.Scene.DAILY_QUESTION));
+
+        failing = false;
+        latencyMillis = 100;
+        now.addAndGet(10_000);
+        Thread.currentThread().interrupt();
+        try {
+            Assertions.assertNotEquals("来自模型的问题", gateway.dailyQuestion().question());
+        } finally {
+            Assertions.assertTrue(Thread.interrupted());
+        }
+        // 被中断的探测不占着名额，下一次调用照常探测并闭合
+        Assertions.assertEquals("来自模型的问题", gateway.dailyQuestion().question());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, gateway.breakerState(AiGateway.Scene.DAILY_QUESTION));
+    }
+
+    @Test
+    void shouldSpendOnlyTheRetryBudget() {
+        failing = true;
+        for (int i = 0; i < 9; i++) {
+            gateway.dailyQuestion();
+        }
+        // 9次首发请求只攒下0.9个重试令牌，不应发生任何重试
+        Assertions.assertEquals(9, hits.get());
+    }
+
+    @Test
+    void shouldReturnFallbackOnTimeout() {
+        latencyMillis = 1000;
+        long start = System.nanoTime();
+        DailyQuestionResponse response = gateway.dailyQuestion();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertNotEquals("来自模型的问题", response.question());
+        Assertions.assertTrue(elapsedMillis < 800, "elapsed=" + elapsedMillis);
+    }
+
+    @Test
+    void shouldIsolateScenesWithBulkheads() throws Exception {
+        latencyMillis = 150;
+        ExecutorService callers = Executors.newFixedThreadPool(12);
+        List<Future<DailyQuestionResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            results.add(callers.submit(gateway::dailyQuestion));
+        }
+        int served = 0;
+        for (Future<DailyQuestionResponse> f : results) {
+            if ("来自模型的问题".equals(f.get(5, TimeUnit.SECONDS).question())) {
+                served++;
+            }
+        }
+        callers.shutdown();
+        Assertions.assertTrue(maxConcurrent.get() <= 4, "max=" + maxConcurrent.get());
+        Assertions.assertTrue(served <= 4);
+
+        // 每日一问舱壁占满不影响卡片流
+        latencyMillis = 0;
+        Assertions.assertEquals("来自模型的问题", gateway.buildCards("u1").get(0).title());
+    }
+
+    private static String get(String url) {
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+            if (conn.getResponseCode() != 200) {
+                throw new IllegalStateException("stub status " + conn.getResponseCode());
+            }
+            try (InputStream in = conn.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
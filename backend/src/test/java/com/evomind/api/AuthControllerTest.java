@@ -0,0 +1,68 @@
+package com.evomind.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+class AuthControllerTest {
+
+    private static ConfigurableApplicationContext ctx;
+    private static String base;
+    @TempDir
+    static Path dataDir;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void start() {
+        ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false",
+                "--evomind.sms.fixed-code=123456");
+        base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        ctx.close();
+    }
+
+    @Test
+    void shouldNotIssueTokensWithoutVerifiedCredentials() throws Exception {
+        HttpResponse<String> password = post("/api/v1/auth/password/login", "{\"phone\":\"13800001234\",\"password\":\"x\"}");
+        Assertions.assertEquals(501, password.statusCode());
+        Assertions.assertEquals(50101, objectMapper.readTree(password.body()).path("code").asInt());
+        Assertions.assertFalse(password.body().contains("accessToken"));
+
+        HttpResponse<String> wechat = post("/api/v1/auth/wechat/login", "{\"openid\":\"victim\",\"nickname\":\"n\"}");
+        Assertions.assertEquals(501, wechat.statusCode());
+        Assertions.assertFalse(wechat.body().contains("accessToken"));
+
+        // 短信验证码登录照常签发
+        Assertions.assertEquals(200, post("/api/v1/auth/sms/send", "{\"phone\":\"13800001234\"}").statusCode());
+        HttpResponse<String> sms = post("/api/v1/auth/sms/login", "{\"phone\":\"13800001234\",\"otp\":\"123456\"}");
+        Assertions.assertEquals(200, sms.statusCode(), sms.body());
+        Assertions.assertFalse(objectMapper.readTree(sms.body()).at("/data/accessToken").asText().isEmpty());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
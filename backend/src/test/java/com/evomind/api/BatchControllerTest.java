@@ -0,0 +1,135 @@
+package com.evomind.api;
+
+import com.evomind.api.service.TokenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Collections;
+
+class BatchControllerTest {
+
+    private static ConfigurableApplicationContext ctx;
+    private static String base;
+    private static String token;
+    @TempDir
+    static Path dataDir;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void start() {
+        ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false",
+                "--evomind.batch.max-requests=6",
+                // 没有 OCR 工作线程，同步识别接口会一直等到 sync-wait-ms，用来构造慢子请求
+                "--evomind.ocr.workers=0",
+                "--evomind.ocr.sync-wait-ms=5000");
+        base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        token = ctx.getBean(TokenService.class).issue("u_batch").accessToken();
+    }
+
+    @AfterAll
+    static void stop() {
+        ctx.close();
+    }
+
+    @Test
+    void shouldRunHomeScreenCallsInOneRoundTrip() throws Exception {
+        String plansEtag = http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/subscription/plans")).build(),
+                HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> response = post("""
+                {"requests":[
+                  {"id":"onboarding","method":"GET","path":"/api/v1/onboarding/state?userId=u_batch"},
+                  {"id":"challenge","method":"GET","path":"/api/v1/challenges/current?userId=u_batch"},
+                  {"id":"feed","method":"GET","path":"/api/v1/cards/feed?userId=u_batch"},
+                  {"id":"question","method":"POST","path":"/api/v1/discussion/daily-question/generate?userId=u_batch"},
+                  {"id":"plans","method":"GET","path":"/api/v1/subscription/plans","headers":{"If-None-Match":%s}},
+                  {"method":"POST","path":"/api/v1/sources/manual",
+                   "body":{"userId":"someone_else","platform":"知乎","nickname":"n","homepage":"h"}}
+                ]}""".formatted(objectMapper.writeValueAsString(plansEtag)));
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        // 子请求的响应头只写进各自的结果，不落到外层响应上
+        Assertions.assertTrue(response.headers().firstValue("ETag").isEmpty());
+        JsonNode items = objectMapper.readTree(response.body()).at("/data/responses");
+        Assertions.assertEquals(6, items.size());
+        // 按提交顺序返回，未带 id 的子请求以下标为 id
+        Assertions.assertEquals("onboarding", items.get(0).path("id").asText());
+        Assertions.assertEquals("5", items.get(5).path("id").asText());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(200, items.get(i).path("status").asInt(), items.get(i).toString());
+            Assertions.assertEquals(0, items.get(i).at("/body/code").asInt());
+        }
+        Assertions.assertFalse(items.get(1).path("etag").isNull());
+        Assertions.assertEquals(304, items.get(4).path("status").asInt());
+        Assertions.assertTrue(items.get(4).path("body").isNull());
+        // 子请求照常经过认证与用户一致性校验
+        Assertions.assertEquals(403, items.get(5).path("status").asInt());
+        Assertions.assertEquals(40301, items.get(5).at("/body/code").asInt());
+    }
+
+    @Test
+    void shouldRejectOversizedOrNestedBatch() throws Exception {
+        String item = "{\"method\":\"GET\",\"path\":\"/api/v1/health\"}";
+        HttpResponse<String> tooMany = post("{\"requests\":[" + String.join(",", Collections.nCopies(7, item)) + "]}");
+        Assertions.assertEquals(400, tooMany.statusCode());
+        Assertions.assertEquals(40001, objectMapper.readTree(tooMany.body()).path("code").asInt());
+
+        HttpResponse<String> nested = post("{\"requests\":[{\"method\":\"POST\",\"path\":\"/api/v1/batch\"}]}");
+        Assertions.assertEquals(400, nested.statusCode());
+
+        // 短信接口按客户端地址限频，不能借批量绕过
+        HttpResponse<String> sms = post("{\"requests\":[{\"method\":\"POST\",\"path\":\"/api/v1/auth/sms/send\","
+                + "\"body\":{\"phone\":\"13800001234\"}}]}");
+        Assertions.assertEquals(400, sms.statusCode());
+    }
+
+    @Test
+    void shouldReportLateCallsAsGatewayTimeoutWithoutWaitingForThem() throws Exception {
+        long started = System.nanoTime();
+        HttpResponse<String> response = post("""
+                {"requests":[
+                  {"id":"slow","method":"POST","path":"/api/v1/sources/ocr/recognize?userId=u_batch",
+                   "body":{"imageBase64":"c2xvdw==","platform":"知乎"},"timeoutMs":300},
+                  {"id":"fast","method":"GET","path":"/api/v1/cards/feed?userId=u_batch","timeoutMs":2000}
+                ]}""");
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        JsonNode items = objectMapper.readTree(response.body()).at("/data/responses");
+        Assertions.assertEquals(504, items.get(0).path("status").asInt(), items.toString());
+        Assertions.assertEquals(200, items.get(1).path("status").asInt(), items.toString());
+        // 外层只等到各子请求自己的时限，不会被 5 秒的识别等待拖住
+        Assertions.assertTrue(elapsedMs < 2_000, "批量耗时 " + elapsedMs + " ms");
+    }
+
+    @Test
+    void shouldRejectPathsThatNormalizeOutOfPrefixChecks() throws Exception {
+        for (String path : new String[]{"/api/v1/x/../batch", "/api/v1/%2e%2e/v1/batch", "/api/v1/auth/sms;p/send"}) {
+            HttpResponse<String> r = post("{\"requests\":[{\"method\":\"POST\",\"path\":\"" + path + "\"}]}");
+            Assertions.assertEquals(400, r.statusCode(), path);
+        }
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/batch"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,176 @@
+package com.evomind.api;
+
+import com.evomind.api.model.ApiResponse;
+import com.evomind.api.model.CardItem;
+import com.evomind.api.model.MindmapResponse;
+import com.evomind.api.service.TokenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+class BinaryContentTest {
+
+    private static ConfigurableApplicationContext ctx;
+    private static String base;
+    private static String token;
+    @TempDir
+    static Path dataDir;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper json = new ObjectMapper();
+    private final CBORMapper cbor = new CBORMapper();
+    private final SmileMapper smile = new SmileMapper();
+
+    @BeforeAll
+    static void start() {
+        ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false");
+        base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        token = ctx.getBean(TokenService.class).issue("u_bin").accessToken();
+    }
+
+    @AfterAll
+    static void stop() {
+        ctx.close();
+    }
+
+    @Test
+    void shouldAcceptAndReturnCbor() throws Exception {
+        byte[] body = cbor.writeValueAsBytes(Map.of("userId", "u_bin", "platform", "知乎", "nickname", "n", "homepage", "h"));
+        HttpResponse<byte[]> added = http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/sources/manual"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/cbor")
+                .header("Accept", "application/cbor")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, added.statusCode());
+        Assertions.assertEquals("application/cbor", added.headers().firstValue("Content-Type").orElseThrow());
+        JsonNode tree = cbor.readTree(added.body());
+        Assertions.assertEquals(0, tree.path("code").asInt());
+        Assertions.assertEquals("n", tree.at("/data/nickname").asText());
+
+        // 校验失败时默认错误响应同样按协商格式编码
+        HttpResponse<byte[]> invalid = http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/sources/manual"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/cbor")
+                .header("Accept", "application/cbor")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(cbor.writeValueAsBytes(Map.of("userId", "u_bin"))))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(400, invalid.statusCode());
+        Assertions.assertEquals(400, cbor.readTree(invalid.body()).path("status").asInt());
+    }
+
+    @Test
+    void shouldKeepEtagPerRepresentation() throws Exception {
+        http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/sources/manual"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"userId\":\"u_bin\",\"platform\":\"知乎\",\"nickname\":\"n\",\"homepage\":\"h\"}"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<byte[]> asJson = get("/api/v1/sources?userId=u_bin", "application/json", null);
+        HttpResponse<byte[]> asSmile = get("/api/v1/sources?userId=u_bin", "application/x-jackson-smile", null);
+        HttpResponse<byte[]> asCbor = get("/api/v1/sources?userId=u_bin", "application/cbor;q=0.9, application/json;q=0.5", null);
+        String jsonTag = asJson.headers().firstValue("ETag").orElseThrow();
+        String smileTag = asSmile.headers().firstValue("ETag").orElseThrow();
+        String cborTag = asCbor.headers().firstValue("ETag").orElseThrow();
+        Assertions.assertEquals(3, List.of(jsonTag, smileTag, cborTag).stream().distinct().count());
+        Assertions.assertTrue(asJson.headers().allValues("Vary").stream().anyMatch(v -> v.contains("Accept")));
+        Assertions.assertEquals("application/x-jackson-smile", asSmile.headers().firstValue("Content-Type").orElseThrow());
+        Assertions.assertEquals(json.readTree(asJson.body()).path("data"), smile.readTree(asSmile.body()).path("data"));
+        Assertions.assertEquals(json.readTree(asJson.body()).path("data"), cbor.readTree(asCbor.body()).path("data"));
+
+        // 同一格式的 ETag 命中 304，另一格式的 ETag 不会被误认为命中
+        Assertions.assertEquals(304, get("/api/v1/sources?userId=u_bin", "application/cbor", cborTag).statusCode());
+        Assertions.assertEquals(200, get("/api/v1/sources?userId=u_bin", "application/json", cborTag).statusCode());
+    }
+
+    @Test
+    void shouldKeepPrecomputedJsonEndpointsWorking() throws Exception {
+        HttpResponse<byte[]> plans = get("/api/v1/subscription/plans", "application/cbor, application/json;q=0.5", null);
+        Assertions.assertEquals(200, plans.statusCode());
+        Assertions.assertTrue(plans.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkPayloadSize() throws Exception {
+        List<CardItem> cards = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            cards.add(new CardItem("card_" + i, "来源博主" + (i % 7), i % 2 == 0 ? "知乎" : "小红书",
+                    "第 " + i + " 张卡片：关于长期主义与复利思维的讨论",
+                    "导读：作者从个人经历出发，讨论了如何在不确定中做长期决策，" + i, i % 3 == 0));
+        }
+        List<MindmapResponse.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            nodes.add(new MindmapResponse.Node("n" + i, "节点 " + i + "：论点与支撑证据", "L" + (i % 4), i % 9 == 0));
+        }
+        Map<String, Object> payloads = Map.of(
+                "feed", ApiResponse.ok(cards),
+                "mindmap", ApiResponse.ok(new MindmapResponse("card_1", "长期主义", nodes, "观点")));
+        Map<String, ObjectMapper> mappers = Map.of("json", json, "cbor", cbor, "smile", smile);
+        for (Map.Entry<String, Object> payload : payloads.entrySet()) {
+            for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+                ObjectMapper m = mapper.getValue();
+                byte[] bytes = m.writeValueAsBytes(payload.getValue());
+                for (int i = 0; i < 20_000; i++) {
+                    m.readTree(m.writeValueAsBytes(payload.getValue()));
+                }
+                int rounds = 20_000;
+                long started = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    m.writeValueAsBytes(payload.getValue());
+                }
+                long writeNs = (System.nanoTime() - started) / rounds;
+                started = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    m.readTree(bytes);
+                }
+                long readNs = (System.nanoTime() - started) / rounds;
+                System.out.printf("%s/%s: %d bytes, gzip %d bytes, write %d us, read %d us%n", payload.getKey(),
+                        mapper.getKey(), bytes.length, gzip(bytes), writeNs / 1000, readNs / 1000);
+            }
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", accept);
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static int gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.NotificationClient;
+import com.evomind.api.model.ChallengeTask;
+import com.evomind.api.service.ChallengeDeadlineScheduler;
+import com.evomind.api.store.InMemoryStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+class ChallengeDeadlineSchedulerTest {
+
+    @Test
+    void shouldKeepOneTimerPairPerUserUnderConcurrentTracking() throws Exception {
+        ChallengeDeadlineScheduler scheduler = new ChallengeDeadlineScheduler(new InMemoryStore(), new NotificationClient(), 120, 1000);
+        try {
+            LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+            int threads = 8, rounds = 500;
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Thread> workers = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                int id = w;
+                Thread t = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < rounds; i++) {
+                            barrier.await();
+                            scheduler.track("u1", new ChallengeTask("t" + id, "s", "title", "进行中", "d",
+                                    base.plusSeconds(id * rounds + i).toString()));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                workers.add(t);
+                t.start();
+            }
+            for (Thread t : workers) {
+                t.join();
+            }
+            // 每个用户只保留一组提醒与到期定时器，被替换的都已撤销
+            Assertions.assertEquals(2, scheduler.pending());
+            scheduler.cancel("u1");
+            Assertions.assertEquals(0, scheduler.pending());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
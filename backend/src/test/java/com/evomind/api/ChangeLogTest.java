@@ -0,0 +1,95 @@
+package com.evomind.api;
+
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.model.SourceItem;
+import com.evomind.api.model.SyncResponse;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.UserRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class ChangeLogTest {
+
+    @Test
+    void shouldReturnOnlyChangesSinceClientVersion() {
+        InMemoryStore store = new InMemoryStore();
+        store.addSource("u1", "知乎", "旧博主", "h0");
+        // 首次同步（since=0）拿全量
+        SyncResponse first = store.changesSince("u1", 0);
+        Assertions.assertTrue(first.full());
+        Assertions.assertEquals(1, first.sources().size());
+
+        SourceItem added = store.addSource("u1", "知乎", "新博主", "h1");
+        store.createOrder(new OrderCreateRequest("u1", "PRO_MONTH", "wechat", 1800));
+        store.updateTaskStatus("u1", "进行中");
+        SyncResponse delta = store.changesSince("u1", first.version());
+        Assertions.assertFalse(delta.full());
+        Assertions.assertNull(delta.sources());
+        List<String> types = delta.changes().stream().map(SyncResponse.Change::type).toList();
+        // 首次取任务与改状态压成同一实体的两条，均按当前状态解析
+        Assertions.assertEquals(List.of("source", "order", "task", "task"), types);
+        Assertions.assertEquals(added, delta.changes().get(0).data());
+        Assertions.assertTrue(delta.version() > first.version());
+
+        Assertions.assertTrue(store.changesSince("u1", delta.version()).changes().isEmpty());
+        Assertions.assertFalse(store.changesSince("u1", delta.version()).full());
+    }
+
+    @Test
+    void shouldReportRemovalAndSkipEntitiesGoneSince() {
+        InMemoryStore store = new InMemoryStore();
+        long since = store.changesSince("u2", 0).version();
+        SourceItem added = store.addSource("u2", "知乎", "n", "h");
+        store.removeSource("u2", added.id());
+        SyncResponse delta = store.changesSince("u2", since);
+        Assertions.assertEquals(1, delta.changes().size());
+        Assertions.assertTrue(delta.changes().get(0).deleted());
+        Assertions.assertEquals(added.id(), delta.changes().get(0).id());
+    }
+
+    @Test
+    void shouldCompactPerEntityBeforeDroppingHistory() {
+        InMemoryStore store = new InMemoryStore(new UserRegistry(), 8);
+        long since = store.changesSince("u3", 0).version();
+        for (int i = 0; i < 100; i++) {
+            store.updateTaskStatus("u3", "状态" + i);
+        }
+        // 同一实体反复修改只占一条，日志有界且旧客户端仍能增量同步
+        Assertions.assertTrue(store.changeLogSize("u3") <= 8);
+        SyncResponse delta = store.changesSince("u3", since);
+        Assertions.assertFalse(delta.full());
+        Assertions.assertEquals(1, delta.changes().stream().map(SyncResponse.Change::id).distinct().count());
+
+        long before = delta.version();
+        for (int i = 0; i < 20; i++) {
+            store.addSource("u3", "知乎", "n" + i, "h" + i);
+        }
+        Assertions.assertTrue(store.changeLogSize("u3") <= 8);
+        // 不同实体超出容量：落后太多的客户端退回全量
+        SyncResponse full = store.changesSince("u3", before);
+        Assertions.assertTrue(full.full());
+        Assertions.assertEquals(20, full.sources().size());
+        Assertions.assertEquals("状态99", full.task().status());
+        Assertions.assertFalse(store.changesSince("u3", full.version()).full());
+    }
+
+    @Test
+    void shouldForceFullResyncAfterStateReplacedOrVersionFromElsewhere() {
+        InMemoryStore store = new InMemoryStore();
+        store.addSource("u4", "知乎", "n", "h");
+        long since = store.changesSince("u4", 0).version();
+
+        InMemoryStore other = new InMemoryStore();
+        Assertions.assertTrue(other.importUser(store.exportUser("u4")));
+        // 迁移到新实例后，旧实例给出的版本不能被当作增量起点
+        Assertions.assertTrue(other.changesSince("u4", since).full());
+        Assertions.assertEquals(1, other.changesSince("u4", since).sources().size());
+
+        store.markDeleted("u4", System.currentTimeMillis());
+        store.clearTombstone("u4");
+        Assertions.assertTrue(store.changesSince("u4", since).full());
+        Assertions.assertTrue(store.changesSince("u4", Long.MAX_VALUE).full());
+    }
+}
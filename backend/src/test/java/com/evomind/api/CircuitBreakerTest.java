@@ -0,0 +1,52 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.CircuitBreaker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 1_000, now::get);
+
+    private void open() {
+        for (int i = 0; i < 2; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldIgnoreLateResultOfCallAdmittedBeforeTrip() {
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        open();
+        now.addAndGet(1_000);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, probe.state());
+
+        // 熔断前放行的慢调用此时才成功，不能当作探测结果把熔断器闭合
+        breaker.onSuccess(slow);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        Assertions.assertNull(breaker.tryAcquire());
+
+        breaker.onFailure(probe);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldNotCountPreviousRoundFailuresAfterClosing() {
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        open();
+        now.addAndGet(1_000);
+        breaker.onSuccess(breaker.tryAcquire());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        breaker.onFailure(breaker.tryAcquire());
+        // 上一轮的失败晚到，不应和新一轮的失败凑成熔断
+        breaker.onFailure(slow);
+        breaker.release(slow);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,206 @@
+package com.evomind.api;
+
+import com.evomind.api.controller.ShardForwardFilter;
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.RefundRequest;
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.service.ClusterService;
+import com.evomind.api.service.HashRing;
+import com.evomind.api.service.RefundService;
+import com.evomind.api.service.TokenService;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.RefundTicketStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在本机不同端口启动多个实例，验证按用户转发与扩容后的数据迁移。
+ */
+class ClusterForwardingTest {
+
+    private static final String SECRET = "cluster-test";
+
+    @TempDir
+    Path dataDir;
+
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void stop() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldForwardToOwnerAndRebalanceOnJoin() throws Exception {
+        int[] ports = {freePort(), freePort(), freePort()};
+        List<String> nodes = new ArrayList<>();
+        for (int port : ports) {
+            nodes.add("http://localhost:" + port);
+        }
+        List<String> two = nodes.subList(0, 2);
+        ConfigurableApplicationContext a = start(ports[0], two);
+        ConfigurableApplicationContext b = start(ports[1], two);
+        TokenService tokens = a.getBean(TokenService.class);
+
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String userId = "u_" + (1000 + i);
+            users.add(userId);
+            String token = tokens.issue(userId).accessToken();
+            HttpResponse<String> added = call(nodes.get(i % 2), token, "POST", "/api/v1/sources/manual",
+                    "{\"userId\":\"" + userId + "\",\"platform\":\"知乎\",\"nickname\":\"n" + i + "\",\"homepage\":\"h\"}");
+            Assertions.assertEquals(200, added.statusCode(), added.body());
+        }
+        HashRing ring = new HashRing(two, 128);
+        for (String userId : users) {
+            int owner = nodes.indexOf(ring.owner(userId));
+            Assertions.assertEquals(1, store(instances.get(owner)).getSources(userId).size());
+            Assertions.assertEquals(0, store(instances.get(1 - owner)).getSources(userId).size());
+            String token = tokens.issue(userId).accessToken();
+            HttpResponse<String> listed = call(nodes.get(1 - owner), token, "GET", "/api/v1/sources?userId=" + userId, null);
+            Assertions.assertTrue(listed.body().contains("\"homepage\":\"h\""), listed.body());
+        }
+
+        // 客户端自带转发标记但没有集群密钥：照常转发给主节点，不能借此读写非主节点上的空副本
+        String probe = users.get(0);
+        int probeOwner = nodes.indexOf(ring.owner(probe));
+        HttpResponse<String> spoofed = http.send(HttpRequest.newBuilder(
+                        URI.create(nodes.get(1 - probeOwner) + "/api/v1/sources?userId=" + probe))
+                .header("Authorization", "Bearer " + tokens.issue(probe).accessToken())
+                .header(ShardForwardFilter.FORWARDED_HEADER, "client")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertTrue(spoofed.body().contains("\"homepage\":\"h\""), spoofed.body());
+
+        ConfigurableApplicationContext c = start(ports[2], nodes);
+        String members = "{\"nodes\":[\"" + String.join("\",\"", nodes) + "\"]}";
+        for (String node : nodes) {
+            HttpResponse<String> updated = call(node, null, "POST", "/api/v1/cluster/members", members);
+            Assertions.assertEquals(200, updated.statusCode(), updated.body());
+        }
+        HashRing grown = new HashRing(nodes, 128);
+        int movedToC = 0;
+        for (String userId : users) {
+            int owner = nodes.indexOf(grown.owner(userId));
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertEquals(i == owner ? 1 : 0, store(instances.get(i)).getSources(userId).size(), userId);
+            }
+            movedToC += owner == 2 ? 1 : 0;
+            String token = tokens.issue(userId).accessToken();
+            HttpResponse<String> listed = call(nodes.get(0), token, "GET", "/api/v1/sources?userId=" + userId, null);
+            Assertions.assertTrue(listed.body().contains("\"homepage\":\"h\""), listed.body());
+        }
+        Assertions.assertTrue(movedToC > 0);
+        Assertions.assertSame(c, instances.get(2));
+        Assertions.assertEquals(nodes, b.getBean(ClusterService.class).members());
+    }
+
+    @Test
+    void shouldRouteRefundCallbackToTicketOwner() throws Exception {
+        int[] ports = {freePort(), freePort()};
+        List<String> nodes = List.of("http://localhost:" + ports[0], "http://localhost:" + ports[1]);
+        start(ports[0], nodes);
+        start(ports[1], nodes);
+        String userId = "u_2001";
+        int owner = nodes.indexOf(new HashRing(nodes, 128).owner(userId));
+        ConfigurableApplicationContext home = instances.get(owner);
+        OrderItem order = store(home).createOrder(new OrderCreateRequest(userId, "YEAR", "WECHAT", 9900));
+        RefundTicket ticket = home.getBean(RefundService.class).apply(new RefundRequest(userId, order.orderNo(), "误购"));
+        RefundTicketStore tickets = home.getBean(RefundTicketStore.class);
+        tickets.transition(ticket.ticketNo(), 1, RefundTicket.Status.REVIEWING, "r", null);
+        tickets.transition(ticket.ticketNo(), 2, RefundTicket.Status.APPROVED, "r", null);
+
+        // 支付渠道的回调既不带令牌也不带集群密钥，落到非归属实例时按单号路由
+        HttpResponse<String> callback = http.send(HttpRequest.newBuilder(
+                        URI.create(nodes.get(1 - owner) + ShardForwardFilter.REFUND_CALLBACK_PATH))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"ticketNo\":\"" + ticket.ticketNo() + "\",\"refundNo\":\"RN1\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, callback.statusCode(), callback.body());
+        Assertions.assertTrue(callback.body().contains("\"status\":\"REFUNDED\""), callback.body());
+        Assertions.assertEquals(RefundTicket.Status.REFUNDED, tickets.get(ticket.ticketNo()).orElseThrow().status());
+        Assertions.assertEquals(RefundService.ORDER_REFUNDED,
+                store(home).findOrder(userId, order.orderNo()).orElseThrow().status());
+    }
+
+    @Test
+    void shouldRejectHandoffWithoutClusterKey() throws Exception {
+        int port = freePort();
+        start(port, List.of("http://localhost:" + port));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + ClusterService.HANDOFF_PATH))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":\"u1\",\"modifiedAt\":1}"))
+                .build();
+        Assertions.assertEquals(403, http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void shouldFinishReplicationPassWhenReplicaIsDown() throws Exception {
+        String self = "http://localhost:" + freePort();
+        String dead = "http://localhost:" + freePort();
+        InMemoryStore store = new InMemoryStore();
+        ClusterService cluster = new ClusterService(store, new ObjectMapper(), true, self, self + "," + dead, 128, 2,
+                SECRET, 200);
+        for (int i = 0; i < 64; i++) {
+            store.addSource("u_" + i, "知乎", "n", "h");
+            cluster.markDirty("u_" + i);
+        }
+        // 推送失败的用户在本轮结束后才重新标脏，一轮只遍历一次
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), cluster::replicate);
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), cluster::replicate);
+        cluster.shutdown();
+    }
+
+    private ConfigurableApplicationContext start(int port, List<String> nodes) {
+        // 以命令行参数传入，优先级高于 application.yml
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=" + port,
+                "--evomind.data-dir=" + dataDir.resolve(Integer.toString(port)),
+                "--evomind.auth.keys=1:shared-signing-key-for-cluster-tests-0123456789",
+                "--evomind.cluster.enabled=true",
+                "--evomind.cluster.self=http://localhost:" + port,
+                "--evomind.cluster.nodes=" + String.join(",", nodes),
+                "--evomind.cluster.secret=" + SECRET,
+                "--evomind.warmup.enabled=false");
+        instances.add(ctx);
+        return ctx;
+    }
+
+    private HttpResponse<String> call(String node, String token, String method, String path, String body) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .header(ClusterService.KEY_HEADER, SECRET)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static InMemoryStore store(ConfigurableApplicationContext ctx) {
+        return ctx.getBean(InMemoryStore.class);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
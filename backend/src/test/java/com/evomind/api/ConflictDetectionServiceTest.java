@@ -0,0 +1,65 @@
+package com.evomind.api;
+
+import com.evomind.api.service.ConflictDetectionService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+class ConflictDetectionServiceTest {
+
+    private static final String CORPUS_STATEMENT = "坚持每天阅读一小时的习惯能够显著提高长期的学习效率和专注能力，尤其适合刚开始工作的年轻人";
+    private static final String NEW_STATEMENT = "坚持每天阅读一小时的习惯能够显著降低长期的学习效率和专注能力，尤其适合刚开始工作的年轻人";
+
+    @Test
+    void shouldFindConflictAmongCandidatesOnly() {
+        ConflictDetectionService service = new ConflictDetectionService();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            service.addToCorpus("u1", "s" + i, "噪声" + i, randomSentence(random, 40));
+        }
+        service.addToCorpus("u1", "target", "阅读习惯", CORPUS_STATEMENT);
+
+        var result = service.detect("u1", NEW_STATEMENT);
+        Assertions.assertEquals(2001, result.corpusSize());
+        Assertions.assertTrue(result.candidateCount() < 50, "candidates=" + result.candidateCount());
+        Assertions.assertEquals(1, result.conflicts().size());
+        Assertions.assertEquals("target", result.conflicts().get(0).corpusSourceId());
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownUser() {
+        var result = new ConflictDetectionService().detect("nobody", NEW_STATEMENT);
+        Assertions.assertEquals(0, result.corpusSize());
+        Assertions.assertTrue(result.conflicts().isEmpty());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkDetectAt100kPassages() {
+        ConflictDetectionService service = new ConflictDetectionService();
+        Random random = new Random(7);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            service.addToCorpus("u1", "s" + i, null, randomSentence(random, 40));
+        }
+        service.addToCorpus("u1", "target", null, CORPUS_STATEMENT);
+        long t1 = System.nanoTime();
+        int rounds = 200;
+        for (int i = 0; i < rounds; i++) {
+            service.detect("u1", NEW_STATEMENT + "。" + randomSentence(random, 40));
+        }
+        long t2 = System.nanoTime();
+        System.out.printf("index 100k passages: %d ms, detect avg: %.3f ms%n",
+                (t1 - t0) / 1_000_000, (t2 - t1) / 1e6 / rounds);
+    }
+
+    private static String randomSentence(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) (0x4E00 + random.nextInt(3000)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.integration.AiSdkClient;
+import com.evomind.api.model.DailyQuestionResponse;
+import com.evomind.api.service.DailyQuestionPool;
+import com.evomind.api.store.InMemoryStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DailyQuestionPoolTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final AtomicInteger aiCalls = new AtomicInteger();
+    private final AiSdkClient countingClient = new AiSdkClient() {
+        @Override
+        public DailyQuestionResponse dailyQuestion() {
+            int n = aiCalls.incrementAndGet();
+            return new DailyQuestionResponse("d" + n, "问题" + n, "AI生成，仅供参考");
+        }
+    };
+    private final AiGateway gateway = new AiGateway(countingClient, new InMemoryStore(), r -> {}, 1.0, 1.0, System::currentTimeMillis);
+
+    @Test
+    void shouldServeDeterministicPicksWithoutAiCalls() {
+        LocalDate today = LocalDate.now();
+        DailyQuestionPool pool = new DailyQuestionPool(gateway, dataDir.toString(), 8);
+        pool.generate(today);
+        Assertions.assertEquals(8, aiCalls.get());
+
+        DailyQuestionResponse first = pool.pick("u1", today);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(first, pool.pick("u1", today));
+        }
+        Assertions.assertEquals(8, aiCalls.get());
+    }
+
+    @Test
+    void shouldReloadPersistedPoolAfterRestart() {
+        LocalDate today = LocalDate.now();
+        new DailyQuestionPool(gateway, dataDir.toString(), 8).generate(today);
+        int callsBeforeRestart = aiCalls.get();
+
+        DailyQuestionPool restarted = new DailyQuestionPool(gateway, dataDir.toString(), 8);
+        DailyQuestionResponse picked = restarted.pick("u2", today);
+        Assertions.assertTrue(picked.question().startsWith("问题"));
+        Assertions.assertEquals(8, restarted.size(today));
+        Assertions.assertEquals(callsBeforeRestart, aiCalls.get());
+    }
+
+    @Test
+    void shouldSkipFallbackTemplatesWhenModelFails() {
+        AtomicInteger served = new AtomicInteger();
+        AiSdkClient flaky = new AiSdkClient() {
+            @Override
+            public DailyQuestionResponse dailyQuestion() {
+                // 单数次调用失败，网关对这些调用只会拿到兜底模板
+                if (served.incrementAndGet() % 2 == 1) {
+                    throw new IllegalStateException("model unavailable");
+                }
+                return new DailyQuestionResponse("d", "模型问题" + served.get(), "AI生成，仅供参考");
+            }
+        };
+        AiGateway flakyGateway = new AiGateway(flaky, new InMemoryStore(), r -> {}, 1.0, 1.0, System::currentTimeMillis);
+        LocalDate today = LocalDate.now();
+        DailyQuestionPool pool = new DailyQuestionPool(flakyGateway, dataDir.toString(), 8);
+        pool.generate(today);
+        Assertions.assertTrue(pool.size(today) > 0);
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertTrue(pool.pick("u" + i, today).question().startsWith("模型问题"));
+        }
+        flakyGateway.shutdown();
+    }
+
+    @Test
+    void shouldTopUpByAppendingAndFreezeOnceServed() throws Exception {
+        AtomicInteger budget = new AtomicInteger(4);
+        AiSdkClient limited = new AiSdkClient() {
+            @Override
+            public DailyQuestionResponse dailyQuestion() {
+                if (budget.getAndDecrement() <= 0) {
+                    throw new IllegalStateException("quota exhausted");
+                }
+                int n = aiCalls.incrementAndGet();
+                return new DailyQuestionResponse("d" + n, "问题" + n, "AI生成，仅供参考");
+            }
+        };
+        AiGateway limitedGateway = new AiGateway(limited, new InMemoryStore(), r -> {}, 1.0, 1.0, System::currentTimeMillis);
+        LocalDate today = LocalDate.now();
+        Path file = dataDir.resolve("daily-question").resolve(today + ".txt");
+
+        DailyQuestionPool pool = new DailyQuestionPool(limitedGateway, dataDir.toString(), 8);
+        pool.generate(today);
+        Assertions.assertEquals(4, pool.size(today));
+        List<String> firstHalf = Files.readAllLines(file);
+
+        // 出题前补齐：只生成缺的部分，追加在原有题目之后
+        budget.set(100);
+        int before = aiCalls.get();
+        pool.generate(today);
+        Assertions.assertEquals(8, pool.size(today));
+        Assertions.assertEquals(4, aiCalls.get() - before);
+        Assertions.assertEquals(firstHalf, Files.readAllLines(file).subList(0, 4));
+
+        // 出过题的短题库当天不再变动
+        budget.set(2);
+        DailyQuestionPool served = new DailyQuestionPool(limitedGateway, dataDir.resolve("other").toString(), 8);
+        served.generate(today);
+        DailyQuestionResponse picked = served.pick("u1", today);
+        budget.set(100);
+        before = aiCalls.get();
+        served.generate(today);
+        Assertions.assertEquals(2, served.size(today));
+        Assertions.assertEquals(before, aiCalls.get());
+        Assertions.assertEquals(picked, served.pick("u1", today));
+        limitedGateway.shutdown();
+    }
+
+    @Test
+    void shouldFallBackToEarlierPoolWithoutCallingModelOnRequestPath() throws Exception {
+        AiSdkClient down = new AiSdkClient() {
+            @Override
+            public DailyQuestionResponse dailyQuestion() {
+                aiCalls.incrementAndGet();
+                throw new IllegalStateException("model unavailable");
+            }
+        };
+        AiGateway downGateway = new AiGateway(down, new InMemoryStore(), r -> {}, 1.0, 1.0, System::currentTimeMillis);
+        LocalDate today = LocalDate.now();
+        Path dir = Files.createDirectories(dataDir.resolve("daily-question"));
+        Files.write(dir.resolve(today.minusDays(3) + ".txt"), List.of("三天前的问题"));
+        Files.write(dir.resolve(today.minusDays(1) + ".txt"), List.of("昨天的问题甲", "昨天的问题乙"));
+
+        DailyQuestionPool pool = new DailyQuestionPool(downGateway, dataDir.toString(), 8);
+        DailyQuestionResponse first = pool.pick("u1", today);
+        Assertions.assertTrue(first.question().startsWith("昨天的问题"), first.question());
+        // 题目 ID 仍由用户与日期决定，重复请求拿到同一道题
+        Assertions.assertEquals(UUID.nameUUIDFromBytes(("u1@" + today).getBytes(StandardCharsets.UTF_8)).toString(), first.discussionId());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(first, pool.pick("u1", today));
+        }
+
+        // 一份题库都没有时用内置题目，同样确定
+        DailyQuestionPool empty = new DailyQuestionPool(downGateway, dataDir.resolve("empty").toString(), 8);
+        DailyQuestionResponse builtIn = empty.pick("u2", today);
+        Assertions.assertFalse(builtIn.question().isBlank());
+        Assertions.assertEquals(builtIn, empty.pick("u2", today));
+        downGateway.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package com.evomind.api;
+
+import com.evomind.api.model.DiscussionContext;
+import com.evomind.api.store.DiscussionAccessException;
+import com.evomind.api.store.DiscussionSessionStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+class DiscussionSessionStoreTest {
+
+    @Test
+    void shouldKeepContextUnderBudgetForLongDiscussions() {
+        DiscussionSessionStore store = new DiscussionSessionStore(4, 200, 60_000, () -> 0L);
+        store.open("d1", "u1", "如果今天只能改一个习惯，哪个最能提升你的执行力？");
+        DiscussionContext ctx = null;
+        for (int i = 0; i < 500; i++) {
+            ctx = store.append("d1", "u1", i % 2 == 0 ? "user" : "ai", "第" + i + "轮：我打算每天早上先完成最重要的一件事，然后再处理消息。");
+            Assertions.assertTrue(ctx.estimatedTokens() <= 200, "tokens=" + ctx.estimatedTokens());
+        }
+        Assertions.assertEquals(4, ctx.recentTurns().length);
+        Assertions.assertTrue(ctx.recentTurns()[3].text().startsWith("第499轮"));
+        Assertions.assertFalse(ctx.summary().isEmpty());
+    }
+
+    @Test
+    void shouldMoveIdleSessionsToColdTierAndRestore() {
+        AtomicLong now = new AtomicLong(0);
+        DiscussionSessionStore store = new DiscussionSessionStore(4, 1000, 1_000, now::get);
+        store.open("d1", "u1", "今天最想放弃的低价值任务是什么？");
+        store.append("d1", "u1", "user", "刷短视频");
+
+        now.set(5_000);
+        Assertions.assertEquals(1, store.evictIdle());
+        Assertions.assertEquals(0, store.hotCount());
+        Assertions.assertEquals(1, store.coldCount());
+
+        var ctx = store.context("d1", "u1");
+        Assertions.assertEquals("今天最想放弃的低价值任务是什么？", ctx.question());
+        Assertions.assertEquals("刷短视频", ctx.recentTurns()[0].text());
+        Assertions.assertEquals(1, store.hotCount());
+        Assertions.assertEquals(0, store.coldCount());
+    }
+
+    @Test
+    void shouldRejectOtherUsersDiscussion() {
+        DiscussionSessionStore store = new DiscussionSessionStore(4, 1000, 60_000, () -> 0L);
+        store.open("d1", "u1", "问题");
+        Assertions.assertThrows(DiscussionAccessException.class, () -> store.append("d1", "u2", "user", "插一句"));
+        Assertions.assertThrows(DiscussionAccessException.class, () -> store.context("d1", "u2"));
+        // 被拒绝的请求不把讨论登记到对方名下
+        Assertions.assertTrue(store.discussionIds("u2").isEmpty());
+        Assertions.assertEquals(0, store.context("d1", "u1").recentTurns().length);
+    }
+
+    @Test
+    void shouldTreatUnopenedDiscussionsAsMissing() {
+        DiscussionSessionStore store = new DiscussionSessionStore(4, 1000, 60_000, () -> 0L);
+        // 抢先回复别人当天的讨论 id 不会创建会话，也不会占住这个 id
+        Assertions.assertThrows(DiscussionAccessException.class, () -> store.append("d-victim", "attacker", "user", "抢占"));
+        Assertions.assertEquals(0, store.hotCount());
+        Assertions.assertTrue(store.discussionIds("attacker").isEmpty());
+        store.openIfAbsent("d-victim", "victim", "问题");
+        Assertions.assertEquals(1, store.append("d-victim", "victim", "user", "回答").recentTurns().length);
+        Assertions.assertThrows(NullPointerException.class, () -> store.open("d2", null, "问题"));
+    }
+
+    @Test
+    void shouldExpireAndCapColdTier() {
+        AtomicLong now = new AtomicLong(0);
+        DiscussionSessionStore store = new DiscussionSessionStore(4, 1000, 1_000, 10_000, 2, now::get);
+        for (int i = 0; i < 3; i++) {
+            store.open("d" + i, "u1", "问题" + i);
+            now.addAndGet(100);
+        }
+        now.set(2_000);
+        store.evictIdle();
+        // 超出条数上限，最早下沉的丢弃（同一轮下沉时间相同，保留任意两条）
+        Assertions.assertEquals(2, store.coldCount());
+        Assertions.assertEquals(2, store.discussionIds("u1").size());
+
+        now.set(20_000);
+        store.evictIdle();
+        Assertions.assertEquals(0, store.coldCount());
+        Assertions.assertTrue(store.discussionIds("u1").isEmpty());
+        Assertions.assertThrows(DiscussionAccessException.class, () -> store.context("d1", "u1"));
+    }
+
+    @Test
+    void shouldNotLoseTurnsAppendedWhileSessionIsEvicted() throws Exception {
+        // 空闲阈值为 0：每一轮驱逐都会把会话移进冷存储，与追加交替进行
+        DiscussionSessionStore store = new DiscussionSessionStore(4096, Integer.MAX_VALUE, 0, () -> 0L);
+        store.open("d1", "u1", "问题");
+        AtomicBoolean done = new AtomicBoolean();
+        Thread evictor = new Thread(() -> {
+            while (!done.get()) {
+                store.evictIdle();
+            }
+        });
+        evictor.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                store.append("d1", "u1", "user", "第" + i + "轮");
+            }
+        } finally {
+            done.set(true);
+            evictor.join();
+        }
+        Assertions.assertEquals(2000, store.context("d1", "u1").recentTurns().length);
+    }
+}
@@ -0,0 +1,89 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.OcrSdkClient;
+import com.evomind.api.service.InvalidationBus;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.SmsCodeStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class FastStartProfileTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldDeferSdkClientsButKeepScheduledBeansEager() throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--spring.profiles.active=fast-start",
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false")) {
+            ConfigurableListableBeanFactory beans = ctx.getBeanFactory();
+            Assertions.assertFalse(beans.containsSingleton(beanName(beans, OcrSdkClient.class)));
+            // 定时清理的 Bean 不能延迟，否则过期验证码在首次使用前不会被清理
+            Assertions.assertTrue(beans.containsSingleton(beanName(beans, SmsCodeStore.class)));
+
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            HttpResponse<String> plans = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/subscription/plans")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, plans.statusCode(), plans.body());
+        }
+    }
+
+    @Test
+    void shouldPublishEtagInvalidationsUnderLazyInit() throws Exception {
+        int peerPort = freePort();
+        InvalidationBus peer = new InvalidationBus(true, new InetSocketAddress("127.0.0.1", peerPort), List.of(),
+                10, 100, 2_000, "fast-start-secret".getBytes(StandardCharsets.UTF_8), System::currentTimeMillis);
+        Map<String, Long> received = new ConcurrentHashMap<>();
+        peer.subscribe("etag:", received::put);
+        peer.start();
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--spring.profiles.active=fast-start",
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false",
+                "--evomind.cluster.secret=fast-start-secret",
+                "--evomind.invalidation.enabled=true",
+                "--evomind.invalidation.peers=127.0.0.1:" + peerPort)) {
+            // 没有任何 Bean 注入 StoreInvalidation，延迟初始化下它仍须在启动时把存储变更接到总线上
+            ctx.getBean(InMemoryStore.class).addSource("u-lazy", "知乎", "博主", "https://example.cn/lazy");
+            long deadline = System.currentTimeMillis() + 3_000;
+            while (!received.containsKey("etag:SOURCES:u-lazy")) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "对端未收到 ETag 失效");
+                Thread.sleep(5);
+            }
+        } finally {
+            peer.stop();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String beanName(ConfigurableListableBeanFactory beans, Class<?> type) {
+        return beans.getBeanNamesForType(type, true, false)[0];
+    }
+}
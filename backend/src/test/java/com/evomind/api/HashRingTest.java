@@ -0,0 +1,58 @@
+package com.evomind.api;
+
+import com.evomind.api.service.HashRing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+class HashRingTest {
+
+    private static final List<String> THREE = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    void shouldSpreadUsersEvenlyAcrossNodes() {
+        HashRing ring = new HashRing(THREE, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            counts.merge(ring.owner("u_" + i), 1, Integer::sum);
+        }
+        Assertions.assertEquals(3, counts.size());
+        for (int c : counts.values()) {
+            Assertions.assertTrue(c > 8_000 && c < 12_000, "分布不均：" + counts);
+        }
+    }
+
+    @Test
+    void shouldMoveOnlyUsersClaimedByNewNode() {
+        HashRing before = new HashRing(THREE, 128);
+        HashRing after = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+        int moved = 0;
+        for (int i = 0; i < 40_000; i++) {
+            String owner = after.owner("u_" + i);
+            if (!owner.equals(before.owner("u_" + i))) {
+                Assertions.assertEquals("http://d:8080", owner);
+                moved++;
+            }
+        }
+        // 理想情况下迁移 1/4
+        Assertions.assertTrue(moved > 8_000 && moved < 12_000, "迁移数量 " + moved);
+    }
+
+    @Test
+    void shouldReturnDistinctPreferenceStartingWithOwner() {
+        HashRing ring = new HashRing(THREE, 16);
+        for (int i = 0; i < 1_000; i++) {
+            List<String> pref = ring.preference("u_" + i, 2);
+            Assertions.assertEquals(2, pref.size());
+            Assertions.assertEquals(ring.owner("u_" + i), pref.get(0));
+            Assertions.assertEquals(2, new HashSet<>(pref).size());
+        }
+        Assertions.assertEquals(3, ring.preference("u_1", 5).size());
+        Assertions.assertEquals(ring.owner("u_1"), new HashRing(List.of(THREE.get(2), THREE.get(0), THREE.get(1)), 16).owner("u_1"));
+        Assertions.assertNull(new HashRing(List.of(), 16).owner("u_1"));
+    }
+}
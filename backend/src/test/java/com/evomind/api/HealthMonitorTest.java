@@ -0,0 +1,68 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.AiGateway;
+import com.evomind.api.integration.AiSdkClient;
+import com.evomind.api.service.HealthMonitor;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class HealthMonitorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldDegradeOnUnreachableDependencyAndRecordLatency() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        store.addSource("u1", "知乎", "博主", "https://example.cn");
+        int closed;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            closed = probe.getLocalPort();
+        }
+        try (ServerSocket open = new ServerSocket(0)) {
+            HealthMonitor monitor = monitor(store, dataDir.toString(), 0,
+                    "mysql=127.0.0.1:" + open.getLocalPort() + ",redis=127.0.0.1:" + closed);
+            // 未检查前关键组件未知，整体 UNKNOWN
+            Assertions.assertEquals(HealthMonitor.State.UNKNOWN, monitor.snapshot().status());
+
+            HealthMonitor.Snapshot snapshot = monitor.refresh();
+            JsonNode body = objectMapper.readTree(snapshot.json());
+            Assertions.assertEquals(HealthMonitor.State.DEGRADED, snapshot.status());
+            Assertions.assertEquals("UP", body.at("/components/store/status").asText());
+            Assertions.assertTrue(body.at("/components/store/detail").asText().startsWith("1 "));
+            Assertions.assertEquals("UP", body.at("/components/mysql/status").asText());
+            Assertions.assertEquals("DOWN", body.at("/components/redis/status").asText());
+            Assertions.assertEquals(1, body.at("/components/redis/consecutiveFailures").asInt());
+            Assertions.assertTrue(body.at("/components/disk/latencyUs").asLong() > 0);
+        }
+    }
+
+    @Test
+    void shouldGoDownWhenCriticalComponentFails() throws Exception {
+        Path file = dataDir.resolve("not-a-dir");
+        Files.writeString(file, "x");
+        HealthMonitor monitor = monitor(new InMemoryStore(), file.toString(), 0, "");
+        Assertions.assertEquals(HealthMonitor.State.DOWN, monitor.refresh().status());
+
+        HealthMonitor healthy = monitor(new InMemoryStore(), dataDir.toString(), 0, "");
+        Assertions.assertEquals(HealthMonitor.State.UP, healthy.refresh().status());
+        // 磁盘余量要求超过实际可用空间时判定 DOWN
+        HealthMonitor full = monitor(new InMemoryStore(), dataDir.toString(), Long.MAX_VALUE >> 20, "");
+        Assertions.assertEquals(HealthMonitor.State.DOWN, full.refresh().status());
+    }
+
+    private HealthMonitor monitor(InMemoryStore store, String dir, long minFreeMb, String targets) {
+        AiGateway gateway = new AiGateway(new AiSdkClient(), store, r -> {}, 1.0, 1.0, System::currentTimeMillis);
+        return new HealthMonitor(store, gateway, objectMapper, dir, 5000, 60000, minFreeMb, 500, targets);
+    }
+}
@@ -1,8 +1,19 @@
 package com.evomind.api;
 
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.SourceItem;
 import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.InMemoryStore.UserCollection;
+import com.evomind.api.store.UserRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 class InMemoryStoreTest {
 
@@ -22,4 +33,149 @@ class InMemoryStoreTest {
         store.completeOnboarding("u2");
         Assertions.assertTrue(store.isOnboardingDone("u2"));
     }
+
+    @Test
+    void shouldBumpCollectionVersionOnlyOnVisibleChange() {
+        InMemoryStore store = new InMemoryStore();
+        String empty = store.etag(UserCollection.SOURCES, "u3");
+        store.getSources("u3");
+        Assertions.assertEquals(empty, store.etag(UserCollection.SOURCES, "u3"));
+
+        var created = store.addSource("u3", "知乎", "测试博主", "https://example.cn/u3");
+        String added = store.etag(UserCollection.SOURCES, "u3");
+        Assertions.assertNotEquals(empty, added);
+        Assertions.assertFalse(store.removeSource("u3", "missing"));
+        Assertions.assertEquals(added, store.etag(UserCollection.SOURCES, "u3"));
+        store.removeSource("u3", created.id());
+        Assertions.assertNotEquals(added, store.etag(UserCollection.SOURCES, "u3"));
+
+        // 各集合、各用户互不影响
+        long orders = store.version(UserCollection.ORDERS, "u3");
+        store.createOrder(new OrderCreateRequest("u4", "BASIC", "WECHAT", 12));
+        Assertions.assertEquals(orders, store.version(UserCollection.ORDERS, "u3"));
+        store.getOrInitTask("u3");
+        long task = store.version(UserCollection.TASK, "u3");
+        store.getOrInitTask("u3");
+        Assertions.assertEquals(task, store.version(UserCollection.TASK, "u3"));
+        store.updateTaskStatus("u3", "进行中");
+        Assertions.assertEquals(task + 1, store.version(UserCollection.TASK, "u3"));
+    }
+
+    @Test
+    void shouldRoundTripRowsThroughOffHeapLayout() {
+        InMemoryStore store = new InMemoryStore();
+        String homepage = "https://example.cn/" + "长链接".repeat(60);
+        SourceItem created = store.addSource("u5", "公众号", "产品观察🙂", homepage);
+        SourceItem read = store.getSources("u5").get(0);
+        Assertions.assertEquals(created, read);
+        Assertions.assertEquals(homepage, read.homepage());
+        Assertions.assertEquals("默认", read.groupName());
+        Assertions.assertFalse(read.pinned());
+        Assertions.assertNotNull(LocalDateTime.parse(read.createdAt()));
+
+        OrderItem order = store.createOrder(new OrderCreateRequest("u5", "PRO", "ALIPAY", 99));
+        Assertions.assertEquals("u5", order.userId());
+        Assertions.assertEquals("PAID", order.status());
+        List<OrderItem> before = store.orders("u5");
+        store.updateOrderStatus("u5", order.orderNo(), "REFUNDED");
+        Assertions.assertEquals("REFUNDED", store.findOrder("u5", order.orderNo()).orElseThrow().status());
+        Assertions.assertEquals(new OrderItem(order.orderNo(), "u5", "PRO", "ALIPAY", 99, "REFUNDED", order.createdAt()),
+                store.orders("u5").get(0));
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertTrue(store.findOrder("u5", "OD0").isEmpty());
+    }
+
+    @Test
+    void shouldKeepListSnapshotsAndAccountReleasedRows() {
+        InMemoryStore store = new InMemoryStore();
+        for (int i = 0; i < 5; i++) {
+            store.addSource("u6", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        List<SourceItem> snapshot = store.getSources("u6");
+        Assertions.assertTrue(store.removeSource("u6", snapshot.get(2).id()));
+        Assertions.assertFalse(store.removeSource("u6", UUID.randomUUID().toString()));
+        Assertions.assertEquals(3, store.purgeSources("u6", 3));
+        Assertions.assertEquals(5, snapshot.size());
+        Assertions.assertEquals("博主4", snapshot.get(4).nickname());
+        Assertions.assertEquals(List.of("博主0"), store.getSources("u6").stream().map(SourceItem::nickname).toList());
+        long garbage = store.footprint().get("offHeapGarbageBytes");
+        Assertions.assertTrue(garbage > 0 && garbage < store.footprint().get("offHeapUsedBytes"));
+        // 自检按行重新核对：1 行存活，且存活加已释放不超过已分配
+        Assertions.assertEquals(1, store.verify());
+    }
+
+    @Test
+    void shouldWipeReleasedRowsAndReuseThem() {
+        InMemoryStore store = new InMemoryStore(new UserRegistry(), 256, 0);
+        for (int i = 0; i < 5; i++) {
+            store.addSource("u7", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        List<SourceItem> before = store.getSources("u7");
+        List<OrderItem> orders = store.orders("u7");
+        long used = store.footprint().get("offHeapUsedBytes");
+        Assertions.assertEquals(3, store.purgeSources("u7", 3));
+        Assertions.assertTrue(store.footprint().get("offHeapGarbageBytes") > 0);
+
+        // 留存期为 0：释放即清零并被别的用户复用，之前返回的列表是记录副本，不受影响
+        for (int i = 5; i < 8; i++) {
+            store.addSource("u8", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        Assertions.assertEquals("博主4", before.get(4).nickname());
+        Assertions.assertEquals("https://example.cn/4", before.get(4).homepage());
+        Assertions.assertTrue(orders.isEmpty());
+        Assertions.assertEquals(used, store.footprint().get("offHeapUsedBytes"));
+        Assertions.assertEquals(0, store.footprint().get("offHeapGarbageBytes"));
+        Assertions.assertEquals(3, store.purgeSources("u8", 3));
+        for (int i = 5; i < 8; i++) {
+            store.addSource("u7", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        Assertions.assertEquals(used, store.footprint().get("offHeapUsedBytes"));
+        Assertions.assertEquals(0, store.footprint().get("offHeapGarbageBytes"));
+        Assertions.assertEquals(List.of("博主0", "博主1", "博主5", "博主6", "博主7"),
+                store.getSources("u7").stream().map(SourceItem::nickname).toList());
+        store.createOrder(new OrderCreateRequest("u7", "PRO", "ALIPAY", 99));
+        Assertions.assertEquals(6, store.verify());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportHeapPerMillionSources() {
+        int total = 1_000_000;
+        Runtime rt = Runtime.getRuntime();
+        long before = usedHeap(rt);
+        List<SourceItem> records = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            records.add(new SourceItem(UUID.randomUUID().toString(), "知乎", "博主" + i, "https://example.cn/u/" + i,
+                    false, "默认", LocalDateTime.now().toString()));
+        }
+        long recordBytes = usedHeap(rt) - before;
+        Assertions.assertEquals(total, records.size());
+        records = null;
+
+        before = usedHeap(rt);
+        InMemoryStore store = new InMemoryStore();
+        for (int i = 0; i < total; i++) {
+            store.addSource("u_" + (i % 10_000), "知乎", "博主" + i, "https://example.cn/u/" + i);
+        }
+        long heapBytes = usedHeap(rt) - before;
+        long t0 = System.nanoTime();
+        int decoded = 0;
+        for (int u = 0; u < 10_000; u++) {
+            for (SourceItem item : store.getSources("u_" + u)) {
+                decoded += item.nickname().length() > 0 ? 1 : 0;
+            }
+        }
+        long t1 = System.nanoTime();
+        long offHeap = store.footprint().get("offHeapUsedBytes");
+        System.out.printf("1M sources: records %.1f B/row on heap; off-heap %.1f B/row + %.1f B/row heap; decode %d ns/row%n",
+                (double) recordBytes / total, (double) offHeap / total, (double) heapBytes / total, (t1 - t0) / total);
+        Assertions.assertEquals(total, decoded);
+    }
+
+    private static long usedHeap(Runtime rt) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
 }
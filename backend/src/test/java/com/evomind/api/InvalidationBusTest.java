@@ -0,0 +1,197 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.SourceFetchClient;
+import com.evomind.api.model.MindmapResponse;
+import com.evomind.api.service.DrilldownService;
+import com.evomind.api.service.InvalidationBus;
+import com.evomind.api.service.StoreInvalidation;
+import com.evomind.api.service.TokenService;
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.ParagraphCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+class InvalidationBusTest {
+
+    private final List<InvalidationBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void stop() throws Exception {
+        for (InvalidationBus bus : buses) {
+            bus.stop();
+        }
+    }
+
+    @Test
+    void shouldCoalesceBurstAndDeliverLatestVersion() throws Exception {
+        int pa = freePort();
+        int pb = freePort();
+        InvalidationBus a = bus(pa, pb);
+        InvalidationBus b = bus(pb, pa);
+        AtomicInteger callbacks = new AtomicInteger();
+        Map<String, Long> latest = new ConcurrentHashMap<>();
+        b.subscribe("card:", (key, version) -> {
+            callbacks.incrementAndGet();
+            latest.merge(key, version, Math::max);
+        });
+        b.subscribe("user:", (key, version) -> Assertions.fail("前缀不匹配的订阅不应收到 " + key));
+
+        long last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            last = a.publish("card:1");
+        }
+        a.publish("card:2");
+        long expected = last;
+        await(() -> Long.valueOf(expected).equals(latest.get("card:1")) && latest.containsKey("card:2"));
+        // 一万次失效合并成极少几条报文
+        Assertions.assertTrue(callbacks.get() < 20, "回调次数 " + callbacks.get());
+        Assertions.assertTrue(a.sentEntries() < 50, "发送条数 " + a.sentEntries());
+
+        // 对端时钟被推进，之后发布的版本一定更大
+        Assertions.assertTrue(b.publish("card:1") > expected);
+    }
+
+    @Test
+    void shouldRecoverLostMessagesByResend() throws Exception {
+        int pa = freePort();
+        int pb = freePort();
+        InvalidationBus a = bus(pa, pb);
+        a.publish("card:9");
+        // 对端尚未启动，首批报文丢失
+        Thread.sleep(60);
+        InvalidationBus b = bus(pb, pa);
+        AtomicInteger got = new AtomicInteger();
+        b.subscribe("card:", (key, version) -> got.incrementAndGet());
+        await(() -> got.get() == 1);
+        Thread.sleep(250);
+        Assertions.assertEquals(1, got.get(), "重发的同一版本只处理一次");
+    }
+
+    @Test
+    void shouldRejectRefreshTokenSpentOnPeer() throws Exception {
+        int pa = freePort();
+        int pb = freePort();
+        byte[][] keys = {"0123456789abcdef0123456789abcdef".getBytes()};
+        InvalidationBus peer = bus(pb, pa);
+        TokenService first = new TokenService(keys, 0, 60_000, 3_600_000, System::currentTimeMillis, bus(pa, pb));
+        TokenService second = new TokenService(keys, 0, 60_000, 3_600_000, System::currentTimeMillis, peer);
+        String refresh = first.issue("u1").refreshToken();
+        first.refresh(refresh);
+        await(() -> peer.receivedEntries() == 1);
+        Assertions.assertThrows(TokenService.InvalidTokenException.class, () -> second.refresh(refresh));
+    }
+
+    @Test
+    void shouldDropPacketsSignedWithAnotherSecret() throws Exception {
+        int pa = freePort();
+        int pb = freePort();
+        InvalidationBus a = bus(pa, pb, "another-cluster-secret");
+        InvalidationBus b = bus(pb, pa);
+        AtomicInteger got = new AtomicInteger();
+        b.subscribe("card:", (key, version) -> got.incrementAndGet());
+        a.publish("card:1");
+        await(() -> b.forgedPackets() > 0);
+        Assertions.assertEquals(0, got.get());
+        Assertions.assertEquals(0, b.receivedEntries());
+        // 没有集群密钥不允许启用
+        Assertions.assertThrows(IllegalStateException.class, () -> bus(freePort(), pa, ""));
+    }
+
+    @Test
+    void shouldInvalidateCollectionEtagsAndCardParagraphsOnPeers() throws Exception {
+        int pa = freePort();
+        int pb = freePort();
+        InvalidationBus busA = bus(pa, pb);
+        InvalidationBus busB = bus(pb, pa);
+        InMemoryStore storeA = new InMemoryStore();
+        InMemoryStore storeB = new InMemoryStore();
+        new StoreInvalidation(storeA, busA).start();
+        new StoreInvalidation(storeB, busB).start();
+        storeB.addSource("u1", "知乎", "博主", "https://example.cn/1");
+        String etag = storeB.etag(InMemoryStore.UserCollection.SOURCES, "u1");
+        String orders = storeB.etag(InMemoryStore.UserCollection.ORDERS, "u1");
+        storeA.addSource("u1", "知乎", "另一个博主", "https://example.cn/2");
+        await(() -> !etag.equals(storeB.etag(InMemoryStore.UserCollection.SOURCES, "u1")));
+        Assertions.assertEquals(orders, storeB.etag(InMemoryStore.UserCollection.ORDERS, "u1"));
+
+        ParagraphCache cacheB = new ParagraphCache(60_000, 1 << 20, System::currentTimeMillis);
+        DrilldownService drilldownA = new DrilldownService(new ParagraphCache(60_000, 1 << 20, System::currentTimeMillis),
+                new SourceFetchClient(), busA);
+        DrilldownService drilldownB = new DrilldownService(cacheB, new SourceFetchClient(), busB);
+        drilldownB.drilldown("c1", "n1");
+        drilldownB.drilldown("c2", "n1");
+        drilldownA.registerMindmap(mindmap("c1", "n1", "n2"));
+        // 结构相同的导图不发失效
+        drilldownA.registerMindmap(mindmap("c1", "n1", "n2"));
+        Thread.sleep(100);
+        Assertions.assertEquals(2, cacheB.size());
+        drilldownA.registerMindmap(mindmap("c1", "n1", "n3"));
+        await(() -> cacheB.size() == 1);
+        Assertions.assertTrue(cacheB.contains("c2", "n1"));
+        drilldownA.shutdown();
+        drilldownB.shutdown();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportPublishCost() throws Exception {
+        InvalidationBus a = bus(freePort(), freePort());
+        int n = 5_000_000;
+        for (int i = 0; i < n; i++) {
+            a.publish("user:" + (i & 1023));
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            a.publish("user:" + (i & 1023));
+        }
+        long t1 = System.nanoTime();
+        System.out.printf("publish: %d ns/op, %d entries sent for %d publishes%n", (t1 - t0) / n, a.sentEntries(), 2L * n);
+    }
+
+    private InvalidationBus bus(int port, int peer) throws Exception {
+        return bus(port, peer, "test-cluster-secret");
+    }
+
+    private InvalidationBus bus(int port, int peer, String secret) throws Exception {
+        InvalidationBus bus = new InvalidationBus(true, new InetSocketAddress("127.0.0.1", port),
+                List.of(new InetSocketAddress("127.0.0.1", peer)), 10, 100, 2_000,
+                secret.getBytes(StandardCharsets.UTF_8), System::currentTimeMillis);
+        buses.add(bus);
+        bus.start();
+        return bus;
+    }
+
+    private static MindmapResponse mindmap(String cardId, String... nodeIds) {
+        List<MindmapResponse.Node> nodes = new ArrayList<>();
+        for (String id : nodeIds) {
+            nodes.add(new MindmapResponse.Node(id, id, "L1", false));
+        }
+        return new MindmapResponse(cardId, "根", nodes, "tag");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
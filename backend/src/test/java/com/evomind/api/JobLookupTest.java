@@ -0,0 +1,65 @@
+package com.evomind.api;
+
+import com.evomind.api.service.PrivacyExportService;
+import com.evomind.api.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+class JobLookupTest {
+
+    private static ConfigurableApplicationContext ctx;
+    private static String base;
+    @TempDir
+    static Path dataDir;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void start() {
+        ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false");
+        base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        ctx.close();
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownOrForeignJobs() throws Exception {
+        PrivacyExportService.Job job = ctx.getBean(PrivacyExportService.class).submit("u_owner");
+        Assertions.assertEquals(200, get("u_owner", "/api/v1/privacy/export/" + job.jobId() + "?userId=u_owner").statusCode());
+
+        HttpResponse<String> foreign = get("u_other", "/api/v1/privacy/export/" + job.jobId() + "?userId=u_other");
+        Assertions.assertEquals(404, foreign.statusCode());
+        Assertions.assertEquals(40401, objectMapper.readTree(foreign.body()).path("code").asInt());
+        Assertions.assertEquals(404, get("u_owner", "/api/v1/privacy/export/EXnope?userId=u_owner").statusCode());
+        HttpResponse<String> ocr = get("u_owner", "/api/v1/sources/ocr/jobs/nope?userId=u_owner");
+        Assertions.assertEquals(404, ocr.statusCode());
+        Assertions.assertEquals(40401, objectMapper.readTree(ocr.body()).path("code").asInt());
+    }
+
+    private HttpResponse<String> get(String userId, String path) throws Exception {
+        String token = ctx.getBean(TokenService.class).issue(userId).accessToken();
+        return http.send(HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
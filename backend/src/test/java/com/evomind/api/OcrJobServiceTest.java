@@ -0,0 +1,185 @@
+package com.evomind.api;
+
+import com.evomind.api.integration.NotificationClient;
+import com.evomind.api.integration.OcrSdkClient;
+import com.evomind.api.model.OcrRecognizeResponse;
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.service.ImageFingerprint;
+import com.evomind.api.service.OcrJobService;
+import com.evomind.api.store.InMemoryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+class OcrJobServiceTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final CountingSdk sdk = new CountingSdk();
+    private OcrJobService service;
+
+    @AfterEach
+    void stop() {
+        sdk.release.countDown();
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void shouldNeverPayTwiceForSameOrNearIdenticalScreenshot() throws Exception {
+        service = start(2, 10);
+        sdk.release.countDown();
+        String original = screenshot(new int[]{3, 7, 12}, false, "png");
+        OcrJobService.Job first = await(service.submit("u1", "知乎", original));
+        Assertions.assertEquals(OcrJobService.Status.DONE, first.status());
+        Assertions.assertFalse(first.cached());
+
+        // 完全相同的内容跨用户命中；同一张图重新压缩、状态栏时间变化后的版本只对原用户命中
+        OcrJobService.Job again = service.submit("u2", "知乎", original);
+        Assertions.assertTrue(again.cached());
+        Assertions.assertEquals(first.result(), again.result());
+        String recompressed = screenshot(new int[]{3, 7, 12}, true, "jpg");
+        OcrJobService.Job near = service.submit("u1", "知乎", recompressed);
+        Assertions.assertTrue(near.cached());
+        Assertions.assertEquals(1, sdk.calls.size());
+        Assertions.assertFalse(await(service.submit("u2", "知乎", recompressed)).cached());
+        Assertions.assertEquals(2, sdk.calls.size());
+
+        // 同一应用的另一屏关注列表、另一个平台都要重新识别
+        Assertions.assertFalse(await(service.submit("u1", "知乎", screenshot(new int[]{1, 9, 14}, false, "png"))).cached());
+        Assertions.assertFalse(await(service.submit("u1", "微博", original)).cached());
+        Assertions.assertEquals(4, sdk.calls.size());
+        Assertions.assertEquals(1L, service.snapshot().get("nearHits"));
+    }
+
+    @Test
+    void shouldShareInflightCallAndServePaidTiersFirst() throws Exception {
+        service = start(1, 10);
+        store.createOrder(new OrderCreateRequest("vip", "ADVANCED", "WECHAT", 50));
+        OcrJobService.Job blocker = service.submit("u1", "知乎", "blocker");
+        Assertions.assertTrue(sdk.entered.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(OcrJobService.Status.RUNNING, service.job(blocker.jobId(), "u1").orElseThrow().status());
+
+        OcrJobService.Job free = service.submit("u1", "知乎", "free");
+        OcrJobService.Job dup = service.submit("u2", "知乎", "free");
+        OcrJobService.Job paid = service.submit("vip", "知乎", "paid");
+        Assertions.assertEquals(OcrJobService.Status.PENDING, free.status());
+        // 任务只对提交者可见
+        Assertions.assertTrue(service.job(free.jobId(), "u2").isEmpty());
+
+        sdk.release.countDown();
+        await(free);
+        await(paid);
+        Assertions.assertEquals(OcrJobService.Status.DONE, service.job(dup.jobId(), "u2").orElseThrow().status());
+        Assertions.assertEquals(List.of("blocker", "paid", "free"), sdk.calls);
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        service = start(1, 2);
+        service.submit("u1", "知乎", "running");
+        Assertions.assertTrue(sdk.entered.await(5, TimeUnit.SECONDS));
+        service.submit("u1", "知乎", "q1");
+        service.submit("u1", "知乎", "q2");
+        Assertions.assertThrows(OcrJobService.BusyException.class, () -> service.submit("u1", "知乎", "q3"));
+        // 与在途任务相同的图片不占队列
+        Assertions.assertEquals(OcrJobService.Status.PENDING, service.submit("u2", "知乎", "q1").status());
+    }
+
+    @Test
+    void shouldNotDecodeImagesDeclaringHugeDimensions() throws Exception {
+        BufferedImage small = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(small, "png", out);
+        byte[] png = out.toByteArray();
+        // 改写 IHDR 声明 60000×60000，解码需要十几 GB
+        ByteBuffer.wrap(png, 16, 8).putInt(60_000).putInt(60_000);
+        CRC32 crc = new CRC32();
+        crc.update(png, 12, 17);
+        ByteBuffer.wrap(png, 29, 4).putInt((int) crc.getValue());
+
+        ImageFingerprint bomb = ImageFingerprint.of(png);
+        Assertions.assertFalse(bomb.hasPerceptualHash());
+        Assertions.assertEquals(64, bomb.sha256().length());
+        Assertions.assertTrue(ImageFingerprint.of(Base64.getDecoder().decode(screenshot(new int[]{1}, false, "png")))
+                .hasPerceptualHash());
+    }
+
+    private OcrJobService start(int workers, int capacity) {
+        OcrJobService s = new OcrJobService(sdk, store, new NotificationClient(), workers, capacity, 100, 6, 60_000, 32);
+        s.start();
+        return s;
+    }
+
+    private OcrJobService.Job await(OcrJobService.Job job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            OcrJobService.Job current = service.job(job.jobId(), job.userId()).orElseThrow();
+            if (current.status() == OcrJobService.Status.DONE || current.status() == OcrJobService.Status.FAILED) {
+                return current;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("job not finished: " + job.jobId());
+    }
+
+    // 仿关注列表截图：顶部状态栏，若干行头像加昵称
+    private static String screenshot(int[] highlighted, boolean alteredClock, String format) throws Exception {
+        BufferedImage image = new BufferedImage(360, 780, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 360, 780);
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, 360, 24);
+        g.setColor(Color.WHITE);
+        g.fillRect(alteredClock ? 12 : 10, 6, 30, 12);
+        for (int row = 0; row < 15; row++) {
+            int y = 40 + row * 48;
+            boolean hl = false;
+            for (int h : highlighted) {
+                hl |= h == row;
+            }
+            g.setColor(hl ? new Color(230, 120, 40) : new Color(60, 120, 200));
+            g.fillOval(12, y, 36, 36);
+            g.setColor(Color.BLACK);
+            g.fillRect(60, y + 6, hl ? 220 : 90 + row * 9, 10);
+            g.setColor(Color.GRAY);
+            g.fillRect(60, y + 22, hl ? 80 : 200 - row * 7, 8);
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private static final class CountingSdk extends OcrSdkClient {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public OcrRecognizeResponse recognize(String platform, String imageBase64) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.add(imageBase64.length() > 64 ? "image" + calls.size() : imageBase64);
+            return super.recognize(platform, imageBase64);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.evomind.api;
+
+import com.evomind.api.store.ParagraphCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class ParagraphCacheTest {
+
+    @Test
+    void shouldExpireStrictlyByTtl() {
+        AtomicLong now = new AtomicLong(1_000);
+        ParagraphCache cache = new ParagraphCache(500, 1 << 20, now::get);
+        cache.put("c1", "n1", "原文段落".repeat(50));
+        Assertions.assertEquals("原文段落".repeat(50), cache.get("c1", "n1"));
+        Assertions.assertTrue(cache.usedBytes() < "原文段落".repeat(50).getBytes().length);
+
+        now.set(1_500);
+        Assertions.assertNull(cache.get("c1", "n1"));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    void shouldEvictEldestWhenOverBudget() {
+        AtomicLong now = new AtomicLong(0);
+        ParagraphCache cache = new ParagraphCache(10_000, 40, now::get);
+        cache.put("c1", "n1", "第一段");
+        cache.put("c1", "n2", "第二段");
+        cache.put("c1", "n3", "第三段");
+        Assertions.assertTrue(cache.usedBytes() <= 40);
+        Assertions.assertNull(cache.get("c1", "n1"));
+        Assertions.assertEquals("第三段", cache.get("c1", "n3"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.evomind.api;
+
+import com.evomind.api.controller.PlanController;
+import com.evomind.api.model.PlanItem;
+import com.evomind.api.service.PlanCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+class PlanControllerTest {
+
+    private final PlanCatalog catalog = new PlanCatalog();
+    private final PlanController controller = new PlanController(catalog, new ObjectMapper());
+
+    @Test
+    void shouldServeSameBytesAndShortCircuitWithEtag() {
+        ResponseEntity<byte[]> first = controller.plans(new MockHttpServletRequest());
+        ResponseEntity<byte[]> second = controller.plans(new MockHttpServletRequest());
+        Assertions.assertSame(first.getBody(), second.getBody());
+        String etag = first.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest();
+        conditional.addHeader("If-None-Match", "W/\"other\", " + etag);
+        ResponseEntity<byte[]> notModified = controller.plans(conditional);
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        Assertions.assertNull(notModified.getBody());
+
+        catalog.replace(List.of(new PlanItem("BASIC", "基础套餐", "MONTH", 20, 5, "无", List.of())));
+        ResponseEntity<byte[]> changed = controller.plans(conditional);
+        Assertions.assertEquals(HttpStatus.OK, changed.getStatusCode());
+        Assertions.assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldServePreGzippedVariant() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        ResponseEntity<byte[]> gz = controller.plans(request);
+        ResponseEntity<byte[]> plain = controller.plans(new MockHttpServletRequest());
+
+        Assertions.assertEquals("gzip", gz.getHeaders().getFirst("Content-Encoding"));
+        Assertions.assertNotEquals(plain.getHeaders().getETag(), gz.getHeaders().getETag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz.getBody()))) {
+            Assertions.assertArrayEquals(plain.getBody(), in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.evomind.api;
+
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.service.PrivacyExportService;
+import com.evomind.api.store.DiscussionSessionStore;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+class PrivacyExportServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldExportSnapshotAsZippedJsonLines() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        DiscussionSessionStore discussions = new DiscussionSessionStore(4, 1000, 60_000, System::currentTimeMillis);
+        for (int i = 0; i < 500; i++) {
+            store.addSource("u1", "知乎", "博主" + i, "https://example.cn/" + i);
+        }
+        store.createOrder(new OrderCreateRequest("u1", "BASIC", "WECHAT", 12));
+        store.getOrInitTask("u1");
+        discussions.open("d1", "u1", "今天最重要的一件事是什么？");
+        discussions.append("d1", "u1", "user", "写完周报");
+
+        PrivacyExportService service = new PrivacyExportService(store, discussions, new ObjectMapper(), dataDir.toString(), 24);
+        PrivacyExportService.Job job = service.submit("u1");
+        // 提交后的写入不进入本次导出
+        store.addSource("u1", "知乎", "迟到的博主", "https://example.cn/late");
+
+        for (int i = 0; i < 100 && service.job(job.jobId(), "u1").orElseThrow().status() != PrivacyExportService.Status.DONE; i++) {
+            Thread.sleep(50);
+        }
+        PrivacyExportService.Job done = service.job(job.jobId(), "u1").orElseThrow();
+        Assertions.assertEquals(PrivacyExportService.Status.DONE, done.status());
+        Assertions.assertTrue(service.job(job.jobId(), "someone-else").isEmpty());
+
+        Map<String, Integer> lines = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(service.file(done)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(zip, StandardCharsets.UTF_8));
+                int n = 0;
+                while (reader.readLine() != null) {
+                    n++;
+                }
+                lines.put(entry.getName(), n);
+            }
+        }
+        Assertions.assertEquals(500, lines.get("sources.jsonl"));
+        Assertions.assertEquals(1, lines.get("orders.jsonl"));
+        Assertions.assertEquals(1, lines.get("challenge.jsonl"));
+        Assertions.assertEquals(1, lines.get("discussions.jsonl"));
+        Assertions.assertEquals(0, lines.get("usage.jsonl"));
+    }
+}
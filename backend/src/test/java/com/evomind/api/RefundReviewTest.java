@@ -0,0 +1,87 @@
+package com.evomind.api;
+
+import com.evomind.api.model.OrderCreateRequest;
+import com.evomind.api.model.OrderItem;
+import com.evomind.api.model.RefundRequest;
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.service.RefundService;
+import com.evomind.api.service.TokenService;
+import com.evomind.api.store.InMemoryStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+class RefundReviewTest {
+
+    private static ConfigurableApplicationContext ctx;
+    private static String base;
+    @TempDir
+    static Path dataDir;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void start() {
+        ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.enabled=false",
+                "--evomind.refund.reviewers=ops_1, ops_2");
+        base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        ctx.close();
+    }
+
+    @Test
+    void shouldLimitQueueAndReviewToReviewersAndTakeReviewerFromToken() throws Exception {
+        OrderItem order = ctx.getBean(InMemoryStore.class).createOrder(new OrderCreateRequest("u_refund", "PRO_MONTH", "wechat", 1800));
+        RefundTicket ticket = ctx.getBean(RefundService.class).apply(new RefundRequest("u_refund", order.orderNo(), "误购"));
+
+        // 普通用户既看不到审核队列，也不能审核自己的退款单
+        HttpResponse<String> queue = call("u_refund", "GET", "/api/v1/refund/queue", null);
+        Assertions.assertEquals(403, queue.statusCode());
+        Assertions.assertEquals(40303, objectMapper.readTree(queue.body()).path("code").asInt());
+        String review = "{\"ticketNo\":\"" + ticket.ticketNo() + "\",\"version\":" + ticket.version()
+                + ",\"status\":\"REVIEWING\",\"reviewer\":\"ops_1\"}";
+        Assertions.assertEquals(403, call("u_refund", "POST", "/api/v1/refund/review", review).statusCode());
+
+        Assertions.assertEquals(200, call("ops_2", "GET", "/api/v1/refund/queue", null).statusCode());
+        // 审核必须带正的版本号，不带版本跳过并发校验只留给支付回调
+        String unversioned = "{\"ticketNo\":\"" + ticket.ticketNo() + "\",\"version\":0,\"status\":\"REJECTED\"}";
+        Assertions.assertEquals(400, call("ops_2", "POST", "/api/v1/refund/review", unversioned).statusCode());
+        Assertions.assertEquals(400, call("ops_2", "POST", "/api/v1/refund/review",
+                "{\"ticketNo\":\"" + ticket.ticketNo() + "\",\"status\":\"REJECTED\"}").statusCode());
+        HttpResponse<String> reviewed = call("ops_2", "POST", "/api/v1/refund/review", review);
+        Assertions.assertEquals(200, reviewed.statusCode(), reviewed.body());
+        // 请求体里自称的审核人被忽略
+        JsonNode data = objectMapper.readTree(reviewed.body()).path("data");
+        Assertions.assertEquals("ops_2", data.path("reviewer").asText());
+        Assertions.assertEquals("REVIEWING", data.path("status").asText());
+    }
+
+    private HttpResponse<String> call(String userId, String method, String path, String body) throws Exception {
+        String token = ctx.getBean(TokenService.class).issue(userId).accessToken();
+        return http.send(HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
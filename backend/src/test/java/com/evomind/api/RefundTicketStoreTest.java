@@ -0,0 +1,154 @@
+package com.evomind.api;
+
+import com.evomind.api.model.RefundTicket;
+import com.evomind.api.model.RefundTicket.Status;
+import com.evomind.api.store.RefundStateException;
+import com.evomind.api.store.RefundTicketStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RefundTicketStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    private RefundTicketStore newStore() {
+        return new RefundTicketStore(dataDir.resolve("refund_ticket.tsv"), System::currentTimeMillis);
+    }
+
+    @Test
+    void shouldRefundExactlyOnceUnderConcurrentCallbacks() throws Exception {
+        RefundTicketStore store = newStore();
+        RefundTicket t = store.create("u1", "OD1", 12, "不想要了");
+        store.transition(t.ticketNo(), 1, Status.REVIEWING, "r1", null);
+        store.transition(t.ticketNo(), 2, Status.APPROVED, "r1", null);
+
+        int threads = 16;
+        AtomicInteger refunded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    store.transition(t.ticketNo(), 0, Status.REFUNDED, null, "RN" + n);
+                    refunded.incrementAndGet();
+                } catch (RefundStateException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, refunded.get());
+        Assertions.assertEquals(threads - 1, rejected.get());
+        Assertions.assertEquals(4, store.get(t.ticketNo()).orElseThrow().version());
+    }
+
+    @Test
+    void shouldRejectStaleReviewAndIllegalTransition() {
+        RefundTicketStore store = newStore();
+        RefundTicket t = store.create("u1", "OD1", 12, "重复扣款");
+        store.transition(t.ticketNo(), 1, Status.REVIEWING, "r1", null);
+
+        RefundStateException stale = Assertions.assertThrows(RefundStateException.class,
+                () -> store.transition(t.ticketNo(), 1, Status.REJECTED, "r2", null));
+        Assertions.assertEquals(40901, stale.code());
+        RefundStateException illegal = Assertions.assertThrows(RefundStateException.class,
+                () -> store.transition(t.ticketNo(), 2, Status.REFUNDED, "r1", null));
+        Assertions.assertEquals(40902, illegal.code());
+        // 同一订单未驳回前重复提交返回原单
+        Assertions.assertEquals(t.ticketNo(), store.create("u1", "OD1", 12, "再提一次").ticketNo());
+    }
+
+    @Test
+    void shouldQueryIndexesAndReplayJournal() throws Exception {
+        RefundTicketStore store = newStore();
+        for (int i = 0; i < 30; i++) {
+            store.create(i % 2 == 0 ? "u1" : "u2", "OD" + i, 10, "原因\t" + i);
+        }
+        List<RefundTicket> submitted = store.byStatus(Status.SUBMITTED, null, 10);
+        Assertions.assertEquals(10, submitted.size());
+        for (RefundTicket t : submitted) {
+            store.transition(t.ticketNo(), 1, Status.REVIEWING, "r1", null);
+        }
+        Assertions.assertEquals(20, store.byStatus(Status.SUBMITTED, null, 100).size());
+        Assertions.assertEquals(submitted.get(9).ticketNo(), store.byStatus(Status.REVIEWING, submitted.get(8).ticketNo(), 10).get(0).ticketNo());
+        List<RefundTicket> mine = store.byUser("u1", 5);
+        Assertions.assertEquals(5, mine.size());
+        Assertions.assertTrue(mine.get(0).ticketNo().compareTo(mine.get(1).ticketNo()) > 0, "按创建时间倒序");
+        store.close();
+
+        RefundTicketStore restarted = newStore();
+        Assertions.assertEquals(30, restarted.size());
+        Assertions.assertEquals(10, restarted.byStatus(Status.REVIEWING, null, 100).size());
+        Assertions.assertEquals("原因\t0", restarted.byUser("u1", 100).get(14).reason());
+        RefundTicket next = restarted.create("u3", "OD99", 10, "新单");
+        Assertions.assertTrue(next.ticketNo().compareTo(submitted.get(9).ticketNo()) > 0);
+    }
+
+    @Test
+    void shouldRewriteJournalOnceAfterDroppingUsers() throws Exception {
+        RefundTicketStore store = newStore();
+        store.create("u1", "OD1", 10, "误购");
+        store.create("u2", "OD2", 10, "误购");
+        store.create("u3", "OD3", 10, "误购");
+        Path journal = dataDir.resolve("refund_ticket.tsv");
+        Assertions.assertEquals(1, store.dropUser("u1"));
+        Assertions.assertEquals(1, store.dropUser("u2"));
+        // 逐个删除只动内存，journal 等注销清理一批结束后统一重写
+        Assertions.assertEquals(3, Files.readAllLines(journal).size());
+        store.compact();
+        Assertions.assertEquals(1, Files.readAllLines(journal).size());
+        store.close();
+        Assertions.assertEquals(1, newStore().size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkQueriesWithMillionTickets() {
+        RefundTicketStore store = new RefundTicketStore(dataDir.resolve("bench.tsv"), System::currentTimeMillis);
+        int total = 1_000_000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            RefundTicket t = store.create("u" + (i % 100_000), "OD" + i, 10, "bench");
+            if (i % 10 == 0) {
+                store.transition(t.ticketNo(), 1, Status.REVIEWING, "r", null);
+            }
+        }
+        long t1 = System.nanoTime();
+        int rounds = 100_000;
+        long found = 0;
+        for (int i = 0; i < rounds; i++) {
+            found += store.byUser("u" + (i % 100_000), 20).size();
+        }
+        long t2 = System.nanoTime();
+        String after = null;
+        int paged = 0;
+        List<RefundTicket> page;
+        while (!(page = store.byStatus(Status.REVIEWING, after, 200)).isEmpty()) {
+            paged += page.size();
+            after = page.get(page.size() - 1).ticketNo();
+        }
+        long t3 = System.nanoTime();
+        System.out.printf("create+journal %d tickets: %d ms; byUser avg %.1f us (%d rows); page all REVIEWING (%d) %d ms%n",
+                total, (t1 - t0) / 1_000_000, (t2 - t1) / 1000.0 / rounds, found, paged, (t3 - t2) / 1_000_000);
+        Assertions.assertEquals(total / 10, paged);
+    }
+}
@@ -0,0 +1,117 @@
+package com.evomind.api;
+
+import com.evomind.api.store.SmsCodeStore;
+import com.evomind.api.store.SmsCodeStore.SendResult;
+import com.evomind.api.store.SmsCodeStore.VerifyResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class SmsCodeStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private SmsCodeStore store(int phoneLimit, int ipLimit) {
+        return new SmsCodeStore(300_000, 60_000, 3_600_000, phoneLimit, ipLimit, 5, null, now::get);
+    }
+
+    @Test
+    void shouldThrottleByPhoneAndIp() {
+        SmsCodeStore store = store(2, 3);
+        Assertions.assertEquals(SendResult.SENT, store.issue("13800000001", "10.0.0.1").result());
+        Assertions.assertEquals(SendResult.COOLDOWN, store.issue("13800000001", "10.0.0.1").result());
+        now.addAndGet(61_000);
+        Assertions.assertEquals(SendResult.SENT, store.issue("13800000001", "10.0.0.1").result());
+        now.addAndGet(61_000);
+        Assertions.assertEquals(SendResult.PHONE_LIMITED, store.issue("13800000001", "10.0.0.1").result());
+
+        Assertions.assertEquals(SendResult.SENT, store.issue("13800000002", "10.0.0.1").result());
+        Assertions.assertEquals(SendResult.IP_LIMITED, store.issue("13800000003", "10.0.0.1").result());
+        Assertions.assertEquals(SendResult.SENT, store.issue("13800000003", "10.0.0.2").result());
+
+        // 计数窗口到期后恢复
+        now.addAndGet(3_600_000);
+        store.expire();
+        Assertions.assertEquals(SendResult.SENT, store.issue("13800000001", "10.0.0.1").result());
+    }
+
+    @Test
+    void shouldConsumeCodeOnceAndExpireByBucket() {
+        SmsCodeStore store = store(5, 20);
+        String code = store.issue("+8613800000001", "::1").code();
+        String wrong = code.equals("000000") ? "000001" : "000000";
+        Assertions.assertEquals(VerifyResult.WRONG, store.verify("+8613800000001", wrong));
+        Assertions.assertEquals(VerifyResult.OK, store.verify("+8613800000001", code));
+        Assertions.assertEquals(VerifyResult.EXPIRED, store.verify("+8613800000001", code));
+
+        store.issue("13800000002", "10.0.0.1");
+        Assertions.assertEquals(1, store.size());
+        now.addAndGet(299_000);
+        Assertions.assertEquals(0, store.expire());
+        now.addAndGet(2_000);
+        Assertions.assertEquals(1, store.expire());
+        Assertions.assertEquals(0, store.size());
+    }
+
+    @Test
+    void shouldCapConcurrentGuesses() throws Exception {
+        SmsCodeStore store = store(5, 20);
+        String code = store.issue("13800000001", "10.0.0.1").code();
+        int target = Integer.parseInt(code);
+        AtomicInteger wrong = new AtomicInteger();
+        AtomicInteger ok = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            int guess = (target + 1 + i) % 1_000_000;
+            pool.execute(() -> {
+                VerifyResult r = store.verify("13800000001", String.format("%06d", guess));
+                if (r == VerifyResult.WRONG) {
+                    wrong.incrementAndGet();
+                } else if (r == VerifyResult.OK) {
+                    ok.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(5, wrong.get(), "只有前 5 次猜测被比对");
+        Assertions.assertEquals(0, ok.get());
+        Assertions.assertEquals(VerifyResult.EXPIRED, store.verify("13800000001", code), "超过次数后验证码作废");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportMemoryPerMillionCodes() {
+        int total = 1_000_000;
+        SmsCodeStore store = new SmsCodeStore(300_000, 60_000, 3_600_000, 5, Integer.MAX_VALUE, 5, null, now::get);
+        Runtime rt = Runtime.getRuntime();
+        long before = usedHeap(rt);
+        for (int i = 0; i < total; i++) {
+            store.issue(Long.toString(13_000_000_000L + i), "10.0.0.1");
+            if (i % 3334 == 0) {
+                now.incrementAndGet();
+            }
+        }
+        long after = usedHeap(rt);
+        long t0 = System.nanoTime();
+        now.addAndGet(301_000);
+        int expired = store.expire();
+        long t1 = System.nanoTime();
+        System.out.printf("1M codes: %.1f MB heap (%d B/code incl. phone send windows); expire %d in %d ms%n",
+                (after - before) / 1024.0 / 1024.0, (after - before) / total, expired, (t1 - t0) / 1_000_000);
+        Assertions.assertEquals(total, expired);
+    }
+
+    private static long usedHeap(Runtime rt) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
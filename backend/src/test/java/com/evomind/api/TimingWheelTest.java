@@ -0,0 +1,72 @@
+package com.evomind.api;
+
+import com.evomind.api.service.TimingWheel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldFireEachTimerAtItsTickAcrossLevels() {
+        long[] now = {0};
+        List<long[]> fired = new ArrayList<>();
+        TimingWheel wheel = new TimingWheel(1, 3, 0, Runnable::run);
+        Random random = new Random(1);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(600_000); // 超出3层范围(262144)的也要正确触发
+            deadlines.add(deadline);
+            wheel.schedule(deadline, () -> fired.add(new long[]{deadline, now[0]}));
+        }
+        while (now[0] < 600_000) {
+            now[0]++;
+            wheel.advance(now[0]);
+        }
+        Assertions.assertEquals(deadlines.size(), fired.size());
+        for (long[] f : fired) {
+            Assertions.assertEquals(f[0], f[1]);
+        }
+        Assertions.assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void shouldNotFireCancelledTimers() {
+        List<String> fired = new ArrayList<>();
+        TimingWheel wheel = new TimingWheel(10, 4, 0, Runnable::run);
+        TimingWheel.Timeout a = wheel.schedule(100, () -> fired.add("a"));
+        wheel.schedule(100, () -> fired.add("b"));
+        TimingWheel.Timeout c = wheel.schedule(50_000, () -> fired.add("c"));
+        Assertions.assertTrue(a.cancel());
+        Assertions.assertTrue(c.cancel());
+        Assertions.assertFalse(c.cancel());
+        wheel.advance(100_000);
+        Assertions.assertEquals(List.of("b"), fired);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkScheduleAndCancel10M() {
+        int n = 10_000_000;
+        TimingWheel wheel = new TimingWheel(1000, 4, 0, Runnable::run);
+        TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[n];
+        Runnable noop = () -> {};
+        Random random = new Random(3);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            timeouts[i] = wheel.schedule(1000L + random.nextInt(7 * 24 * 3600) * 1000L, noop);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            timeouts[i].cancel();
+        }
+        long t2 = System.nanoTime();
+        Assertions.assertEquals(0, wheel.pending());
+        System.out.printf("schedule 10M: %d ms (%.1f ns/op), cancel 10M: %d ms (%.1f ns/op)%n",
+                (t1 - t0) / 1_000_000, (t1 - t0) / (double) n, (t2 - t1) / 1_000_000, (t2 - t1) / (double) n);
+    }
+}
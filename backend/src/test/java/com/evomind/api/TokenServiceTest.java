@@ -0,0 +1,132 @@
+package com.evomind.api;
+
+import com.evomind.api.controller.AuthFilter;
+import com.evomind.api.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TokenServiceTest {
+
+    private static final byte[] OLD_KEY = "old-signing-key-0123456789abcdef!".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEW_KEY = "new-signing-key-0123456789abcdef!".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private TokenService service(int activeKid, byte[]... keys) {
+        return new TokenService(keys, activeKid, 60_000, 3_600_000, now::get);
+    }
+
+    @Test
+    void shouldVerifyAndRejectTamperedOrExpiredTokens() {
+        TokenService tokens = service(0, OLD_KEY);
+        TokenService.TokenPair pair = tokens.issue("u_1234");
+
+        TokenService.Claims claims = tokens.verify(pair.accessToken(), TokenService.Type.ACCESS);
+        Assertions.assertEquals("u_1234", claims.userId());
+        Assertions.assertNull(tokens.verify(pair.accessToken(), TokenService.Type.REFRESH), "类型不符");
+        Assertions.assertNull(tokens.verify(pair.refreshToken(), TokenService.Type.ACCESS));
+
+        char[] chars = pair.accessToken().toCharArray();
+        chars[3] = chars[3] == 'A' ? 'B' : 'A';
+        Assertions.assertNull(tokens.verify(new String(chars), TokenService.Type.ACCESS));
+        Assertions.assertNull(tokens.verify("garbage", TokenService.Type.ACCESS));
+
+        now.addAndGet(61_000);
+        Assertions.assertNull(tokens.verify(pair.accessToken(), TokenService.Type.ACCESS));
+    }
+
+    @Test
+    void shouldKeepOldTokensValidAcrossKeyRotation() {
+        String issuedBefore = service(0, OLD_KEY).issue("u1").accessToken();
+
+        TokenService rotated = service(1, OLD_KEY, NEW_KEY);
+        Assertions.assertNotNull(rotated.verify(issuedBefore, TokenService.Type.ACCESS));
+        String issuedAfter = rotated.issue("u1").accessToken();
+        Assertions.assertNotNull(rotated.verify(issuedAfter, TokenService.Type.ACCESS));
+
+        TokenService retired = service(1, null, NEW_KEY);
+        Assertions.assertNull(retired.verify(issuedBefore, TokenService.Type.ACCESS));
+        Assertions.assertNotNull(retired.verify(issuedAfter, TokenService.Type.ACCESS));
+    }
+
+    @Test
+    void shouldRotateRefreshTokenAndRejectReplay() {
+        TokenService tokens = service(0, OLD_KEY);
+        TokenService.TokenPair first = tokens.issue("u1");
+        TokenService.TokenPair second = tokens.refresh(first.refreshToken());
+        Assertions.assertEquals("u1", second.userId());
+        Assertions.assertThrows(TokenService.InvalidTokenException.class, () -> tokens.refresh(first.refreshToken()));
+
+        tokens.revoke(second.refreshToken());
+        Assertions.assertThrows(TokenService.InvalidTokenException.class, () -> tokens.refresh(second.refreshToken()));
+    }
+
+    @Test
+    void filterShouldRejectMissingTokenAndExposeUser() throws Exception {
+        TokenService tokens = service(0, OLD_KEY);
+        AuthFilter filter = new AuthFilter(tokens, new ObjectMapper(), true);
+
+        MockHttpServletResponse denied = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/sources"), denied, new MockFilterChain());
+        Assertions.assertEquals(401, denied.getStatus());
+
+        MockHttpServletResponse open = new MockHttpServletResponse();
+        MockFilterChain openChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/subscription/plans"), open, openChain);
+        Assertions.assertNotNull(openChain.getRequest());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/sources");
+        request.addHeader("Authorization", "Bearer " + tokens.issue("u9").accessToken());
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Assertions.assertNotNull(chain.getRequest());
+        Assertions.assertEquals("u9", request.getAttribute(AuthFilter.USER_ID_ATTRIBUTE));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkFilterOverhead() throws Exception {
+        TokenService tokens = new TokenService(new byte[][]{OLD_KEY}, 0, 3_600_000, 3_600_000, System::currentTimeMillis);
+        AuthFilter filter = new AuthFilter(tokens, new ObjectMapper(), true);
+        String header = "Bearer " + tokens.issue("u_12345678").accessToken();
+        int warmup = 200_000;
+        int rounds = 1_000_000;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        for (int i = 0; i < warmup; i++) {
+            tokens.verify(header.substring(7), TokenService.Type.ACCESS);
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/sources");
+            request.addHeader("Authorization", header);
+            filter.doFilter(request, response, new MockFilterChain());
+            new MockFilterChain().doFilter(request, response);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            tokens.verify(header.substring(7), TokenService.Type.ACCESS);
+        }
+        long t1 = System.nanoTime();
+        int filtered = 100_000;
+        for (int i = 0; i < filtered; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/sources");
+            request.addHeader("Authorization", header);
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < filtered; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/sources");
+            request.addHeader("Authorization", header);
+            new MockFilterChain().doFilter(request, response);
+        }
+        long t3 = System.nanoTime();
+        System.out.printf("verify %.0f ns/op; filter %.2f us/req vs bare chain %.2f us/req%n",
+                (t1 - t0) / (double) rounds, (t2 - t1) / 1000.0 / filtered, (t3 - t2) / 1000.0 / filtered);
+        Assertions.assertTrue((t1 - t0) / rounds < 20_000);
+    }
+}
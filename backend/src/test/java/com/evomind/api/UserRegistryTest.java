@@ -0,0 +1,136 @@
+package com.evomind.api;
+
+import com.evomind.api.store.InMemoryStore;
+import com.evomind.api.store.UserRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class UserRegistryTest {
+
+    @Test
+    void shouldAssignDenseIdsAndResolveNames() {
+        UserRegistry registry = new UserRegistry();
+        Assertions.assertEquals(UserRegistry.NONE, registry.find("u1"));
+        Assertions.assertEquals(0, registry.intern("u1"));
+        Assertions.assertEquals(1, registry.intern("用户_二"));
+        Assertions.assertEquals(0, registry.intern("u1"));
+        Assertions.assertEquals(1, registry.find("用户_二"));
+        Assertions.assertEquals("用户_二", registry.name(1));
+        Assertions.assertEquals(2, registry.size());
+    }
+
+    @Test
+    void shouldKeepIdsStableAcrossGrowth() {
+        UserRegistry registry = new UserRegistry();
+        for (int i = 0; i < 200_000; i++) {
+            Assertions.assertEquals(i, registry.intern("u_" + i));
+        }
+        for (int i = 0; i < 200_000; i += 997) {
+            Assertions.assertEquals(i, registry.find("u_" + i));
+            Assertions.assertEquals("u_" + i, registry.name(i));
+        }
+        Assertions.assertEquals(UserRegistry.NONE, registry.find("u_200000"));
+    }
+
+    @Test
+    void shouldInternConcurrentlyWithoutDuplicates() throws Exception {
+        UserRegistry registry = new UserRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        int[][] seen = new int[8][50_000];
+        for (int t = 0; t < 8; t++) {
+            int worker = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    seen[worker][i] = registry.intern("u_" + i);
+                }
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(50_000, registry.size());
+        for (int t = 1; t < 8; t++) {
+            Assertions.assertArrayEquals(seen[0], seen[t]);
+        }
+    }
+
+    @Test
+    void shouldForgetUsersWithoutBreakingProbeChains() {
+        UserRegistry registry = new UserRegistry();
+        for (int i = 0; i < 5_000; i++) {
+            registry.intern("user-" + i);
+        }
+        for (int i = 0; i < 5_000; i += 3) {
+            Assertions.assertEquals(i, registry.forget("user-" + i));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            Assertions.assertEquals(i % 3 == 0 ? UserRegistry.NONE : i, registry.find("user-" + i), "user-" + i);
+        }
+        Assertions.assertNull(registry.name(0));
+        Assertions.assertEquals(UserRegistry.NONE, registry.forget("user-0"));
+        // 注销的编号不复用，同名 userId 重新注册得到新编号
+        Assertions.assertEquals(5_000, registry.intern("user-0"));
+        Assertions.assertEquals("user-0", registry.name(5_000));
+    }
+
+    @Test
+    void storeShouldNotRegisterUsersOnRead() {
+        InMemoryStore store = new InMemoryStore();
+        Assertions.assertTrue(store.getSources("ghost").isEmpty());
+        Assertions.assertEquals(0, store.version(InMemoryStore.UserCollection.ORDERS, "ghost"));
+        Assertions.assertEquals(0L, store.footprint().get("users"));
+        store.completeOnboarding("u1");
+        Assertions.assertTrue(store.isOnboardingDone("u1"));
+        Assertions.assertEquals(1L, store.footprint().get("users"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportBytesPerUser() {
+        Runtime rt = Runtime.getRuntime();
+        // 旧实现：每个用户在各个 Map 里各占一个节点和一份键，按 1M 用户外推
+        int baseline = 1_000_000;
+        long before = usedHeap(rt);
+        Map<String, Boolean> onboarding = new ConcurrentHashMap<>();
+        Map<String, AtomicLongArray> versions = new ConcurrentHashMap<>();
+        for (int i = 0; i < baseline; i++) {
+            String userId = "u_" + (10_000_000 + i);
+            onboarding.put(userId, true);
+            versions.put(userId, new AtomicLongArray(3));
+        }
+        long mapBytes = usedHeap(rt) - before;
+        Assertions.assertEquals(baseline, onboarding.size());
+        Assertions.assertEquals(baseline, versions.size());
+        onboarding = null;
+        versions = null;
+
+        int total = 10_000_000;
+        before = usedHeap(rt);
+        InMemoryStore store = new InMemoryStore(new UserRegistry());
+        for (int i = 0; i < total; i++) {
+            store.completeOnboarding("u_" + (10_000_000 + i));
+        }
+        long denseBytes = usedHeap(rt) - before;
+        Map<String, Long> fp = store.footprint();
+        System.out.printf("10M users: %.1f MB heap (%.1f B/user; registry %.1f, columns %.1f)%n",
+                denseBytes / 1024.0 / 1024.0, (double) denseBytes / total,
+                (double) fp.get("registryBytes") / total, (double) fp.get("columnBytes") / total);
+        System.out.printf("map baseline: %.1f B/user, extrapolated to 10M: %.1f MB%n",
+                (double) mapBytes / baseline, mapBytes * 10.0 / 1024 / 1024);
+        Assertions.assertEquals((long) total, fp.get("users"));
+    }
+
+    private static long usedHeap(Runtime rt) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,102 @@
+package com.evomind.api;
+
+import com.evomind.api.controller.HealthPortServer;
+import com.evomind.api.service.HashRing;
+import com.evomind.api.service.WarmupService;
+import com.evomind.api.store.InMemoryStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+
+class WarmupServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldReportReadyOnlyAfterWarmup() throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=0",
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.warmup.min-rounds=40",
+                "--evomind.warmup.settle-window=20",
+                "--evomind.warmup.max-ms=5000",
+                "--evomind.health.port=0")) {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            HttpClient http = HttpClient.newHttpClient();
+            HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/system/readiness")).build();
+
+            HttpResponse<String> response = http.send(probe, HttpResponse.BodyHandlers.ofString());
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (response.statusCode() == 503 && System.currentTimeMillis() < deadline) {
+                Assertions.assertTrue(response.body().contains("\"code\":50302"), response.body());
+                Thread.sleep(50);
+                response = http.send(probe, HttpResponse.BodyHandlers.ofString());
+            }
+            Assertions.assertEquals(200, response.statusCode(), response.body());
+            Assertions.assertTrue(response.body().contains("\"ready\":true"), response.body());
+
+            WarmupService.Status status = ctx.getBean(WarmupService.class).status();
+            Assertions.assertTrue(status.rounds() >= 40, status.toString());
+            // 合成用户的数据在预热结束后清除
+            Assertions.assertEquals(0, ctx.getBean(InMemoryStore.class).getSources("__warmup__").size());
+
+            // 探针端口与业务端口分开，就绪判断与 readiness 接口一致
+            int probePort = ctx.getBean(HealthPortServer.class).port();
+            Assertions.assertNotEquals(port, probePort);
+            HttpResponse<String> ready = http.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + probePort + "/ready")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, ready.statusCode(), ready.body());
+            HttpResponse<String> health = http.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + probePort + "/health")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertTrue(health.body().contains("\"store\":{\"status\":\"UP\""), health.body());
+        }
+    }
+
+    @Test
+    void shouldKeepWarmupTrafficLocalInClusterMode() throws Exception {
+        // 挑一个不可达的对端作为合成用户的主节点；未配置集群密钥，预热请求仍须留在本实例
+        int port = freePort();
+        String self = "http://localhost:" + port;
+        String peer;
+        do {
+            peer = "http://localhost:" + freePort();
+        } while (!new HashRing(List.of(self, peer), 128).owner("__warmup__").equals(peer));
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EvoMindApiApplication.class).run(
+                "--server.port=" + port,
+                "--evomind.data-dir=" + dataDir,
+                "--evomind.cluster.enabled=true",
+                "--evomind.cluster.self=" + self,
+                "--evomind.cluster.nodes=" + self + "," + peer,
+                "--evomind.cluster.timeout-ms=200",
+                "--evomind.warmup.min-rounds=20",
+                "--evomind.warmup.settle-window=10",
+                "--evomind.warmup.max-ms=5000")) {
+            WarmupService warmup = ctx.getBean(WarmupService.class);
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (!warmup.status().ready()) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, warmup.status().toString());
+                Assertions.assertTrue(warmup.status().failedChecks().isEmpty(), warmup.status().toString());
+                Thread.sleep(50);
+            }
+            Assertions.assertTrue(warmup.status().rounds() >= 20, warmup.status().toString());
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# 启动基准：对每种启动方式测量从拉起进程到第一个成功业务请求的耗时（取多轮平均）。
+# 用法：./startup-benchmark.sh [轮数]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+ROUNDS=${1:-3}
+PORT=${PORT:-18090}
+WORK=target/startup-benchmark
+URL="http://127.0.0.1:$PORT/api/v1/subscription/plans"
+
+mvn -q -Paot -DskipTests package
+rm -rf "$WORK"
+java -Djarmode=tools -jar target/evomind-api-0.1.0.jar extract --destination "$WORK/app" >/dev/null
+JAR="$WORK/app/evomind-api-0.1.0.jar"
+
+# CDS 训练：上下文刷新完成即退出，把期间加载的类写入归档；AOT 模式加载的类不同，单独训练
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh \
+    -jar "$JAR" --evomind.data-dir="$WORK/data" >"$WORK/train.log" 2>&1
+java -XX:ArchiveClassesAtExit="$WORK/app-aot.jsa" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    -jar "$JAR" --evomind.data-dir="$WORK/data" >"$WORK/train-aot.log" 2>&1
+
+measure() {
+    local name=$1
+    shift
+    local total=0
+    for _ in $(seq "$ROUNDS"); do
+        rm -rf "$WORK/data"
+        local start
+        start=$(date +%s%N)
+        java "$@" -jar "$JAR" --server.port="$PORT" --evomind.data-dir="$WORK/data" >"$WORK/$name.log" 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$name failed to start, see $WORK/$name.log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        total=$((total + ($(date +%s%N) - start) / 1000000))
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+    printf '%-26s %6d ms\n' "$name" $((total / ROUNDS))
+}
+
+echo "time to first successful request, average of $ROUNDS rounds"
+measure default
+measure fast-start -Dspring.profiles.active=fast-start
+measure aot -Dspring.aot.enabled=true
+measure cds -XX:SharedArchiveFile="$WORK/app.jsa"
+measure cds+aot+fast-start -XX:SharedArchiveFile="$WORK/app-aot.jsa" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=fast-start
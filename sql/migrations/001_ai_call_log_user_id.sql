@@ -0,0 +1,6 @@
+-- 已有库升级（MySQL 8）：server_schema.sql 只做 CREATE TABLE IF NOT EXISTS，不会改动早先建好的表。
+-- ai_call_log.user_id 由 BIGINT 改为服务端字符串用户标识，与后台写出的日志文件一致，并补按用户查询的索引。
+-- 原有的数字 user_id 转成对应的十进制字符串保留。新建的库已是新结构，不要执行本脚本。
+ALTER TABLE ai_call_log
+  MODIFY COLUMN user_id VARCHAR(64),
+  ADD INDEX idx_user_created(user_id, created_at);
@@ -66,7 +66,8 @@ CREATE TABLE IF NOT EXISTS compute_cost_snapshot (
 
 CREATE TABLE IF NOT EXISTS ai_call_log (
   id BIGINT PRIMARY KEY AUTO_INCREMENT,
-  user_id BIGINT,
+  -- 服务端字符串用户标识（如 u_1234），与后台写出的日志文件一致；无用户上下文的调用为 NULL
+  user_id VARCHAR(64),
   scene_code VARCHAR(64) NOT NULL,
   model_name VARCHAR(128) NOT NULL,
   token_in INT DEFAULT 0,
@@ -74,5 +75,6 @@ CREATE TABLE IF NOT EXISTS ai_call_log (
   latency_ms INT DEFAULT 0,
   cost_amount DECIMAL(10,4) DEFAULT 0,
   success TINYINT NOT NULL,
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_user_created(user_id, created_at)
 );